@@ -0,0 +1,101 @@
+package com.wangyanrui.elasticsearch.api.benchmark;
+
+import com.wangyanrui.elasticsearch.api.core.ElasticReader;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SearchAction;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: ReaderBenchmark
+ * Description: ElasticReader 客户端开销基准测试
+ * <p>
+ * 覆盖 查询请求构建(search 经 buildSearchRequestByQuery)、MultiGet 响应解析
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+    private static final String INDEX = "benchmark";
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    @Param({"0"})
+    private long latencyMicros;
+
+    private StubElasticClient client;
+
+    private ElasticReader reader;
+
+    private SearchAction searchAction;
+
+    private String[] docIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = new StubElasticClient(latencyMicros, 10);
+        reader = new ElasticReader(client);
+
+        searchAction = new SearchAction(INDEX)
+                .setQueryBuilder(QueryBuilders.boolQuery()
+                        .must(QueryBuilders.termQuery("title", "benchmark"))
+                        .filter(QueryBuilders.rangeQuery("price").gte(10).lt(100)))
+                .setSortBuilder(SortBuilders.fieldSort("count").order(SortOrder.DESC))
+                .setAggregationBuilders(AggregationBuilders.terms("tags").field("tags"))
+                .setFrom(0)
+                .setSize(10);
+
+        docIds = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            docIds[i] = String.valueOf(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    /**
+     * 查询请求构建 + 执行(stub 直接返回)
+     */
+    @Benchmark
+    public SearchResponse search() {
+        return reader.search(searchAction);
+    }
+
+    /**
+     * MultiGet 请求构建 + 响应解析
+     */
+    @Benchmark
+    public List<GetResponse> multiGet() {
+        return reader.multiGet(INDEX, docIds);
+    }
+}
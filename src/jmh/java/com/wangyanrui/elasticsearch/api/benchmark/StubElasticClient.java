@@ -0,0 +1,40 @@
+package com.wangyanrui.elasticsearch.api.benchmark;
+
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import org.elasticsearch.client.transport.TransportClient;
+
+/**
+ * Title: StubElasticClient
+ * Description: 使用 {@link StubTransportClient} 的 ElasticClient
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class StubElasticClient extends ElasticClient {
+
+    private final StubTransportClient stub;
+
+    /**
+     * @param latencyMicros 响应延迟(微秒)
+     * @param searchHits    Search 响应中的文档数量
+     */
+    public StubElasticClient(long latencyMicros, int searchHits) {
+        super("localhost", 9300, "benchmark");
+        this.stub = new StubTransportClient(latencyMicros, searchHits);
+    }
+
+    @Override
+    public TransportClient getClient() {
+        return stub;
+    }
+
+    @Override
+    public ElasticClient connect() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        stub.close();
+    }
+}
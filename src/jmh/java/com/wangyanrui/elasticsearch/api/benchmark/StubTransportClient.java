@@ -0,0 +1,163 @@
+package com.wangyanrui.elasticsearch.api.benchmark;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.transport.client.PreBuiltTransportClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: StubTransportClient
+ * Description: 进程内的 stub TransportClient
+ * <p>
+ * 不连接任何节点, 按请求类型直接构造响应(Bulk/Index/Update/Delete/Get/MultiGet/Search),
+ * 可配置响应延迟, 用于基准测试客户端自身的开销
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class StubTransportClient extends PreBuiltTransportClient {
+
+    private static final BytesReference SOURCE = new BytesArray(
+            "{\"title\":\"benchmark\",\"count\":42,\"tags\":[\"a\",\"b\",\"c\"],\"price\":19.99}"
+                    .getBytes(StandardCharsets.UTF_8));
+
+    private final long latencyMicros;
+
+    private final int searchHits;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stub-transport-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param latencyMicros 响应延迟(微秒), 小于等于0时在调用线程中直接响应
+     * @param searchHits    Search 响应中的文档数量
+     */
+    public StubTransportClient(long latencyMicros, int searchHits) {
+        super(Settings.builder().put("cluster.name", "benchmark").build(), Collections.emptyList());
+        this.latencyMicros = latencyMicros;
+        this.searchHits = searchHits;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <Request extends ActionRequest, Response extends ActionResponse,
+            RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+            Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+        final Response response;
+        try {
+            response = (Response) respond(request);
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+            return;
+        }
+        if (latencyMicros <= 0) {
+            listener.onResponse(response);
+        } else {
+            scheduler.schedule(() -> listener.onResponse(response), latencyMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        super.close();
+    }
+
+    private ActionResponse respond(ActionRequest request) {
+        if (request instanceof BulkRequest) {
+            List<DocWriteRequest> requests = ((BulkRequest) request).requests();
+            BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+            for (int i = 0; i < items.length; i++) {
+                DocWriteRequest docWriteRequest = requests.get(i);
+                items[i] = new BulkItemResponse(i, docWriteRequest.opType(), writeResponse(docWriteRequest));
+            }
+            return new BulkResponse(items, 1);
+        }
+        if (request instanceof DocWriteRequest) {
+            return writeResponse((DocWriteRequest) request);
+        }
+        if (request instanceof GetRequest) {
+            GetRequest getRequest = (GetRequest) request;
+            return getResponse(getRequest.index(), getRequest.type(), getRequest.id());
+        }
+        if (request instanceof MultiGetRequest) {
+            List<MultiGetRequest.Item> items = ((MultiGetRequest) request).getItems();
+            MultiGetItemResponse[] responses = new MultiGetItemResponse[items.size()];
+            for (int i = 0; i < responses.length; i++) {
+                MultiGetRequest.Item item = items.get(i);
+                responses[i] = new MultiGetItemResponse(getResponse(item.index(), item.type(), item.id()), null);
+            }
+            return new MultiGetResponse(responses);
+        }
+        if (request instanceof SearchRequest) {
+            SearchHit[] hits = new SearchHit[searchHits];
+            for (int i = 0; i < hits.length; i++) {
+                hits[i] = new SearchHit(i, String.valueOf(i), new Text("_doc"), Collections.emptyMap())
+                        .sourceRef(SOURCE);
+            }
+            InternalSearchResponse sections = new InternalSearchResponse(
+                    new SearchHits(hits, hits.length, 1.0f), null, null, null, false, null, 1);
+            return new SearchResponse(sections, null, 1, 1, 0, 1,
+                    ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+        }
+        throw new UnsupportedOperationException("stub does not support " + request.getClass().getSimpleName());
+    }
+
+    private static DocWriteResponse writeResponse(DocWriteRequest request) {
+        ShardId shardId = new ShardId(request.index(), "_na_", 0);
+        if (request instanceof IndexRequest) {
+            return new IndexResponse(shardId, request.type(), request.id(), 1, 1, 1, true);
+        }
+        if (request instanceof UpdateRequest) {
+            return new UpdateResponse(shardId, request.type(), request.id(), 2, DocWriteResponse.Result.UPDATED);
+        }
+        if (request instanceof DeleteRequest) {
+            return new DeleteResponse(shardId, request.type(), request.id(), 1, 1, 2, true);
+        }
+        throw new UnsupportedOperationException("stub does not support " + request.getClass().getSimpleName());
+    }
+
+    private static GetResponse getResponse(String index, String type, String id) {
+        return new GetResponse(new GetResult(index, type, id, 1, true, SOURCE, Collections.emptyMap()));
+    }
+}
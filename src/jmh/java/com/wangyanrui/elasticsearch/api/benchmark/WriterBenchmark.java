@@ -0,0 +1,141 @@
+package com.wangyanrui.elasticsearch.api.benchmark;
+
+import com.wangyanrui.elasticsearch.api.core.ElasticWriter;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.IndexAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.UpdateAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.bulk.BulkResult;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.bulk.CompactBulkResult;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: WriterBenchmark
+ * Description: ElasticWriter 客户端开销基准测试
+ * <p>
+ * 覆盖 文档序列化(index/update)、批量请求组装、BulkResult 构建
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    private static final String INDEX = "benchmark";
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    @Param({"0"})
+    private long latencyMicros;
+
+    private StubElasticClient client;
+
+    private ElasticWriter writer;
+
+    private Map<String, Object> doc;
+
+    private IndexAction[] indexActions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = new StubElasticClient(latencyMicros, 0);
+        writer = new ElasticWriter(client);
+
+        doc = new LinkedHashMap<>();
+        doc.put("title", "benchmark document");
+        doc.put("count", 42);
+        doc.put("price", 19.99);
+        doc.put("tags", Arrays.asList("a", "b", "c"));
+
+        indexActions = new IndexAction[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            indexActions[i] = new IndexAction(INDEX, String.valueOf(i), doc);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    /**
+     * 单文档序列化 + IndexRequest 组装
+     */
+    @Benchmark
+    public IndexRequestBuilder indexRequestBuilder() {
+        return writer.getIndexRequestBuilder(indexActions[0]);
+    }
+
+    /**
+     * 单文档序列化 + UpdateRequest 组装
+     */
+    @Benchmark
+    public UpdateRequestBuilder updateRequestBuilder() {
+        return writer.getUpdateRequestBuilder(new UpdateAction(INDEX, "0", doc));
+    }
+
+    /**
+     * 单文档索引(含序列化、响应检查)
+     */
+    @Benchmark
+    public IndexResponse index() {
+        return writer.index(indexActions[0]);
+    }
+
+    /**
+     * 批量请求组装(含每个文档的序列化)
+     */
+    @Benchmark
+    public ActionRequestBuilder[] bulkAssembly() {
+        return buildRequests();
+    }
+
+    /**
+     * 批量请求组装 + 执行 + BulkResult 构建
+     */
+    @Benchmark
+    public BulkResult bulk() {
+        return writer.bulk(buildRequests());
+    }
+
+    /**
+     * 批量请求组装 + 执行 + CompactBulkResult 构建
+     */
+    @Benchmark
+    public CompactBulkResult bulkCompact() {
+        return writer.bulkCompact(buildRequests());
+    }
+
+    private ActionRequestBuilder[] buildRequests() {
+        ActionRequestBuilder[] requestBuilders = new ActionRequestBuilder[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            requestBuilders[i] = writer.getIndexRequestBuilder(indexActions[i]);
+        }
+        return requestBuilders;
+    }
+}
@@ -13,6 +13,17 @@ public interface ElasticConstant {
         String TYPE_NAME = "_doc";
     }
 
+    interface Client {
+        // transport 默认端口
+        Integer PORT = 9300;
+
+        // 底层 TransportClient 的数量
+        Integer POOL_SIZE = 1;
+
+        // 后台健康检查间隔(毫秒)
+        Long HEALTH_CHECK_INTERVAL_MILLIS = 10_000L;
+    }
+
     interface Count {
         // 查询的最小结果集数量, 即不查询结果
         Integer QUERY_ZERO_COUNT = 0;
@@ -25,4 +36,198 @@ public interface ElasticConstant {
 
     }
 
+    interface Bulk {
+        // 单批次最大请求数量
+        Integer ACTIONS = 1000;
+
+        // 单批次最大字节数(5MB)
+        Long SIZE_BYTES = 5L * 1024 * 1024;
+
+        // 定时刷新间隔(毫秒)
+        Long FLUSH_INTERVAL_MILLIS = 1000L;
+
+        // 同时执行中的批量请求数量
+        Integer CONCURRENT_REQUESTS = 2;
+    }
+
+    interface Retry {
+        // 被拒绝(429)的请求的最大重试次数
+        Integer MAX_RETRIES = 3;
+
+        // 首次重试的退避上限(毫秒), 之后每次翻倍
+        Long INITIAL_BACKOFF_MILLIS = 50L;
+
+        // 退避的最大值(毫秒)
+        Long MAX_BACKOFF_MILLIS = 5_000L;
+
+        // 重试预算: 每条首次发送的请求存入的重试额度
+        Double BUDGET_RATIO = 0.2;
+
+        // 重试预算的最大额度(也是初始额度)
+        Integer BUDGET_CAPACITY = 1000;
+    }
+
+    interface Concurrency {
+        // 自适应并发: 初始并发数
+        Integer INITIAL_LIMIT = 2;
+
+        // 自适应并发: 最小并发数
+        Integer MIN_LIMIT = 1;
+
+        // 自适应并发: 最大并发数
+        Integer MAX_LIMIT = 32;
+
+        // 出现拥塞信号时并发数乘以该系数
+        Double BACKOFF_RATIO = 0.75;
+
+        // 一次批量请求中被拒绝(429)条目的比例超过该值视为拥塞
+        Double REJECTION_RATE_THRESHOLD = 0.01;
+
+        // 一次批量请求的耗时(毫秒)超过该值视为拥塞
+        Long LATENCY_THRESHOLD_MILLIS = 3_000L;
+    }
+
+    interface BatchTuning {
+        // 批量请求(单次尝试)的目标耗时(毫秒)
+        Long TARGET_LATENCY_MILLIS = 500L;
+
+        // 初始批次字节数(5MB)
+        Long INITIAL_SIZE_BYTES = 5L * 1024 * 1024;
+
+        // 最小批次字节数(256KB)
+        Long MIN_SIZE_BYTES = 256L * 1024;
+
+        // 最大批次字节数(32MB)
+        Long MAX_SIZE_BYTES = 32L * 1024 * 1024;
+
+        // 每次采样向目标值靠近的比例
+        Double SMOOTHING = 0.3;
+    }
+
+    interface BulkLoad {
+        // 导入期间的 refresh_interval, -1 表示关闭刷新
+        String REFRESH_INTERVAL = "-1";
+
+        // 导入期间的副本数量
+        Integer NUMBER_OF_REPLICAS = 0;
+
+        // 导入期间的 translog 持久化方式
+        String TRANSLOG_DURABILITY = "async";
+
+        // 结束时等待副本恢复(集群状态变为 green)的超时时间(毫秒)
+        Long WAIT_FOR_GREEN_TIMEOUT_MILLIS = 30 * 60_000L;
+    }
+
+    interface Reindex {
+        // 同时执行的切片数量
+        Integer PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+        // 每个切片的批量写入会话中同时执行的批量请求数量
+        Integer CONCURRENT_REQUESTS = 1;
+    }
+
+    interface Task {
+        // 查找服务端任务的最大次数
+        Integer LOOKUP_ATTEMPTS = 50;
+
+        // 查找服务端任务的间隔(毫秒)
+        Long LOOKUP_INTERVAL_MILLIS = 100L;
+
+        // 携带后台任务标记的请求头, 服务端记入任务的 headers
+        String OPAQUE_ID_HEADER = "X-Opaque-Id";
+
+        // 后台任务标记的前缀
+        String MARKER_PREFIX = "by-query-task-";
+    }
+
+    interface Scroll {
+        // 每页数据量
+        Integer PAGE_SIZE = 1000;
+
+        // 游标存活时间(毫秒)
+        Long KEEP_ALIVE_MILLIS = 60_000L;
+
+        // 切片数量
+        Integer SLICES = Runtime.getRuntime().availableProcessors();
+
+        // 进度回调间隔(毫秒)
+        Long PROGRESS_INTERVAL_MILLIS = 10_000L;
+    }
+
+    interface Composite {
+        // 聚合名称
+        String AGGREGATION_NAME = "composite";
+
+        // 每页桶数量
+        Integer PAGE_SIZE = 1000;
+
+        // 预取的页数
+        Integer PREFETCH = 1;
+    }
+
+    interface Hedge {
+        // 发送对冲请求的延迟: 近期延迟的该百分位
+        Double PERCENTILE = 0.95;
+
+        // 统计近期延迟的样本数量
+        Integer WINDOW_SIZE = 1000;
+
+        // 样本数量达到该值之前, 使用 INITIAL_DELAY_MILLIS
+        Integer MIN_SAMPLES = 100;
+
+        // 样本不足时的对冲延迟(毫秒)
+        Long INITIAL_DELAY_MILLIS = 100L;
+
+        // 对冲延迟的最小值(毫秒)
+        Long MIN_DELAY_MILLIS = 5L;
+
+        // 对冲预算: 每个请求存入的对冲额度, 即额外请求不超过请求量的该比例
+        Double BUDGET_RATIO = 0.05;
+
+        // 对冲预算的最大额度(也是初始额度)
+        Integer BUDGET_CAPACITY = 10;
+
+        // 未指定对冲 preference 时, 随机自定义 preference 的前缀
+        String PREFERENCE_PREFIX = "hedge-";
+    }
+
+    interface Multi {
+        // MultiGet/MultiSearch 单个分块的最大请求数量
+        Integer CHUNK_SIZE = 1000;
+
+        // 同时执行的分块数量
+        Integer PARALLELISM = 4;
+    }
+
+    interface Metrics {
+        // 指标中的操作类型
+        String INDEX = "index";
+        String DELETE = "delete";
+        String UPDATE = "update";
+        String DELETE_BY_QUERY = "delete_by_query";
+        String UPDATE_BY_QUERY = "update_by_query";
+        String BULK = "bulk";
+        String SERIALIZE = "serialize";
+        String DESERIALIZE = "deserialize";
+        String GET = "get";
+        String MULTI_GET = "multi_get";
+        String SEARCH = "search";
+        String MULTI_SEARCH = "multi_search";
+        String SCROLL = "scroll";
+        String CREATE_INDEX = "create_index";
+        String DELETE_INDEX = "delete_index";
+        String PUT_MAPPING = "put_mapping";
+        String GET_MAPPING = "get_mapping";
+        String UPDATE_SETTING = "update_setting";
+        String GET_SETTING = "get_setting";
+        String REFRESH = "refresh";
+        String FORCE_MERGE = "force_merge";
+        String CLUSTER_HEALTH = "cluster_health";
+
+        // 指标中的瞬时值名称
+        String GAUGE_CONCURRENCY_LIMIT = "concurrency_limit";
+        String GAUGE_IN_FLIGHT = "in_flight";
+        String GAUGE_QUEUE_DEPTH = "queue_depth";
+    }
+
 }
@@ -22,6 +22,8 @@ public interface ElasticMessage {
         String GET_FAILURE = "doc not exist";
 
         String MULTI_GET_FAILURE = "part of doc not exist";
+
+        String MULTI_SEARCH_ITEM_FAILURE = "search failure";
     }
 
     /**
@@ -29,6 +31,28 @@ public interface ElasticMessage {
      */
     interface OperaErrorMsg {
         String BULK_ERROR = "error request type";
+
+        String BULK_SESSION_CLOSED = "bulk session is closed";
+
+        String SCROLL_INCOMPLETE = "scroll page is incomplete: ";
+
+        String SLICED_SCROLL_INTERRUPTED = "sliced scroll interrupted";
+
+        String REINDEX_INTERRUPTED = "reindex interrupted";
+
+        String REINDEX_SLICE_INCOMPLETE = "reindex slice read count does not match total hits: ";
+
+        String REINDEX_CHECKPOINT_MISMATCH = "reindex checkpoint does not match: ";
+
+        String REINDEX_CHECKPOINT_IO_ERROR = "reindex checkpoint io error: ";
+
+        String TASK_NOT_FOUND = "task not found: ";
+
+        String COLUMN_TYPE_MISMATCH = "column type mismatch: ";
+
+        String SEED_NODES_EMPTY = "seed nodes is empty";
+
+        String SEED_NODE_INVALID = "invalid seed node: ";
     }
 
     /**
@@ -41,6 +65,10 @@ public interface ElasticMessage {
         String PUT_MAPPING_FAILURE = "put mapping failure";
 
         String UPDATE_SETTING_FAILURE = "update setting failure";
+
+        String INDEX_NOT_FOUND = "index not found: ";
+
+        String BULK_LOAD_SESSION_CLOSED = "bulk load session is closed";
     }
 
 }
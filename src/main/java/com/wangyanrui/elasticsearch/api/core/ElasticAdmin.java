@@ -3,20 +3,39 @@ package com.wangyanrui.elasticsearch.api.core;
 import com.wangyanrui.common.exception.OperaExceptionHandler;
 import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
 import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkLoadSession;
 import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
 import com.wangyanrui.elasticsearch.api.core.factory.ElasticFactory;
+import com.wangyanrui.elasticsearch.api.core.metrics.ElasticMetrics;
 import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.AdminAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.BulkLoadAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.client.ElasticClientConfig;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsRequestBuilder;
 import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequestBuilder;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Title: ElasticAdmin
  * Description: ElasticSearch Admin Opera
@@ -24,6 +43,7 @@ import org.elasticsearch.common.xcontent.XContentType;
  * @author wangyanrui
  * @version 1.0
  */
+@Slf4j
 public class ElasticAdmin {
 
     private ElasticClient client;
@@ -43,6 +63,10 @@ public class ElasticAdmin {
         this.client = ElasticFactory.getInstance(address, port, clusterName);
     }
 
+    public ElasticAdmin(ElasticClientConfig config) {
+        this.client = ElasticFactory.getInstance(config);
+    }
+
     /**
      * 创建索引
      *
@@ -53,23 +77,22 @@ public class ElasticAdmin {
     public CreateIndexResponse createIndex(AdminAction adminAction) {
         safeDeleteIndex(adminAction.getIndex());
 
-        CreateIndexRequestBuilder requestBuilder = client.getClient().admin()
-                .indices()
-                .prepareCreate(adminAction.getIndex());
-
-        if (StringUtils.isNotEmpty(adminAction.getSetting())) {
-            requestBuilder.setSettings(adminAction.getSetting(), XContentType.JSON);
-        }
-
-        if (StringUtils.isNotEmpty(adminAction.getMapping())) {
-            requestBuilder.addMapping(ElasticConstant.Default.TYPE_NAME, adminAction.getMapping(), XContentType.JSON);
-        }
-        CreateIndexResponse response = requestBuilder.get();
-
-        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
-                ElasticMessage.AdminFailureMsg.CREATE_INDEX_FAILURE);
+        return checkCreateIndexResponse(execute(ElasticConstant.Metrics.CREATE_INDEX, adminAction.getIndex(),
+                buildCreateIndexRequest(adminAction)));
+    }
 
-        return response;
+    /**
+     * 创建索引(异步)
+     *
+     * @param adminAction adminAction
+     * @return 创建的原生ElasticSearch响应 的 CompletableFuture
+     * @see AdminAction
+     */
+    public CompletableFuture<CreateIndexResponse> createIndexAsync(AdminAction adminAction) {
+        return safeDeleteIndexAsync(adminAction.getIndex())
+                .thenCompose(ignore -> executeAsync(ElasticConstant.Metrics.CREATE_INDEX, adminAction.getIndex(),
+                        buildCreateIndexRequest(adminAction)))
+                .thenApply(ElasticAdmin::checkCreateIndexResponse);
     }
 
     /**
@@ -79,14 +102,38 @@ public class ElasticAdmin {
      * @param index 索引名称
      */
     public void safeDeleteIndex(String index) {
+        if (existsIndex(index)) {
+            deleteIndex(index);
+        }
+    }
+
+    /**
+     * 判断索引是否存在
+     *
+     * @param index 索引名称
+     * @return 是否存在
+     */
+    public boolean existsIndex(String index) {
         IndicesExistsResponse indicesExistsResponse = client.getClient().admin()
                 .indices()
                 .prepareExists(index)
                 .get();
 
-        if (indicesExistsResponse.isExists()) {
-            deleteIndex(index);
-        }
+        return indicesExistsResponse.isExists();
+    }
+
+    /**
+     * 删除索引(安全, 异步)
+     * 先判断, 后删除索引
+     *
+     * @param index 索引名称
+     * @return CompletableFuture
+     */
+    public CompletableFuture<Void> safeDeleteIndexAsync(String index) {
+        return ElasticFutures.execute(client.getClient().admin().indices().prepareExists(index))
+                .thenCompose(indicesExistsResponse -> indicesExistsResponse.isExists()
+                        ? deleteIndexAsync(index)
+                        : CompletableFuture.completedFuture(null));
     }
 
     /**
@@ -95,13 +142,22 @@ public class ElasticAdmin {
      * @param index 索引名称
      */
     public void deleteIndex(String index) {
-        DeleteIndexResponse deleteResponse = client.getClient().admin()
-                .indices()
-                .prepareDelete(index)
-                .get();
+        DeleteIndexResponse deleteResponse = execute(ElasticConstant.Metrics.DELETE_INDEX, index,
+                client.getClient().admin().indices().prepareDelete(index));
 
-        OperaExceptionHandler.flagCheck(!deleteResponse.isAcknowledged(),
-                ElasticMessage.AdminFailureMsg.DELETE_INDEX_FAILURE);
+        checkDeleteIndexResponse(deleteResponse);
+    }
+
+    /**
+     * 删除索引(异步)
+     *
+     * @param index 索引名称
+     * @return CompletableFuture
+     */
+    public CompletableFuture<Void> deleteIndexAsync(String index) {
+        return executeAsync(ElasticConstant.Metrics.DELETE_INDEX, index,
+                client.getClient().admin().indices().prepareDelete(index))
+                .thenAccept(ElasticAdmin::checkDeleteIndexResponse);
     }
 
 
@@ -112,17 +168,21 @@ public class ElasticAdmin {
      * @see AdminAction
      */
     public void putMapping(AdminAction adminAction) {
-        PutMappingResponse response = client
-                .getClient()
-                .admin()
-                .indices()
-                .preparePutMapping(adminAction.getIndex())
-                .setType(ElasticConstant.Default.TYPE_NAME)
-                .setSource(adminAction.getMapping(), XContentType.JSON)
-                .get();
+        checkPutMappingResponse(execute(ElasticConstant.Metrics.PUT_MAPPING, adminAction.getIndex(),
+                buildPutMappingRequest(adminAction)));
+    }
 
-        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
-                ElasticMessage.AdminFailureMsg.PUT_MAPPING_FAILURE);
+    /**
+     * 更新映射(异步)
+     *
+     * @param adminAction adminAction
+     * @return CompletableFuture
+     * @see AdminAction
+     */
+    public CompletableFuture<Void> putMappingAsync(AdminAction adminAction) {
+        return executeAsync(ElasticConstant.Metrics.PUT_MAPPING, adminAction.getIndex(),
+                buildPutMappingRequest(adminAction))
+                .thenAccept(ElasticAdmin::checkPutMappingResponse);
     }
 
     /**
@@ -132,11 +192,17 @@ public class ElasticAdmin {
      * @return 获取映射的原生ElasticSearch响应
      */
     public GetMappingsResponse getMapping(String index) {
-        return client.getClient().admin()
-                .indices()
-                .prepareGetMappings(index)
-                .setTypes(ElasticConstant.Default.TYPE_NAME)
-                .get();
+        return execute(ElasticConstant.Metrics.GET_MAPPING, index, buildGetMappingRequest(index));
+    }
+
+    /**
+     * 获取映射(异步)
+     *
+     * @param index 索引名称
+     * @return 获取映射的原生ElasticSearch响应 的 CompletableFuture
+     */
+    public CompletableFuture<GetMappingsResponse> getMappingAsync(String index) {
+        return executeAsync(ElasticConstant.Metrics.GET_MAPPING, index, buildGetMappingRequest(index));
     }
 
     /**
@@ -146,16 +212,21 @@ public class ElasticAdmin {
      * @see AdminAction
      */
     public void updateSetting(AdminAction adminAction) {
-        UpdateSettingsResponse response = client
-                .getClient()
-                .admin()
-                .indices()
-                .prepareUpdateSettings(adminAction.getIndex())
-                .setSettings(adminAction.getSetting(), XContentType.JSON)
-                .get();
+        checkUpdateSettingResponse(execute(ElasticConstant.Metrics.UPDATE_SETTING, adminAction.getIndex(),
+                buildUpdateSettingRequest(adminAction)));
+    }
 
-        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
-                ElasticMessage.AdminFailureMsg.UPDATE_SETTING_FAILURE);
+    /**
+     * 更新setting(异步)
+     *
+     * @param adminAction adminAction
+     * @return CompletableFuture
+     * @see AdminAction
+     */
+    public CompletableFuture<Void> updateSettingAsync(AdminAction adminAction) {
+        return executeAsync(ElasticConstant.Metrics.UPDATE_SETTING, adminAction.getIndex(),
+                buildUpdateSettingRequest(adminAction))
+                .thenAccept(ElasticAdmin::checkUpdateSettingResponse);
     }
 
     /**
@@ -165,8 +236,180 @@ public class ElasticAdmin {
      * @return 获取setting的原生ElasticSearch响应
      */
     public GetSettingsResponse getSetting(String index) {
-        return client.getClient().admin().indices()
-                .prepareGetSettings(index)
-                .get();
+        return execute(ElasticConstant.Metrics.GET_SETTING, index,
+                client.getClient().admin().indices().prepareGetSettings(index));
+    }
+
+    /**
+     * 获取setting(异步)
+     *
+     * @param index 索引名称
+     * @return 获取setting的原生ElasticSearch响应 的 CompletableFuture
+     */
+    public CompletableFuture<GetSettingsResponse> getSettingAsync(String index) {
+        return executeAsync(ElasticConstant.Metrics.GET_SETTING, index,
+                client.getClient().admin().indices().prepareGetSettings(index));
+    }
+
+    /**
+     * 更新setting
+     *
+     * @param index    索引名称
+     * @param settings settings, 值为null的项恢复为默认值
+     */
+    public void updateSetting(String index, Settings settings) {
+        checkUpdateSettingResponse(execute(ElasticConstant.Metrics.UPDATE_SETTING, index,
+                client.getClient().admin().indices().prepareUpdateSettings(index).setSettings(settings)));
+    }
+
+    /**
+     * 刷新索引, 使写入的文档可被搜索
+     *
+     * @param index 索引名称
+     * @return 刷新的原生ElasticSearch响应
+     */
+    public RefreshResponse refresh(String index) {
+        RefreshResponse response = execute(ElasticConstant.Metrics.REFRESH, index,
+                client.getClient().admin().indices().prepareRefresh(index));
+        if (response.getFailedShards() > 0) {
+            log.warn("ElasticAdmin: refresh [" + index + "] failed shards = " + response.getFailedShards());
+        }
+        return response;
+    }
+
+    /**
+     * 段合并, 阻塞直到合并完成
+     *
+     * @param index          索引名称
+     * @param maxNumSegments 合并后每个分片的最大段数量
+     * @return 段合并的原生ElasticSearch响应
+     */
+    public ForceMergeResponse forceMerge(String index, int maxNumSegments) {
+        ForceMergeResponse response = execute(ElasticConstant.Metrics.FORCE_MERGE, index,
+                client.getClient().admin().indices().prepareForceMerge(index).setMaxNumSegments(maxNumSegments));
+        if (response.getFailedShards() > 0) {
+            log.warn("ElasticAdmin: force merge [" + index + "] failed shards = " + response.getFailedShards());
+        }
+        return response;
+    }
+
+    /**
+     * 等待索引状态变为 green(所有副本分配完成)
+     *
+     * @param index         索引名称
+     * @param timeoutMillis 等待时间(毫秒)
+     * @return 是否在等待时间内变为 green
+     */
+    public boolean waitForGreen(String index, long timeoutMillis) {
+        ClusterHealthResponse response = execute(ElasticConstant.Metrics.CLUSTER_HEALTH, index,
+                client.getClient().admin().cluster().prepareHealth(index)
+                        .setWaitForGreenStatus()
+                        .setTimeout(TimeValue.timeValueMillis(timeoutMillis))
+                        .setMasterNodeTimeout(TimeValue.timeValueMillis(timeoutMillis)));
+        return !response.isTimedOut() && ClusterHealthStatus.GREEN.equals(response.getStatus());
+    }
+
+    /**
+     * 开启批量导入会话: 将索引切换为适合导入的 setting, 关闭会话时恢复
+     *
+     * @param bulkLoadAction 批量导入配置
+     * @return BulkLoadSession
+     * @see BulkLoadSession
+     */
+    public BulkLoadSession openBulkLoadSession(BulkLoadAction bulkLoadAction) {
+        return new BulkLoadSession(this, bulkLoadAction).open();
+    }
+
+    /**
+     * 执行请求, 并上报指标
+     *
+     * @param operation      操作类型
+     * @param index          索引名称
+     * @param requestBuilder 请求
+     * @param <Response>     响应类型
+     * @return 响应
+     */
+    private <Response extends ActionResponse> Response execute(String operation, String index,
+                                                               ActionRequestBuilder<?, Response, ?> requestBuilder) {
+        return ElasticMetrics.time(client.getMetricsRegistry(), operation, index, requestBuilder::get);
+    }
+
+    /**
+     * 异步执行请求, 并上报指标
+     *
+     * @param operation      操作类型
+     * @param index          索引名称
+     * @param requestBuilder 请求
+     * @param <Response>     响应类型
+     * @return 响应 的 CompletableFuture
+     */
+    private <Response extends ActionResponse> CompletableFuture<Response> executeAsync(
+            String operation, String index, ActionRequestBuilder<?, Response, ?> requestBuilder) {
+        return ElasticMetrics.timeAsync(client.getMetricsRegistry(), operation, index,
+                () -> ElasticFutures.execute(requestBuilder));
+    }
+
+    private CreateIndexRequestBuilder buildCreateIndexRequest(AdminAction adminAction) {
+        CreateIndexRequestBuilder requestBuilder = client.getClient().admin()
+                .indices()
+                .prepareCreate(adminAction.getIndex());
+
+        if (StringUtils.isNotEmpty(adminAction.getSetting())) {
+            requestBuilder.setSettings(adminAction.getSetting(), XContentType.JSON);
+        }
+
+        if (StringUtils.isNotEmpty(adminAction.getMapping())) {
+            requestBuilder.addMapping(ElasticConstant.Default.TYPE_NAME, adminAction.getMapping(), XContentType.JSON);
+        }
+
+        return requestBuilder;
+    }
+
+    private PutMappingRequestBuilder buildPutMappingRequest(AdminAction adminAction) {
+        return client
+                .getClient()
+                .admin()
+                .indices()
+                .preparePutMapping(adminAction.getIndex())
+                .setType(ElasticConstant.Default.TYPE_NAME)
+                .setSource(adminAction.getMapping(), XContentType.JSON);
+    }
+
+    private GetMappingsRequestBuilder buildGetMappingRequest(String index) {
+        return client.getClient().admin()
+                .indices()
+                .prepareGetMappings(index)
+                .setTypes(ElasticConstant.Default.TYPE_NAME);
+    }
+
+    private UpdateSettingsRequestBuilder buildUpdateSettingRequest(AdminAction adminAction) {
+        return client
+                .getClient()
+                .admin()
+                .indices()
+                .prepareUpdateSettings(adminAction.getIndex())
+                .setSettings(adminAction.getSetting(), XContentType.JSON);
+    }
+
+    private static CreateIndexResponse checkCreateIndexResponse(CreateIndexResponse response) {
+        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
+                ElasticMessage.AdminFailureMsg.CREATE_INDEX_FAILURE);
+
+        return response;
+    }
+
+    private static void checkDeleteIndexResponse(DeleteIndexResponse response) {
+        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
+                ElasticMessage.AdminFailureMsg.DELETE_INDEX_FAILURE);
+    }
+
+    private static void checkPutMappingResponse(PutMappingResponse response) {
+        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
+                ElasticMessage.AdminFailureMsg.PUT_MAPPING_FAILURE);
+    }
+
+    private static void checkUpdateSettingResponse(UpdateSettingsResponse response) {
+        OperaExceptionHandler.flagCheck(!response.isAcknowledged(),
+                ElasticMessage.AdminFailureMsg.UPDATE_SETTING_FAILURE);
     }
 }
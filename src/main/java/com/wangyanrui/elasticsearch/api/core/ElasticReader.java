@@ -3,21 +3,69 @@ package com.wangyanrui.elasticsearch.api.core;
 import com.wangyanrui.common.exception.OperaExceptionHandler;
 import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
 import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.aggregation.CompositeBucketCursor;
+import com.wangyanrui.elasticsearch.api.core.batch.GetCoalescer;
+import com.wangyanrui.elasticsearch.api.core.cache.DocumentCache;
+import com.wangyanrui.elasticsearch.api.core.cache.SearchResponseCache;
 import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.columnar.ColumnarCursor;
 import com.wangyanrui.elasticsearch.api.core.factory.ElasticFactory;
+import com.wangyanrui.elasticsearch.api.core.hedge.HedgedExecutor;
+import com.wangyanrui.elasticsearch.api.core.metrics.ElasticMetrics;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.client.ElasticClientConfig;
 import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.GetAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.ColumnarScrollAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.CompositeAggregationAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.HedgePolicy;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.ScrollAction;
 import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SearchAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SlicedScrollAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.multi.MultiItemResult;
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollCursor;
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollHitIterator;
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollProgress;
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollProgressListener;
+import com.wangyanrui.elasticsearch.api.core.scroll.SlicedScrollExecutor;
+import com.wangyanrui.elasticsearch.api.core.serializer.DocumentSerializer;
+import com.wangyanrui.elasticsearch.api.core.serializer.FastJsonDocumentSerializer;
+import com.wangyanrui.elasticsearch.api.core.support.ChunkedExecutor;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.get.*;
 import org.elasticsearch.action.search.MultiSearchRequestBuilder;
 import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Title: ElasticReader
@@ -32,8 +80,28 @@ public class ElasticReader {
 
     private ElasticClient client;
 
+    private volatile SearchResponseCache searchResponseCache;
+
+    private volatile GetCoalescer getCoalescer;
+
+    private volatile HedgedExecutor hedgedExecutor;
+
+    private volatile DocumentSerializer documentSerializer = FastJsonDocumentSerializer.INSTANCE;
+
+    private volatile int multiChunkSize = ElasticConstant.Multi.CHUNK_SIZE;
+
+    private volatile int multiParallelism = ElasticConstant.Multi.PARALLELISM;
+
     private static final String DEFAULT_TYPE_NAME = ElasticConstant.Default.TYPE_NAME;
 
+    private static final String GET = ElasticConstant.Metrics.GET;
+
+    private static final String MULTI_GET = ElasticConstant.Metrics.MULTI_GET;
+
+    private static final String SEARCH = ElasticConstant.Metrics.SEARCH;
+
+    private static final String MULTI_SEARCH = ElasticConstant.Metrics.MULTI_SEARCH;
+
     private ElasticReader() {
     }
 
@@ -49,6 +117,111 @@ public class ElasticReader {
         this.client = ElasticFactory.getInstance(address, port, clusterName);
     }
 
+    public ElasticReader(ElasticClientConfig config) {
+        this.client = ElasticFactory.getInstance(config);
+    }
+
+
+    /**
+     * 设置文档反序列化方式(用于 get/search 的类型化结果), 默认为 fastjson
+     *
+     * @param documentSerializer 文档序列化
+     * @return this
+     * @see DocumentSerializer
+     */
+    public ElasticReader setDocumentSerializer(DocumentSerializer documentSerializer) {
+        this.documentSerializer = documentSerializer;
+        return this;
+    }
+
+    /**
+     * 开启搜索结果缓存, 为null时关闭.
+     * <p>
+     * search/multiSearch 的结果按请求缓存, 存活时间不超过所查索引的 refresh_interval
+     *
+     * @param searchResponseCache 搜索结果缓存
+     * @return this
+     * @see SearchResponseCache
+     */
+    public ElasticReader setSearchResponseCache(SearchResponseCache searchResponseCache) {
+        if (Objects.nonNull(searchResponseCache)) {
+            searchResponseCache.setRefreshIntervalResolver(this::getRefreshIntervalMillisAsync);
+        }
+        this.searchResponseCache = searchResponseCache;
+        return this;
+    }
+
+    /**
+     * 开启单文档Get合并.
+     * <p>
+     * 开启后 get/getAsync 不再单独请求, 一个时间窗口内(或达到最大数量时)的并发请求合并为一个 MultiGet,
+     * 调用方式与返回结果不变
+     *
+     * @param maxBatchSize 单个 MultiGet 的最大文档数
+     * @param windowMillis 合并等待时间(毫秒)
+     * @return this
+     */
+    public ElasticReader enableGetCoalescing(int maxBatchSize, long windowMillis) {
+        GetCoalescer old = this.getCoalescer;
+        this.getCoalescer = new GetCoalescer(client, maxBatchSize, windowMillis);
+        if (Objects.nonNull(old)) {
+            old.close();
+        }
+        return this;
+    }
+
+    /**
+     * 关闭单文档Get合并, 已合并的请求会立即发送
+     *
+     * @return this
+     */
+    public ElasticReader disableGetCoalescing() {
+        GetCoalescer old = this.getCoalescer;
+        this.getCoalescer = null;
+        if (Objects.nonNull(old)) {
+            old.close();
+        }
+        return this;
+    }
+
+    /**
+     * 设置对冲读策略, 为null时关闭.
+     * <p>
+     * 作用于 search/searchAsync(SearchAction) 与 get/getAsync(GetAction)(含类型化结果的重载);
+     * 开启单文档Get合并时, get 以合并为准, 不对冲
+     *
+     * @param hedgePolicy 对冲读策略
+     * @return this
+     * @see HedgedExecutor
+     */
+    public ElasticReader setHedgePolicy(HedgePolicy hedgePolicy) {
+        this.hedgedExecutor = Objects.isNull(hedgePolicy) ? null : new HedgedExecutor(hedgePolicy);
+        return this;
+    }
+
+    /**
+     * 对冲读的执行状态, 可获取当前对冲延迟、对冲次数
+     *
+     * @return HedgedExecutor, 未开启时返回null
+     */
+    public HedgedExecutor getHedgedExecutor() {
+        return hedgedExecutor;
+    }
+
+    /**
+     * 设置 MultiGet/MultiSearch 的分块方式.
+     * <p>
+     * 超过 chunkSize 的请求拆分为多个 MultiGet/MultiSearch, 最多同时执行 parallelism 个, 结果按原始顺序返回
+     *
+     * @param chunkSize   单个分块的最大请求数量
+     * @param parallelism 同时执行的分块数量
+     * @return this
+     */
+    public ElasticReader setMultiChunking(int chunkSize, int parallelism) {
+        this.multiChunkSize = Math.max(1, chunkSize);
+        this.multiParallelism = Math.max(1, parallelism);
+        return this;
+    }
 
     /**
      * 获取单个文档
@@ -69,14 +242,106 @@ public class ElasticReader {
      * @see GetAction
      */
     public GetResponse get(GetAction getAction) {
-        GetRequestBuilder getRequestBuilder = client.getClient().
-                prepareGet(getAction.getIndex(), DEFAULT_TYPE_NAME, getAction.getDocId());
+        DocumentCache documentCache = getDocumentCache(getAction);
+        if (Objects.nonNull(documentCache)) {
+            GetResponse cached = documentCache.get(getAction.getIndex(), getAction.getDocId());
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
 
-        if (Objects.nonNull(getAction.getFields())) {
-            getRequestBuilder.setStoredFields(getAction.getFields());
+        GetCoalescer coalescer = this.getCoalescer;
+        HedgedExecutor hedger = this.hedgedExecutor;
+        GetResponse response = checkGetResponse(ElasticMetrics.time(metrics(), GET, getAction.getIndex(), () -> {
+            if (Objects.nonNull(coalescer)) {
+                return ElasticFutures.join(coalescer.get(buildGetItem(getAction)));
+            }
+            if (Objects.nonNull(hedger)) {
+                return ElasticFutures.join(executeHedgedGetAsync(hedger, getAction));
+            }
+            return doGet(buildGetRequest(getAction));
+        }));
+
+        if (Objects.nonNull(documentCache)) {
+            documentCache.put(response);
+        }
+        return response;
+    }
+
+    /**
+     * 获取单个文档, 直接从 _source 的字节反序列化为指定类型
+     *
+     * @param getAction 查询条件
+     * @param type      文档类型
+     * @param <T>       文档类型
+     * @return 文档, 未返回 _source 时为null
+     * @see GetAction
+     */
+    public <T> T get(GetAction getAction, Class<T> type) {
+        return deserialize(getAction.getIndex(), get(getAction).getSourceAsBytesRef(), type);
+    }
+
+    /**
+     * 获取单个文档(异步), 直接从 _source 的字节反序列化为指定类型
+     *
+     * @param getAction 查询条件
+     * @param type      文档类型
+     * @param <T>       文档类型
+     * @return 文档 的 CompletableFuture
+     * @see GetAction
+     */
+    public <T> CompletableFuture<T> getAsync(GetAction getAction, Class<T> type) {
+        return getAsync(getAction)
+                .thenApply(response -> deserialize(getAction.getIndex(), response.getSourceAsBytesRef(), type));
+    }
+
+    /**
+     * 获取单个文档(异步)
+     *
+     * @param index 索引名称
+     * @param id    文档ID
+     * @return GetResponse 的 CompletableFuture
+     */
+    public CompletableFuture<GetResponse> getAsync(String index, String id) {
+        return getAsync(new GetAction(index, id));
+    }
+
+    /**
+     * 获取单个文档(异步)
+     *
+     * @param getAction 查询条件
+     * @return GetResponse 的 CompletableFuture
+     * @see GetAction
+     */
+    public CompletableFuture<GetResponse> getAsync(GetAction getAction) {
+        DocumentCache documentCache = getDocumentCache(getAction);
+        if (Objects.nonNull(documentCache)) {
+            GetResponse cached = documentCache.get(getAction.getIndex(), getAction.getDocId());
+            if (Objects.nonNull(cached)) {
+                return CompletableFuture.completedFuture(cached);
+            }
         }
 
-        return doGet(getRequestBuilder);
+        GetCoalescer coalescer = this.getCoalescer;
+        HedgedExecutor hedger = this.hedgedExecutor;
+        CompletableFuture<GetResponse> future = ElasticMetrics.timeAsync(metrics(), GET, getAction.getIndex(), () -> {
+            if (Objects.nonNull(coalescer)) {
+                return coalescer.get(buildGetItem(getAction));
+            }
+            if (Objects.nonNull(hedger)) {
+                return executeHedgedGetAsync(hedger, getAction);
+            }
+            GetRequestBuilder getRequestBuilder = buildGetRequest(getAction);
+            log.debug("\r\n" + getRequestBuilder.toString());
+            return ElasticFutures.execute(getRequestBuilder);
+        }).thenApply(ElasticReader::checkGetResponse);
+        if (Objects.nonNull(documentCache)) {
+            future = future.thenApply(response -> {
+                documentCache.put(response);
+                return response;
+            });
+        }
+        return future;
     }
 
     /**
@@ -87,12 +352,24 @@ public class ElasticReader {
      * @return GetResponse集合
      */
     public List<GetResponse> multiGet(String index, String... docIds) {
-        MultiGetRequestBuilder multiGetRequestBuilder = client.getClient().prepareMultiGet();
-        for (String docId : docIds) {
-            multiGetRequestBuilder.add(index, DEFAULT_TYPE_NAME, docId);
+        if (Objects.nonNull(client.getDocumentCache()) || docIds.length > multiChunkSize) {
+            return multiGet(toItemList(index, docIds));
         }
+        return doGet(buildMultiGetRequest(index, docIds), docIds.length);
+    }
 
-        return doGet(multiGetRequestBuilder, docIds.length);
+    /**
+     * 获取多个文档(MultiGet, 异步)
+     *
+     * @param index  索引名称
+     * @param docIds 文档ID(可变参数)
+     * @return GetResponse集合 的 CompletableFuture
+     */
+    public CompletableFuture<List<GetResponse>> multiGetAsync(String index, String... docIds) {
+        if (Objects.nonNull(client.getDocumentCache()) || docIds.length > multiChunkSize) {
+            return multiGetAsync(toItemList(index, docIds));
+        }
+        return doGetAsync(buildMultiGetRequest(index, docIds), docIds.length);
     }
 
     /**
@@ -103,12 +380,86 @@ public class ElasticReader {
      * @see MultiGetRequest.Item
      */
     public List<GetResponse> multiGet(List<MultiGetRequest.Item> itemList) {
-        MultiGetRequestBuilder multiGetRequestBuilder = client.getClient().prepareMultiGet();
-        for (MultiGetRequest.Item item : itemList) {
-            multiGetRequestBuilder.add(item.index(), DEFAULT_TYPE_NAME, item.id());
+        if (itemList.size() > multiChunkSize) {
+            return ElasticFutures.join(multiGetAsync(itemList));
+        }
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.isNull(documentCache)) {
+            return doGet(buildMultiGetRequest(itemList), itemList.size());
+        }
+
+        GetResponse[] result = new GetResponse[itemList.size()];
+        List<MultiGetRequest.Item> missItemList = fillFromCache(documentCache, itemList, result);
+        if (!missItemList.isEmpty()) {
+            fillMisses(documentCache, result, missItemList,
+                    doGet(buildMultiGetRequest(missItemList), missItemList.size()));
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 获取多个文档(MultiGet, 异步)
+     *
+     * @param itemList MultiGetRequest.Item的List集合
+     * @return GetResponse集合 的 CompletableFuture
+     * @see MultiGetRequest.Item
+     */
+    public CompletableFuture<List<GetResponse>> multiGetAsync(List<MultiGetRequest.Item> itemList) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.isNull(documentCache)) {
+            return doGetAsync(itemList);
         }
 
-        return doGet(multiGetRequestBuilder, itemList.size());
+        GetResponse[] result = new GetResponse[itemList.size()];
+        List<MultiGetRequest.Item> missItemList = fillFromCache(documentCache, itemList, result);
+        if (missItemList.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(result));
+        }
+        return doGetAsync(missItemList)
+                .thenApply(fetched -> {
+                    fillMisses(documentCache, result, missItemList, fetched);
+                    return Arrays.asList(result);
+                });
+    }
+
+    /**
+     * 获取多个文档(MultiGet), 逐项返回结果.
+     * <p>
+     * 与 {@link #multiGet(List)} 不同, 文档不存在或单项失败时不抛出异常, 而是记录在对应的结果中
+     *
+     * @param itemList MultiGetRequest.Item的List集合
+     * @return 单项结果集合, 顺序与请求一致
+     * @see MultiItemResult
+     */
+    public List<MultiItemResult<GetResponse>> multiGetItems(List<MultiGetRequest.Item> itemList) {
+        return ElasticFutures.join(multiGetItemsAsync(itemList));
+    }
+
+    /**
+     * 获取多个文档(MultiGet, 异步), 逐项返回结果
+     *
+     * @param itemList MultiGetRequest.Item的List集合
+     * @return 单项结果集合 的 CompletableFuture
+     * @see #multiGetItems(List)
+     */
+    public CompletableFuture<List<MultiItemResult<GetResponse>>> multiGetItemsAsync(
+            List<MultiGetRequest.Item> itemList) {
+        final DocumentCache documentCache = client.getDocumentCache();
+        final GetResponse[] cached = new GetResponse[itemList.size()];
+        List<MultiGetRequest.Item> missItemList = Objects.isNull(documentCache)
+                ? itemList : fillFromCache(documentCache, itemList, cached);
+
+        return ChunkedExecutor.execute(missItemList, multiChunkSize, multiParallelism,
+                chunk -> doGetItemsAsync(chunk, documentCache))
+                .thenApply(fetched -> {
+                    List<MultiItemResult<GetResponse>> result = new ArrayList<>(cached.length);
+                    Iterator<MultiItemResult<GetResponse>> iterator = fetched.iterator();
+                    for (GetResponse response : cached) {
+                        result.add(Objects.nonNull(response)
+                                ? new MultiItemResult<GetResponse>().setResponse(response) : iterator.next());
+                    }
+                    return result;
+                });
     }
 
     /**
@@ -119,107 +470,1073 @@ public class ElasticReader {
      * @see SearchAction
      */
     public SearchResponse search(SearchAction searchAction) {
+        if (Objects.nonNull(hedgedExecutor)) {
+            return ElasticFutures.join(searchAsync(searchAction));
+        }
         SearchRequestBuilder searchRequestBuilder = buildSearchRequestByQuery(searchAction);
 
         return doSearch(searchRequestBuilder);
     }
 
     /**
-     * 匹配查询文档(MultiSearch)
+     * 匹配查询文档(异步)
      *
-     * @param searchActions 批量查询条件
-     * @return SearchResponse集合
+     * @param searchAction 查询条件
+     * @return 匹配查询响应 的 CompletableFuture
+     * @see SearchAction
      */
-    public List<SearchResponse> multiSearch(SearchAction... searchActions) {
-        MultiSearchRequestBuilder multiSearchRequestBuilder = client.getClient().prepareMultiSearch();
-
-        for (SearchAction query : searchActions) {
-            multiSearchRequestBuilder.add(buildSearchRequestByQuery(query));
+    public CompletableFuture<SearchResponse> searchAsync(SearchAction searchAction) {
+        SearchRequestBuilder searchRequestBuilder = buildSearchRequestByQuery(searchAction);
+        HedgedExecutor hedger = this.hedgedExecutor;
+        if (Objects.isNull(hedger)) {
+            return doSearchAsync(searchRequestBuilder);
         }
+        final String index = indexLabel(searchRequestBuilder);
+        return doSearchAsync(searchRequestBuilder, () -> ElasticMetrics.timeAsync(metrics(), SEARCH, index,
+                () -> hedger.execute(preference -> {
+                    SearchRequestBuilder attempt = buildSearchRequestByQuery(searchAction);
+                    if (Objects.nonNull(preference)) {
+                        attempt.setPreference(preference);
+                    }
+                    return ElasticFutures.execute(attempt);
+                }))
+                .thenApply(response -> recordTook(index, response)));
+    }
 
-        MultiSearchResponse.Item[] responses = multiSearchRequestBuilder.get().getResponses();
-        List<SearchResponse> result = new ArrayList<>(responses.length);
+    /**
+     * 匹配查询文档, 每个命中直接从 _source 的字节反序列化为指定类型
+     *
+     * @param searchAction 查询条件
+     * @param type         文档类型
+     * @param <T>          文档类型
+     * @return 文档集合, 顺序与命中一致, 未返回 _source 的命中为null
+     * @see SearchAction
+     */
+    public <T> List<T> search(SearchAction searchAction, Class<T> type) {
+        return deserializeHits(search(searchAction), type);
+    }
 
-        for (MultiSearchResponse.Item item : responses) {
-            result.add(item.getResponse());
-        }
+    /**
+     * 匹配查询文档(异步), 每个命中直接从 _source 的字节反序列化为指定类型
+     *
+     * @param searchAction 查询条件
+     * @param type         文档类型
+     * @param <T>          文档类型
+     * @return 文档集合 的 CompletableFuture
+     * @see SearchAction
+     */
+    public <T> CompletableFuture<List<T>> searchAsync(SearchAction searchAction, Class<T> type) {
+        return searchAsync(searchAction).thenApply(response -> deserializeHits(response, type));
+    }
 
-        return result;
+    /**
+     * 统计匹配的文档数量.
+     * <p>
+     * size 为0, 不返回文档、不计算评分、不执行聚合; searchAction 中只有 indices/queryBuilder 生效
+     *
+     * @param searchAction 查询条件
+     * @return 匹配的文档数量
+     */
+    public long count(SearchAction searchAction) {
+        return doSearch(buildCountRequest(searchAction, 0)).getHits().getTotalHits();
     }
 
+    /**
+     * 统计匹配的文档数量(异步)
+     *
+     * @param searchAction 查询条件
+     * @return 匹配的文档数量 的 CompletableFuture
+     * @see #count(SearchAction)
+     */
+    public CompletableFuture<Long> countAsync(SearchAction searchAction) {
+        return doSearchAsync(buildCountRequest(searchAction, 0))
+                .thenApply(response -> response.getHits().getTotalHits());
+    }
 
     /**
-     * 执行Get请求
+     * 统计匹配的文档数量, 最多统计到 limit.
+     * <p>
+     * 每个分片找到 limit 个文档后即停止(terminate_after), 适合 "是否超过 N 个" 一类的判断
      *
-     * @param getRequestBuilder Get请求
-     * @return Get响应
+     * @param searchAction 查询条件
+     * @param limit        统计上限, 小于等于0表示不限制
+     * @return 匹配的文档数量, 不超过 limit
      */
-    private GetResponse doGet(GetRequestBuilder getRequestBuilder) {
-        log.debug("\r\n" + getRequestBuilder.toString());
+    public long count(SearchAction searchAction, int limit) {
+        return capCount(doSearch(buildCountRequest(searchAction, limit)), limit);
+    }
 
-        GetResponse response = getRequestBuilder.get();
+    /**
+     * 统计匹配的文档数量, 最多统计到 limit(异步)
+     *
+     * @param searchAction 查询条件
+     * @param limit        统计上限, 小于等于0表示不限制
+     * @return 匹配的文档数量 的 CompletableFuture
+     * @see #count(SearchAction, int)
+     */
+    public CompletableFuture<Long> countAsync(SearchAction searchAction, int limit) {
+        return doSearchAsync(buildCountRequest(searchAction, limit)).thenApply(response -> capCount(response, limit));
+    }
 
-        OperaExceptionHandler.flagCheck(!response.isExists(),
-                ElasticMessage.OperaFailureMsg.GET_FAILURE);
+    /**
+     * 是否存在匹配的文档.
+     * <p>
+     * 每个分片找到1个文档后即停止(terminate_after=1), 不返回文档、不计算评分
+     *
+     * @param searchAction 查询条件
+     * @return 是否存在
+     */
+    public boolean exists(SearchAction searchAction) {
+        return count(searchAction, 1) > 0;
+    }
 
-        return response;
+    /**
+     * 是否存在匹配的文档(异步)
+     *
+     * @param searchAction 查询条件
+     * @return 是否存在 的 CompletableFuture
+     * @see #exists(SearchAction)
+     */
+    public CompletableFuture<Boolean> existsAsync(SearchAction searchAction) {
+        return countAsync(searchAction, 1).thenApply(count -> count > 0);
     }
 
     /**
-     * 执行MultiGet请求
+     * 分页遍历 composite 聚合的桶.
+     * <p>
+     * 按 after_key 每次请求 pageSize 个桶, 协调节点的内存占用与桶的总数无关, 适合高基数字段的全量分组;
+     * 处理当前页时预取后续 prefetch 页
      *
-     * @param multiGetRequestBuilder MultiGet请求
-     * @param getCapacity            请求的数量(主要用于初始化返回List的大小)
-     * @return Get响应集合
+     * @param compositeAggregationAction composite 聚合分页遍历条件
+     * @return 桶的游标
+     * @see CompositeAggregationAction
      */
-    private List<GetResponse> doGet(MultiGetRequestBuilder multiGetRequestBuilder, Integer getCapacity) {
-        log.debug("\r\n" + multiGetRequestBuilder.toString());
+    public CompositeBucketCursor compositeAggregation(CompositeAggregationAction compositeAggregationAction) {
+        return new CompositeBucketCursor(
+                after -> executeSearchAsync(buildCompositeRequest(compositeAggregationAction, after))
+                        .thenApply(response -> response.getAggregations()
+                                .get(ElasticConstant.Composite.AGGREGATION_NAME)),
+                compositeAggregationAction.getPageSize(), compositeAggregationAction.getPrefetch(),
+                compositeAggregationAction.getAfter());
+    }
 
-        MultiGetResponse multiGetResponse = multiGetRequestBuilder.get();
+    /**
+     * 分页遍历 composite 聚合的桶(Stream).
+     * <p>
+     * notification: 未消费完时需要关闭 Stream (try-with-resources)
+     *
+     * @param compositeAggregationAction composite 聚合分页遍历条件
+     * @return 桶的惰性 Stream
+     * @see #compositeAggregation(CompositeAggregationAction)
+     */
+    public Stream<CompositeAggregation.Bucket> compositeAggregationStream(
+            CompositeAggregationAction compositeAggregationAction) {
+        return compositeAggregation(compositeAggregationAction).stream();
+    }
 
-        List<GetResponse> result = new ArrayList<>(getCapacity);
-        for (MultiGetItemResponse multiGetItemResponse : multiGetResponse) {
-            GetResponse response = multiGetItemResponse.getResponse();
-            OperaExceptionHandler.flagCheck(!response.isExists(),
-                    ElasticMessage.OperaFailureMsg.MULTI_GET_FAILURE);
-            result.add(response);
+    /**
+     * 匹配查询文档(MultiSearch)
+     *
+     * @param searchActions 批量查询条件
+     * @return SearchResponse集合
+     */
+    public List<SearchResponse> multiSearch(SearchAction... searchActions) {
+        if (Objects.nonNull(searchResponseCache) || searchActions.length > multiChunkSize) {
+            return ElasticFutures.join(multiSearchAsync(searchActions));
         }
+        return buildMultiSearchResult(executeMultiSearch(buildMultiSearchRequest(searchActions)));
+    }
 
-        return result;
+    /**
+     * 匹配查询文档(MultiSearch, 异步)
+     *
+     * @param searchActions 批量查询条件
+     * @return SearchResponse集合 的 CompletableFuture
+     */
+    public CompletableFuture<List<SearchResponse>> multiSearchAsync(SearchAction... searchActions) {
+        if (Objects.isNull(searchResponseCache) && searchActions.length <= multiChunkSize) {
+            return executeMultiSearchAsync(buildMultiSearchRequest(searchActions))
+                    .thenApply(ElasticReader::buildMultiSearchResult);
+        }
+        final CompletableFuture<MultiItemResult<SearchResponse>>[] futures = doMultiSearchAsync(searchActions);
+        return CompletableFuture.allOf(futures).thenApply(ignore -> {
+            List<SearchResponse> result = new ArrayList<>(futures.length);
+            for (CompletableFuture<MultiItemResult<SearchResponse>> future : futures) {
+                result.add(future.join().getResponse());
+            }
+            return result;
+        });
     }
 
     /**
-     * 执行查询
+     * 匹配查询文档(MultiSearch), 逐项返回结果.
+     * <p>
+     * 单项查询失败或所在的分块请求失败时不抛出异常, 而是记录在对应的结果中
      *
-     * @param searchRequestBuilder 查询请求
-     * @return 查询响应
+     * @param searchActions 批量查询条件
+     * @return 单项结果集合, 顺序与请求一致
+     * @see MultiItemResult
      */
-    private SearchResponse doSearch(SearchRequestBuilder searchRequestBuilder) {
-        log.debug("\r\n" + searchRequestBuilder.toString());
+    public List<MultiItemResult<SearchResponse>> multiSearchItems(SearchAction... searchActions) {
+        return ElasticFutures.join(multiSearchItemsAsync(searchActions));
+    }
 
-        return searchRequestBuilder.get();
+    /**
+     * 匹配查询文档(MultiSearch, 异步), 逐项返回结果
+     *
+     * @param searchActions 批量查询条件
+     * @return 单项结果集合 的 CompletableFuture
+     * @see #multiSearchItems(SearchAction...)
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<MultiItemResult<SearchResponse>>> multiSearchItemsAsync(
+            SearchAction... searchActions) {
+        CompletableFuture<MultiItemResult<SearchResponse>>[] futures = doMultiSearchAsync(searchActions);
+        final CompletableFuture<MultiItemResult<SearchResponse>>[] handled = new CompletableFuture[futures.length];
+        for (int i = 0; i < futures.length; i++) {
+            handled[i] = futures[i].handle((itemResult, e) -> Objects.isNull(e)
+                    ? itemResult : failureItem(e, ElasticMessage.OperaFailureMsg.MULTI_SEARCH_ITEM_FAILURE));
+        }
+        return CompletableFuture.allOf(handled).thenApply(ignore -> {
+            List<MultiItemResult<SearchResponse>> result = new ArrayList<>(handled.length);
+            for (CompletableFuture<MultiItemResult<SearchResponse>> future : handled) {
+                result.add(future.join());
+            }
+            return result;
+        });
     }
 
+    /**
+     * 游标遍历匹配的文档.
+     * <p>
+     * 文档按页惰性拉取, 处理当前页时预取下一页; 遍历完毕或 close 时清除 scroll 上下文
+     *
+     * @param scrollAction 游标遍历条件
+     * @return 文档迭代器
+     * @see ScrollAction
+     */
+    public ScrollHitIterator scroll(ScrollAction scrollAction) {
+        return new ScrollHitIterator(scrollPages(scrollAction));
+    }
 
     /**
-     * 根据搜索条件, 构建一个具体的搜索请求
+     * 游标遍历匹配的文档(Stream).
+     * <p>
+     * notification: 未消费完时需要关闭 Stream (try-with-resources)
      *
-     * @param searchAction 搜索条件
-     * @return 具体的搜索请求
+     * @param scrollAction 游标遍历条件
+     * @return 文档的惰性 Stream
+     * @see ScrollAction
      */
-    private SearchRequestBuilder buildSearchRequestByQuery(SearchAction searchAction) {
-        SearchRequestBuilder searchRequestBuilder = client.getClient()
-                .prepareSearch(searchAction.getIndices())
-                .setTypes(DEFAULT_TYPE_NAME);
+    public Stream<SearchHit> scrollStream(ScrollAction scrollAction) {
+        return scroll(scrollAction).stream();
+    }
 
-        if (Objects.nonNull(searchAction.getQueryBuilder())) {
-            searchRequestBuilder.setQuery(searchAction.getQueryBuilder());
-        }
-        if (Objects.nonNull(searchAction.getSortBuilder())) {
-            searchRequestBuilder.addSort(searchAction.getSortBuilder());
-        }
-        if (Objects.nonNull(searchAction.getFrom())) {
-            searchRequestBuilder.setFrom(searchAction.getFrom());
+    /**
+     * 游标按页遍历匹配的文档.
+     *
+     * @param scrollAction 游标遍历条件
+     * @return 按页的游标
+     * @see ScrollAction
+     */
+    public ScrollCursor scrollPages(ScrollAction scrollAction) {
+        TimeValue keepAlive = TimeValue.timeValueMillis(scrollAction.getKeepAliveMillis());
+
+        return new ScrollCursor(client.getClient(), buildScrollRequest(scrollAction, keepAlive),
+                keepAlive, metrics());
+    }
+
+    /**
+     * 游标按页遍历某个切片的文档.
+     *
+     * @param scrollAction 游标遍历条件
+     * @param sliceId      切片ID, 从0开始
+     * @param maxSlices    切片数量
+     * @return 按页的游标
+     * @see ScrollAction
+     */
+    public ScrollCursor scrollPages(ScrollAction scrollAction, int sliceId, int maxSlices) {
+        TimeValue keepAlive = TimeValue.timeValueMillis(scrollAction.getKeepAliveMillis());
+        SearchRequestBuilder searchRequestBuilder = buildScrollRequest(scrollAction, keepAlive);
+        if (maxSlices > 1) {
+            searchRequestBuilder.slice(new SliceBuilder(sliceId, maxSlices));
+        }
+
+        return new ScrollCursor(client.getClient(), searchRequestBuilder, keepAlive, metrics());
+    }
+
+    /**
+     * 列式游标遍历匹配的文档.
+     * <p>
+     * 只请求 docvalue_fields(不返回 _source), 每页按列转换为 long[]/double[]/字典编码的字符串,
+     * 适合只需要少量数值/keyword 字段的大批量读取
+     *
+     * @param columnarScrollAction 列式游标遍历条件
+     * @return 按页的列式游标
+     * @see ColumnarScrollAction
+     */
+    public ColumnarCursor columnarScroll(ColumnarScrollAction columnarScrollAction) {
+        ScrollAction scrollAction = columnarScrollAction.getScrollAction();
+        TimeValue keepAlive = TimeValue.timeValueMillis(scrollAction.getKeepAliveMillis());
+        SearchRequestBuilder searchRequestBuilder = buildScrollRequest(scrollAction, keepAlive)
+                .setFetchSource(false);
+        for (String field : columnarScrollAction.getColumns().keySet()) {
+            searchRequestBuilder.addDocValueField(field);
+        }
+
+        return new ColumnarCursor(new ScrollCursor(client.getClient(), searchRequestBuilder, keepAlive, metrics()),
+                columnarScrollAction.getColumns());
+    }
+
+    /**
+     * 切片并行游标遍历匹配的文档.
+     * <p>
+     * 查询被拆分为多个切片并行遍历, 阻塞直到全部完成
+     *
+     * @param slicedScrollAction 切片并行遍历条件
+     * @param consumer           文档消费者, 会被多个线程同时调用, 必须线程安全
+     * @return 最终进度(文档数、耗时、吞吐量)
+     * @see SlicedScrollAction
+     */
+    public ScrollProgress slicedScroll(SlicedScrollAction slicedScrollAction, Consumer<SearchHit> consumer) {
+        return slicedScroll(slicedScrollAction, consumer, null);
+    }
+
+    /**
+     * 切片并行游标遍历匹配的文档.
+     *
+     * @param slicedScrollAction 切片并行遍历条件
+     * @param consumer           文档消费者, 会被多个线程同时调用, 必须线程安全
+     * @param listener           进度回调(定时进度、切片完成)
+     * @return 最终进度(文档数、耗时、吞吐量)
+     * @see SlicedScrollAction
+     */
+    public ScrollProgress slicedScroll(SlicedScrollAction slicedScrollAction, Consumer<SearchHit> consumer,
+                                       ScrollProgressListener listener) {
+        final ScrollAction scrollAction = slicedScrollAction.getScrollAction();
+        final int slices = Math.max(1, slicedScrollAction.getSlices());
+
+        return new SlicedScrollExecutor(slicedScrollAction,
+                sliceId -> scrollPages(scrollAction, sliceId, slices))
+                .execute(consumer, listener);
+    }
+
+    /**
+     * 执行Get请求(不检查文档是否存在)
+     *
+     * @param getRequestBuilder Get请求
+     * @return Get响应
+     */
+    private GetResponse doGet(GetRequestBuilder getRequestBuilder) {
+        log.debug("\r\n" + getRequestBuilder.toString());
+
+        return getRequestBuilder.get();
+    }
+
+    /**
+     * 对冲执行Get请求, 每次发送都构建新的请求
+     *
+     * @param hedger    对冲执行
+     * @param getAction 查询条件
+     * @return Get响应 的 CompletableFuture
+     */
+    private CompletableFuture<GetResponse> executeHedgedGetAsync(HedgedExecutor hedger, GetAction getAction) {
+        return hedger.execute(preference -> {
+            GetRequestBuilder getRequestBuilder = buildGetRequest(getAction);
+            if (Objects.nonNull(preference)) {
+                getRequestBuilder.setPreference(preference);
+            }
+            log.debug("\r\n" + getRequestBuilder.toString());
+            return ElasticFutures.execute(getRequestBuilder);
+        });
+    }
+
+    /**
+     * 执行MultiGet请求
+     *
+     * @param multiGetRequestBuilder MultiGet请求
+     * @param getCapacity            请求的数量(主要用于初始化返回List的大小)
+     * @return Get响应集合
+     */
+    private List<GetResponse> doGet(MultiGetRequestBuilder multiGetRequestBuilder, Integer getCapacity) {
+        log.debug("\r\n" + multiGetRequestBuilder.toString());
+
+        return buildMultiGetResult(ElasticMetrics.time(metrics(), MULTI_GET, indexLabel(multiGetRequestBuilder),
+                multiGetRequestBuilder::get), getCapacity);
+    }
+
+    /**
+     * 异步执行MultiGet请求
+     *
+     * @param multiGetRequestBuilder MultiGet请求
+     * @param getCapacity            请求的数量(主要用于初始化返回List的大小)
+     * @return Get响应集合 的 CompletableFuture
+     */
+    private CompletableFuture<List<GetResponse>> doGetAsync(MultiGetRequestBuilder multiGetRequestBuilder,
+                                                            Integer getCapacity) {
+        log.debug("\r\n" + multiGetRequestBuilder.toString());
+
+        return executeMultiGetAsync(multiGetRequestBuilder)
+                .thenApply(multiGetResponse -> buildMultiGetResult(multiGetResponse, getCapacity));
+    }
+
+    /**
+     * 分块异步执行MultiGet请求, 任一文档不存在时以异常结束
+     *
+     * @param itemList 请求的文档
+     * @return Get响应集合 的 CompletableFuture
+     */
+    private CompletableFuture<List<GetResponse>> doGetAsync(List<MultiGetRequest.Item> itemList) {
+        return ChunkedExecutor.execute(itemList, multiChunkSize, multiParallelism,
+                chunk -> doGetAsync(buildMultiGetRequest(chunk), chunk.size()));
+    }
+
+    /**
+     * 异步执行一个分块的MultiGet请求, 逐项返回结果; 请求失败时该分块的每一项都记录为失败
+     *
+     * @param chunk         请求的文档
+     * @param documentCache 文档缓存, 可为空
+     * @return 单项结果集合 的 CompletableFuture
+     */
+    private CompletableFuture<List<MultiItemResult<GetResponse>>> doGetItemsAsync(List<MultiGetRequest.Item> chunk,
+                                                                                  DocumentCache documentCache) {
+        MultiGetRequestBuilder multiGetRequestBuilder = buildMultiGetRequest(chunk);
+        log.debug("\r\n" + multiGetRequestBuilder.toString());
+
+        return executeMultiGetAsync(multiGetRequestBuilder).handle((multiGetResponse, e) -> {
+            List<MultiItemResult<GetResponse>> result = new ArrayList<>(chunk.size());
+            if (Objects.nonNull(e)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    result.add(failureItem(e, ElasticMessage.OperaFailureMsg.MULTI_GET_FAILURE));
+                }
+                return result;
+            }
+            int position = 0;
+            for (MultiGetItemResponse itemResponse : multiGetResponse) {
+                MultiGetRequest.Item item = chunk.get(position++);
+                if (itemResponse.isFailed()) {
+                    MultiGetResponse.Failure failure = itemResponse.getFailure();
+                    result.add(new MultiItemResult<GetResponse>()
+                            .setFailureMessage(failure.getMessage())
+                            .setFailure(failure.getFailure()));
+                    continue;
+                }
+                GetResponse response = itemResponse.getResponse();
+                MultiItemResult<GetResponse> itemResult = new MultiItemResult<GetResponse>().setResponse(response);
+                if (!response.isExists()) {
+                    itemResult.setFailureMessage(ElasticMessage.OperaFailureMsg.GET_FAILURE);
+                } else if (Objects.nonNull(documentCache) && isCacheable(item)) {
+                    documentCache.put(response);
+                }
+                result.add(itemResult);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 构建失败的单项结果
+     *
+     * @param e              异常
+     * @param defaultMessage 异常没有信息时使用的信息
+     * @param <T>            响应类型
+     * @return 单项结果
+     */
+    private static <T> MultiItemResult<T> failureItem(Throwable e, String defaultMessage) {
+        Throwable cause = ElasticFutures.unwrap(e);
+        return new MultiItemResult<T>()
+                .setFailureMessage(Objects.nonNull(cause.getMessage()) ? cause.getMessage() : defaultMessage)
+                .setFailure(cause);
+    }
+
+    /**
+     * 检查Get响应, 文档不存在时抛出异常
+     *
+     * @param response Get响应
+     * @return Get响应
+     */
+    private static GetResponse checkGetResponse(GetResponse response) {
+        OperaExceptionHandler.flagCheck(!response.isExists(),
+                ElasticMessage.OperaFailureMsg.GET_FAILURE);
+
+        return response;
+    }
+
+    /**
+     * 解析MultiGet响应, 任一文档不存在时抛出异常
+     *
+     * @param multiGetResponse MultiGet响应
+     * @param getCapacity      请求的数量
+     * @return Get响应集合
+     */
+    private static List<GetResponse> buildMultiGetResult(MultiGetResponse multiGetResponse, Integer getCapacity) {
+        List<GetResponse> result = new ArrayList<>(getCapacity);
+        for (MultiGetItemResponse multiGetItemResponse : multiGetResponse) {
+            GetResponse response = multiGetItemResponse.getResponse();
+            OperaExceptionHandler.flagCheck(Objects.isNull(response) || !response.isExists(),
+                    ElasticMessage.OperaFailureMsg.MULTI_GET_FAILURE);
+            result.add(response);
+        }
+
+        return result;
+    }
+
+    /**
+     * 执行查询
+     *
+     * @param searchRequestBuilder 查询请求
+     * @return 查询响应
+     */
+    private SearchResponse doSearch(SearchRequestBuilder searchRequestBuilder) {
+        if (Objects.nonNull(searchResponseCache)) {
+            return ElasticFutures.join(doSearchAsync(searchRequestBuilder));
+        }
+        log.debug("\r\n" + searchRequestBuilder.toString());
+
+        String index = indexLabel(searchRequestBuilder);
+        return recordTook(index, ElasticMetrics.time(metrics(), SEARCH, index, searchRequestBuilder::get));
+    }
+
+    /**
+     * 异步执行查询, 开启了搜索结果缓存时先查缓存
+     *
+     * @param searchRequestBuilder 查询请求
+     * @return 查询响应 的 CompletableFuture
+     */
+    private CompletableFuture<SearchResponse> doSearchAsync(SearchRequestBuilder searchRequestBuilder) {
+        return doSearchAsync(searchRequestBuilder, () -> executeSearchAsync(searchRequestBuilder));
+    }
+
+    /**
+     * 异步执行查询, 开启了搜索结果缓存时先查缓存
+     *
+     * @param searchRequestBuilder 查询请求(用于缓存的 key)
+     * @param loader               未命中缓存时的查询
+     * @return 查询响应 的 CompletableFuture
+     */
+    private CompletableFuture<SearchResponse> doSearchAsync(SearchRequestBuilder searchRequestBuilder,
+                                                            Supplier<CompletableFuture<SearchResponse>> loader) {
+        log.debug("\r\n" + searchRequestBuilder.toString());
+
+        SearchResponseCache cache = this.searchResponseCache;
+        if (Objects.isNull(cache)) {
+            return loader.get();
+        }
+        SearchRequest searchRequest = searchRequestBuilder.request();
+        return cache.get(SearchResponseCache.key(searchRequest), searchRequest.indices(), loader);
+    }
+
+    /**
+     * 分块执行 MultiSearch, 每一项一个 future; 分块请求失败时该分块的 future 以异常结束.
+     * <p>
+     * 开启了搜索结果缓存时: 命中的直接返回, 其他调用方正在查询的等待其结果(该查询失败时作为该项的失败),
+     * 剩余的才发送
+     *
+     * @param searchActions 批量查询条件
+     * @return 单项结果的 future 数组, 顺序与请求一致
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<MultiItemResult<SearchResponse>>[] doMultiSearchAsync(SearchAction... searchActions) {
+        final SearchResponseCache cache = this.searchResponseCache;
+        final CompletableFuture<MultiItemResult<SearchResponse>>[] futures =
+                new CompletableFuture[searchActions.length];
+        final CompletableFuture<SearchResponse>[] registered = new CompletableFuture[searchActions.length];
+        final SearchRequestBuilder[] searchRequestBuilders = new SearchRequestBuilder[searchActions.length];
+        final String[] keys = new String[searchActions.length];
+        final CompletableFuture<Long>[] ttlMillis = new CompletableFuture[searchActions.length];
+        final List<Integer> positions = new ArrayList<>();
+
+        for (int i = 0; i < searchActions.length; i++) {
+            searchRequestBuilders[i] = buildSearchRequestByQuery(searchActions[i]);
+            futures[i] = new CompletableFuture<>();
+            if (Objects.isNull(cache)) {
+                positions.add(i);
+                continue;
+            }
+
+            SearchRequest searchRequest = searchRequestBuilders[i].request();
+            keys[i] = SearchResponseCache.key(searchRequest);
+            SearchResponse cached = cache.getIfPresent(keys[i]);
+            if (Objects.nonNull(cached)) {
+                futures[i].complete(new MultiItemResult<SearchResponse>().setResponse(cached));
+                continue;
+            }
+            CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+            CompletableFuture<SearchResponse> existing = cache.register(keys[i], future);
+            if (Objects.nonNull(existing)) {
+                final CompletableFuture<MultiItemResult<SearchResponse>> target = futures[i];
+                existing.whenComplete((response, e) -> {
+                    if (Objects.nonNull(e)) {
+                        // 等待的查询失败(可能是其他 MultiSearch 中失败的一项), 作为该项的失败
+                        target.complete(failureItem(e, ElasticMessage.OperaFailureMsg.MULTI_SEARCH_ITEM_FAILURE));
+                    } else {
+                        target.complete(new MultiItemResult<SearchResponse>().setResponse(response));
+                    }
+                });
+            } else {
+                registered[i] = future;
+                ttlMillis[i] = cache.ttlMillis(searchRequest.indices());
+                positions.add(i);
+            }
+        }
+
+        ChunkedExecutor.execute(positions, multiChunkSize, multiParallelism, chunk -> {
+            MultiSearchRequestBuilder multiSearchRequestBuilder = client.getClient().prepareMultiSearch();
+            for (int position : chunk) {
+                multiSearchRequestBuilder.add(searchRequestBuilders[position]);
+            }
+            log.debug("\r\n" + multiSearchRequestBuilder.toString());
+
+            return executeMultiSearchAsync(multiSearchRequestBuilder).handle((multiSearchResponse, e) -> {
+                for (int j = 0; j < chunk.size(); j++) {
+                    int position = chunk.get(j);
+                    MultiItemResult<SearchResponse> itemResult = Objects.isNull(e)
+                            ? buildMultiSearchItem(multiSearchResponse.getResponses()[j]) : null;
+                    if (Objects.nonNull(registered[position])) {
+                        // 单项失败时以该项的异常结束登记的 future, 等待同一查询的调用方不会得到null
+                        cache.complete(keys[position], ttlMillis[position], registered[position],
+                                Objects.isNull(e) ? itemResult.getResponse() : null,
+                                Objects.nonNull(e) ? e : itemFailure(itemResult));
+                    }
+                    if (Objects.isNull(e)) {
+                        futures[position].complete(itemResult);
+                    } else {
+                        futures[position].completeExceptionally(e);
+                    }
+                }
+                return chunk;
+            });
+        });
+
+        return futures;
+    }
+
+    private CompletableFuture<SearchResponse> executeSearchAsync(SearchRequestBuilder searchRequestBuilder) {
+        final String index = indexLabel(searchRequestBuilder);
+        return ElasticMetrics.timeAsync(metrics(), SEARCH, index,
+                () -> ElasticFutures.execute(searchRequestBuilder))
+                .thenApply(response -> recordTook(index, response));
+    }
+
+    private MultiSearchResponse executeMultiSearch(MultiSearchRequestBuilder multiSearchRequestBuilder) {
+        log.debug("\r\n" + multiSearchRequestBuilder.toString());
+
+        return ElasticMetrics.time(metrics(), MULTI_SEARCH, indexLabel(multiSearchRequestBuilder),
+                multiSearchRequestBuilder::get);
+    }
+
+    private CompletableFuture<MultiSearchResponse> executeMultiSearchAsync(
+            MultiSearchRequestBuilder multiSearchRequestBuilder) {
+        return ElasticMetrics.timeAsync(metrics(), MULTI_SEARCH, indexLabel(multiSearchRequestBuilder),
+                () -> ElasticFutures.execute(multiSearchRequestBuilder));
+    }
+
+    private CompletableFuture<MultiGetResponse> executeMultiGetAsync(MultiGetRequestBuilder multiGetRequestBuilder) {
+        return ElasticMetrics.timeAsync(metrics(), MULTI_GET, indexLabel(multiGetRequestBuilder),
+                () -> ElasticFutures.execute(multiGetRequestBuilder));
+    }
+
+    /**
+     * 上报查询的服务端耗时
+     *
+     * @param index    索引标签
+     * @param response 查询响应
+     * @return 查询响应
+     */
+    private SearchResponse recordTook(String index, SearchResponse response) {
+        MetricsRegistry metrics = metrics();
+        if (metrics.isEnabled()) {
+            metrics.recordServerTook(SEARCH, index, response.getTook().millis());
+        }
+        return response;
+    }
+
+    private MetricsRegistry metrics() {
+        return client.getMetricsRegistry();
+    }
+
+    private <T> List<T> deserializeHits(SearchResponse response, Class<T> type) {
+        SearchHit[] hits = response.getHits().getHits();
+        List<T> result = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            result.add(deserialize(hit.getIndex(), hit.getSourceRef(), type));
+        }
+        return result;
+    }
+
+    /**
+     * 反序列化文档, 开启指标时记录反序列化耗时与字节数
+     *
+     * @param index  索引名称
+     * @param source 文档的字节
+     * @param type   文档类型
+     * @return 文档
+     */
+    private <T> T deserialize(String index, BytesReference source, Class<T> type) {
+        MetricsRegistry metrics = metrics();
+        if (!metrics.isEnabled() || Objects.isNull(source)) {
+            return documentSerializer.deserialize(source, type);
+        }
+        long startNanos = System.nanoTime();
+        T doc = documentSerializer.deserialize(source, type);
+        metrics.recordLatency(ElasticConstant.Metrics.DESERIALIZE, index, System.nanoTime() - startNanos, null);
+        metrics.recordBytes(ElasticConstant.Metrics.DESERIALIZE, index, source.length());
+        return doc;
+    }
+
+    /**
+     * 指标中的索引标签, 未开启指标时为null(避免无谓的计算)
+     */
+    private String indexLabel(SearchRequestBuilder searchRequestBuilder) {
+        return metrics().isEnabled() ? ElasticMetrics.indexLabel(searchRequestBuilder.request().indices()) : null;
+    }
+
+    private String indexLabel(MultiSearchRequestBuilder multiSearchRequestBuilder) {
+        if (!metrics().isEnabled()) {
+            return null;
+        }
+        Set<String> indices = new LinkedHashSet<>();
+        for (SearchRequest searchRequest : multiSearchRequestBuilder.request().requests()) {
+            indices.addAll(Arrays.asList(searchRequest.indices()));
+        }
+        return ElasticMetrics.indexLabel(indices.toArray(new String[0]));
+    }
+
+    private String indexLabel(MultiGetRequestBuilder multiGetRequestBuilder) {
+        if (!metrics().isEnabled()) {
+            return null;
+        }
+        Set<String> indices = new LinkedHashSet<>();
+        for (MultiGetRequest.Item item : multiGetRequestBuilder.request().getItems()) {
+            indices.add(item.index());
+        }
+        return ElasticMetrics.indexLabel(indices.toArray(new String[0]));
+    }
+
+    /**
+     * 获取索引的 refresh_interval(异步, 不阻塞调用线程), 多个实际索引时取最小值; 获取失败时为默认值
+     *
+     * @param index 索引名称(或别名、通配符)
+     * @return refresh_interval(毫秒, -1 表示关闭了刷新) 的 CompletableFuture
+     */
+    private CompletableFuture<Long> getRefreshIntervalMillisAsync(String index) {
+        CompletableFuture<GetSettingsResponse> future;
+        try {
+            future = ElasticFutures.execute(client.getClient().admin().indices().prepareGetSettings(index));
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.handle((response, e) -> {
+            if (Objects.nonNull(e)) {
+                log.warn("ElasticReader: get refresh_interval of [" + index + "] failure", e);
+                return IndexSettings.DEFAULT_REFRESH_INTERVAL.millis();
+            }
+            long refreshInterval = -1;
+            Iterator<Settings> iterator = response.getIndexToSettings().valuesIt();
+            while (iterator.hasNext()) {
+                long millis = IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.get(iterator.next()).millis();
+                if (millis >= 0 && (refreshInterval < 0 || millis < refreshInterval)) {
+                    refreshInterval = millis;
+                }
+            }
+            return refreshInterval;
+        });
+    }
+
+
+    /**
+     * 解析MultiSearch响应
+     *
+     * @param multiSearchResponse MultiSearch响应
+     * @return SearchResponse集合
+     */
+    private static List<SearchResponse> buildMultiSearchResult(MultiSearchResponse multiSearchResponse) {
+        MultiSearchResponse.Item[] responses = multiSearchResponse.getResponses();
+        List<SearchResponse> result = new ArrayList<>(responses.length);
+
+        for (MultiSearchResponse.Item item : responses) {
+            result.add(item.getResponse());
+        }
+
+        return result;
+    }
+
+    /**
+     * 解析MultiSearch的单项响应
+     *
+     * @param item MultiSearch单项响应
+     * @return 单项结果
+     */
+    /**
+     * 单项的异常, 成功时返回null
+     */
+    private static Throwable itemFailure(MultiItemResult<SearchResponse> itemResult) {
+        if (Objects.nonNull(itemResult.getResponse())) {
+            return null;
+        }
+        return Objects.nonNull(itemResult.getFailure()) ? itemResult.getFailure()
+                : new IllegalStateException(Objects.nonNull(itemResult.getFailureMessage())
+                ? itemResult.getFailureMessage() : ElasticMessage.OperaFailureMsg.MULTI_SEARCH_ITEM_FAILURE);
+    }
+
+    private static MultiItemResult<SearchResponse> buildMultiSearchItem(MultiSearchResponse.Item item) {
+        if (item.isFailure()) {
+            return new MultiItemResult<SearchResponse>()
+                    .setFailureMessage(item.getFailureMessage())
+                    .setFailure(item.getFailure());
+        }
+        return new MultiItemResult<SearchResponse>().setResponse(item.getResponse());
+    }
+
+    /**
+     * 获取可用于该请求的文档缓存, 指定了字段、_source 过滤或版本号的请求不走缓存
+     *
+     * @param getAction 查询条件
+     * @return 文档缓存, 不可用时为null
+     */
+    private DocumentCache getDocumentCache(GetAction getAction) {
+        if (Objects.nonNull(getAction.getFields()) || getAction.isSourceFiltered()
+                || Objects.nonNull(getAction.getVersion())) {
+            return null;
+        }
+        return client.getDocumentCache();
+    }
+
+    /**
+     * 该文档能否使用文档缓存: 与 {@link #getDocumentCache(GetAction)} 一致,
+     * 指定了字段、_source 过滤、版本号或 routing 的文档不走缓存(既不读取也不放入)
+     *
+     * @param item 请求的文档
+     * @return 能否使用缓存
+     */
+    private static boolean isCacheable(MultiGetRequest.Item item) {
+        return Objects.isNull(item.storedFields())
+                && Objects.isNull(item.fetchSourceContext())
+                && item.version() == Versions.MATCH_ANY
+                && Objects.isNull(item.routing())
+                && Objects.isNull(item.parent());
+    }
+
+    /**
+     * 从缓存中填充结果
+     *
+     * @param documentCache 文档缓存
+     * @param itemList      请求的文档
+     * @param result        结果数组, 命中的位置被填充
+     * @return 未命中(或不能使用缓存)的文档
+     */
+    private static List<MultiGetRequest.Item> fillFromCache(DocumentCache documentCache,
+                                                            List<MultiGetRequest.Item> itemList,
+                                                            GetResponse[] result) {
+        List<MultiGetRequest.Item> missItemList = new ArrayList<>();
+        for (int i = 0; i < result.length; i++) {
+            MultiGetRequest.Item item = itemList.get(i);
+            if (isCacheable(item)) {
+                result[i] = documentCache.get(item.index(), item.id());
+            }
+            if (Objects.isNull(result[i])) {
+                missItemList.add(item);
+            }
+        }
+        return missItemList;
+    }
+
+    /**
+     * 按顺序将请求到的文档填入结果数组的空位, 能使用缓存的放入缓存
+     *
+     * @param documentCache 文档缓存
+     * @param result        结果数组
+     * @param missItemList  未命中的文档(顺序与空位一致)
+     * @param fetched       请求到的文档(顺序与空位一致)
+     */
+    private static void fillMisses(DocumentCache documentCache, GetResponse[] result,
+                                   List<MultiGetRequest.Item> missItemList, List<GetResponse> fetched) {
+        int position = 0;
+        for (int i = 0; i < fetched.size(); i++) {
+            while (Objects.nonNull(result[position])) {
+                position++;
+            }
+            GetResponse response = fetched.get(i);
+            result[position] = response;
+            if (isCacheable(missItemList.get(i))) {
+                documentCache.put(response);
+            }
+        }
+    }
+
+    private static List<MultiGetRequest.Item> toItemList(String index, String... docIds) {
+        List<MultiGetRequest.Item> itemList = new ArrayList<>(docIds.length);
+        for (String docId : docIds) {
+            itemList.add(new MultiGetRequest.Item(index, DEFAULT_TYPE_NAME, docId));
+        }
+        return itemList;
+    }
+
+    private static MultiGetRequest.Item buildGetItem(GetAction getAction) {
+        MultiGetRequest.Item item = new MultiGetRequest.Item(getAction.getIndex(), DEFAULT_TYPE_NAME,
+                getAction.getDocId());
+
+        if (Objects.nonNull(getAction.getFields())) {
+            item.storedFields(getAction.getFields());
+        }
+        if (getAction.isSourceFiltered()) {
+            item.fetchSourceContext(new FetchSourceContext(true, getAction.getSourceIncludes(),
+                    getAction.getSourceExcludes()));
+        }
+
+        return item;
+    }
+
+    private GetRequestBuilder buildGetRequest(GetAction getAction) {
+        GetRequestBuilder getRequestBuilder = client.getClient().
+                prepareGet(getAction.getIndex(), DEFAULT_TYPE_NAME, getAction.getDocId());
+
+        if (Objects.nonNull(getAction.getFields())) {
+            getRequestBuilder.setStoredFields(getAction.getFields());
+        }
+        if (getAction.isSourceFiltered()) {
+            getRequestBuilder.setFetchSource(getAction.getSourceIncludes(), getAction.getSourceExcludes());
+        }
+
+        return getRequestBuilder;
+    }
+
+    private MultiGetRequestBuilder buildMultiGetRequest(String index, String... docIds) {
+        MultiGetRequestBuilder multiGetRequestBuilder = client.getClient().prepareMultiGet();
+        for (String docId : docIds) {
+            multiGetRequestBuilder.add(index, DEFAULT_TYPE_NAME, docId);
+        }
+
+        return multiGetRequestBuilder;
+    }
+
+    /**
+     * 构建MultiGet请求, 类型统一为默认类型, 保留每个文档的 字段、_source 过滤、版本号、routing
+     */
+    private MultiGetRequestBuilder buildMultiGetRequest(List<MultiGetRequest.Item> itemList) {
+        MultiGetRequestBuilder multiGetRequestBuilder = client.getClient().prepareMultiGet();
+        for (MultiGetRequest.Item item : itemList) {
+            multiGetRequestBuilder.add(new MultiGetRequest.Item(item.index(), DEFAULT_TYPE_NAME, item.id())
+                    .storedFields(item.storedFields())
+                    .fetchSourceContext(item.fetchSourceContext())
+                    .version(item.version())
+                    .versionType(item.versionType())
+                    .routing(item.routing())
+                    .parent(item.parent()));
+        }
+
+        return multiGetRequestBuilder;
+    }
+
+    private MultiSearchRequestBuilder buildMultiSearchRequest(SearchAction... searchActions) {
+        MultiSearchRequestBuilder multiSearchRequestBuilder = client.getClient().prepareMultiSearch();
+
+        for (SearchAction query : searchActions) {
+            multiSearchRequestBuilder.add(buildSearchRequestByQuery(query));
+        }
+
+        return multiSearchRequestBuilder;
+    }
+
+    /**
+     * 根据游标遍历条件, 构建首页的搜索请求
+     * 未指定排序时按 _doc 排序, 这是 scroll 最高效的方式
+     *
+     * @param scrollAction 游标遍历条件
+     * @param keepAlive    游标存活时间
+     * @return 首页的搜索请求
+     */
+    private SearchRequestBuilder buildScrollRequest(ScrollAction scrollAction, TimeValue keepAlive) {
+        SearchRequestBuilder searchRequestBuilder = buildSearchRequestByQuery(scrollAction.getSearchAction())
+                .setFrom(0)
+                .setSize(scrollAction.getPageSize())
+                .setScroll(keepAlive);
+
+        if (Objects.isNull(scrollAction.getSearchAction().getSortBuilder())) {
+            searchRequestBuilder.addSort(SortBuilders.fieldSort(FieldSortBuilder.DOC_FIELD_NAME));
+        }
+
+        return searchRequestBuilder;
+    }
+
+    /**
+     * 根据搜索条件, 构建统计数量的请求
+     *
+     * @param searchAction 搜索条件
+     * @param limit        每个分片的统计上限(terminate_after), 小于等于0表示不限制
+     * @return 统计数量的请求
+     */
+    private SearchRequestBuilder buildCountRequest(SearchAction searchAction, int limit) {
+        SearchRequestBuilder searchRequestBuilder = client.getClient()
+                .prepareSearch(searchAction.getIndices())
+                .setTypes(DEFAULT_TYPE_NAME)
+                .setSize(ElasticConstant.Count.QUERY_ZERO_COUNT)
+                .setFetchSource(false)
+                .setTrackScores(false);
+
+        if (Objects.nonNull(searchAction.getQueryBuilder())) {
+            searchRequestBuilder.setQuery(searchAction.getQueryBuilder());
+        }
+        if (limit > 0) {
+            searchRequestBuilder.setTerminateAfter(limit);
+        }
+
+        return searchRequestBuilder;
+    }
+
+    /**
+     * 构建 composite 聚合的一页请求, 每页新建聚合(请求发送前不能被修改)
+     *
+     * @param compositeAggregationAction composite 聚合分页遍历条件
+     * @param after                      after_key, 为null表示第一页
+     * @return 一页的搜索请求
+     */
+    private SearchRequestBuilder buildCompositeRequest(CompositeAggregationAction compositeAggregationAction,
+                                                       Map<String, Object> after) {
+        CompositeAggregationBuilder compositeAggregationBuilder = new CompositeAggregationBuilder(
+                ElasticConstant.Composite.AGGREGATION_NAME, compositeAggregationAction.getSources())
+                .size(compositeAggregationAction.getPageSize());
+        if (Objects.nonNull(after)) {
+            compositeAggregationBuilder.aggregateAfter(after);
+        }
+        for (AggregationBuilder subAggregation : compositeAggregationAction.getSubAggregations()) {
+            compositeAggregationBuilder.subAggregation(subAggregation);
+        }
+
+        SearchRequestBuilder searchRequestBuilder = buildCountRequest(compositeAggregationAction.getSearchAction(), 0)
+                .addAggregation(compositeAggregationBuilder);
+        log.debug("\r\n" + searchRequestBuilder.toString());
+        return searchRequestBuilder;
+    }
+
+    /**
+     * terminate_after 按分片生效, 总数可能超过 limit
+     */
+    private static long capCount(SearchResponse response, int limit) {
+        long totalHits = response.getHits().getTotalHits();
+        return limit > 0 ? Math.min(totalHits, limit) : totalHits;
+    }
+
+    /**
+     * 根据搜索条件, 构建一个具体的搜索请求
+     *
+     * @param searchAction 搜索条件
+     * @return 具体的搜索请求
+     */
+    private SearchRequestBuilder buildSearchRequestByQuery(SearchAction searchAction) {
+        SearchRequestBuilder searchRequestBuilder = client.getClient()
+                .prepareSearch(searchAction.getIndices())
+                .setTypes(DEFAULT_TYPE_NAME);
+
+        if (Objects.nonNull(searchAction.getQueryBuilder())) {
+            searchRequestBuilder.setQuery(searchAction.getQueryBuilder());
+        }
+        if (Objects.nonNull(searchAction.getSortBuilder())) {
+            searchRequestBuilder.addSort(searchAction.getSortBuilder());
+        }
+        if (Objects.nonNull(searchAction.getFrom())) {
+            searchRequestBuilder.setFrom(searchAction.getFrom());
         }
         if (Objects.nonNull(searchAction.getSize())) {
             searchRequestBuilder.setSize(searchAction.getSize());
@@ -227,6 +1544,9 @@ public class ElasticReader {
         if (Objects.nonNull(searchAction.getFields())) {
             searchRequestBuilder.storedFields(searchAction.getFields());
         }
+        if (searchAction.isSourceFiltered()) {
+            searchRequestBuilder.setFetchSource(searchAction.getSourceIncludes(), searchAction.getSourceExcludes());
+        }
 
         if (Objects.nonNull(searchAction.getAggregationBuilders())) {
             for (AbstractAggregationBuilder aggregationBuilder : searchAction.getAggregationBuilders()) {
@@ -1,17 +1,41 @@
 package com.wangyanrui.elasticsearch.api.core;
 
-import com.alibaba.fastjson.JSON;
 import com.wangyanrui.common.exception.OperaExceptionHandler;
 import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
 import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.bulk.AdaptiveConcurrencyLimiter;
+import com.wangyanrui.elasticsearch.api.core.bulk.BatchSizeTuner;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkItemCallback;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkRetryExecutor;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkRetryResult;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkSessionListener;
+import com.wangyanrui.elasticsearch.api.core.bulk.ElasticBulkSession;
+import com.wangyanrui.elasticsearch.api.core.cache.DocumentCache;
 import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
 import com.wangyanrui.elasticsearch.api.core.factory.ElasticFactory;
+import com.wangyanrui.elasticsearch.api.core.metrics.ElasticMetrics;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkBatchTuningPolicy;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkConcurrencyPolicy;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkRetryPolicy;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkSessionConfig;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.client.ElasticClientConfig;
 import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.*;
 import com.wangyanrui.elasticsearch.api.core.pojo.result.bulk.BulkResult;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.bulk.CompactBulkResult;
+import com.wangyanrui.elasticsearch.api.core.serializer.DocumentSerializer;
+import com.wangyanrui.elasticsearch.api.core.serializer.FastJsonDocumentSerializer;
+import com.wangyanrui.elasticsearch.api.core.support.ChunkedExecutor;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import com.wangyanrui.elasticsearch.api.core.task.ByQueryTask;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.ActionRequestBuilder;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -23,13 +47,22 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateRequestBuilder;
 import org.elasticsearch.action.update.UpdateResponse;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequestBuilder;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryAction;
+import org.elasticsearch.index.reindex.DeleteByQueryRequestBuilder;
 import org.elasticsearch.index.reindex.UpdateByQueryAction;
+import org.elasticsearch.index.reindex.UpdateByQueryRequestBuilder;
 import org.elasticsearch.rest.RestStatus;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Title: ElasticWriter
@@ -44,21 +77,113 @@ public class ElasticWriter {
 
     private ElasticClient client;
 
+    private DocumentSerializer documentSerializer = FastJsonDocumentSerializer.INSTANCE;
+
+    private volatile BulkRetryExecutor bulkRetryExecutor;
+
+    private volatile AdaptiveConcurrencyLimiter bulkConcurrencyLimiter;
+
+    private volatile BatchSizeTuner bulkBatchSizeTuner;
+
     private static final String DEFAULT_TYPE_NAME = ElasticConstant.Default.TYPE_NAME;
 
+    private static final String BULK = ElasticConstant.Metrics.BULK;
+
     private ElasticWriter() {
     }
 
     public ElasticWriter(ElasticClient client) {
         this.client = client;
+        this.bulkRetryExecutor = new BulkRetryExecutor(client, new BulkRetryPolicy());
     }
 
     public ElasticWriter(String address, String clusterName) {
-        this.client = ElasticFactory.getInstance(address, clusterName);
+        this(ElasticFactory.getInstance(address, clusterName));
     }
 
     public ElasticWriter(String address, int port, String clusterName) {
-        this.client = ElasticFactory.getInstance(address, port, clusterName);
+        this(ElasticFactory.getInstance(address, port, clusterName));
+    }
+
+    public ElasticWriter(ElasticClientConfig config) {
+        this(ElasticFactory.getInstance(config));
+    }
+
+    /**
+     * 设置文档序列化方式, 默认为 fastjson
+     *
+     * @param documentSerializer 文档序列化
+     * @return this
+     * @see DocumentSerializer
+     */
+    public ElasticWriter setDocumentSerializer(DocumentSerializer documentSerializer) {
+        this.documentSerializer = documentSerializer;
+        return this;
+    }
+
+    /**
+     * 设置批量请求中被拒绝(429)条目的重试策略, 为null时不重试.
+     * <p>
+     * 默认按 {@link ElasticConstant.Retry} 重试; 作用于 bulk/bulkAsync 与之后开启的批量写入会话
+     *
+     * @param bulkRetryPolicy 重试策略
+     * @return this
+     * @see BulkRetryPolicy
+     */
+    public ElasticWriter setBulkRetryPolicy(BulkRetryPolicy bulkRetryPolicy) {
+        this.bulkRetryExecutor = new BulkRetryExecutor(client,
+                Objects.nonNull(bulkRetryPolicy) ? bulkRetryPolicy : new BulkRetryPolicy().setMaxRetries(0));
+        return this;
+    }
+
+    /**
+     * 开启批量请求的自适应并发控制, 为null时关闭(默认关闭, bulkAsync 不限制并发).
+     * <p>
+     * 作用于 bulk/bulkAsync 与之后开启的批量写入会话, 二者共享同一并发上限;
+     * 达到上限时 bulkAsync 排队等待, 会话的 add/flush 阻塞等待
+     *
+     * @param bulkConcurrencyPolicy 自适应并发策略
+     * @return this
+     * @see AdaptiveConcurrencyLimiter
+     */
+    public ElasticWriter setBulkConcurrencyPolicy(BulkConcurrencyPolicy bulkConcurrencyPolicy) {
+        this.bulkConcurrencyLimiter = Objects.nonNull(bulkConcurrencyPolicy)
+                ? new AdaptiveConcurrencyLimiter(client, bulkConcurrencyPolicy) : null;
+        return this;
+    }
+
+    /**
+     * 开启批次字节数自动调整, 为null时关闭(默认关闭, 批次大小由调用方决定).
+     * <p>
+     * 开启后 bulk/bulkAsync/bulkCompact 的请求超过当前批次字节数时, 拆分为多个批次依次执行(上一批次完成后
+     * 才发送下一批次, 同一文档的多个操作保持原始顺序), 结果按原始顺序合并; 每个批次的耗时用于调整批次字节数
+     *
+     * @param bulkBatchTuningPolicy 批次字节数调整策略
+     * @return this
+     * @see BatchSizeTuner
+     */
+    public ElasticWriter setBulkBatchTuningPolicy(BulkBatchTuningPolicy bulkBatchTuningPolicy) {
+        this.bulkBatchSizeTuner = Objects.nonNull(bulkBatchTuningPolicy)
+                ? new BatchSizeTuner(bulkBatchTuningPolicy) : null;
+        return this;
+    }
+
+    /**
+     * 批次字节数自动调整, 可获取当前批次字节数
+     *
+     * @return BatchSizeTuner, 未开启时返回null
+     */
+    public BatchSizeTuner getBulkBatchSizeTuner() {
+        return bulkBatchSizeTuner;
+    }
+
+    /**
+     * 批量请求的自适应并发控制, 可获取当前并发上限与排队数量
+     *
+     * @return AdaptiveConcurrencyLimiter, 未开启时返回null
+     */
+    public AdaptiveConcurrencyLimiter getBulkConcurrencyLimiter() {
+        return bulkConcurrencyLimiter;
     }
 
     /**
@@ -89,35 +214,29 @@ public class ElasticWriter {
     }
 
     /**
-     * 创建文档.
+     * 获取索引builder
      *
      * @param indexAction 索引内容封装成的对象
-     * @return 索引响应
+     * @return IndexRequestBuilder
      */
-    public IndexResponse index(IndexAction indexAction) {
-        IndexResponse response = getIndexRequestBuilder()
+    public IndexRequestBuilder getIndexRequestBuilder(IndexAction indexAction) {
+        return getIndexRequestBuilder()
                 .setIndex(indexAction.getIndex())
                 .setType(DEFAULT_TYPE_NAME)
                 .setId(indexAction.getDocId())
                 .setSource(
-                        JSON.toJSONString(indexAction.getDoc()), XContentType.JSON
+                        serialize(indexAction.getIndex(), indexAction.getDoc()), documentSerializer.contentType()
                 )
-                .setCreate(true)
-                .get();
-
-        OperaExceptionHandler.flagCheck(!RestStatus.CREATED.equals(response.status()),
-                ElasticMessage.OperaFailureMsg.INDEX_FAILURE);
-
-        return response;
+                .setCreate(true);
     }
 
     /**
-     * 删除文档.
+     * 获取删除builder
      *
      * @param deleteAction 删除的条件封装成的对象
-     * @return 删除响应
+     * @return DeleteRequestBuilder
      */
-    public DeleteResponse delete(DeleteAction deleteAction) {
+    public DeleteRequestBuilder getDeleteRequestBuilder(DeleteAction deleteAction) {
         DeleteRequestBuilder deleteRequestBuilder = getDeleteRequestBuilder()
                 .setIndex(deleteAction.getIndex())
                 .setType(DEFAULT_TYPE_NAME)
@@ -127,12 +246,91 @@ public class ElasticWriter {
             deleteRequestBuilder.setVersion(deleteAction.getVersion());
         }
 
-        DeleteResponse response = deleteRequestBuilder.get();
+        return deleteRequestBuilder;
+    }
 
-        OperaExceptionHandler.flagCheck(!RestStatus.OK.equals(response.status()),
-                ElasticMessage.OperaFailureMsg.DELETE_FAILURE);
+    /**
+     * 获取更新builder
+     *
+     * @param updateAction 更新内容封装成的对象
+     * @return UpdateRequestBuilder
+     */
+    public UpdateRequestBuilder getUpdateRequestBuilder(UpdateAction updateAction) {
+        BytesRef doc = serialize(updateAction.getIndex(), updateAction.getDoc()).toBytesRef();
+        UpdateRequestBuilder updateRequestBuilder = getUpdateRequestBuilder()
+                .setIndex(updateAction.getIndex())
+                .setType(DEFAULT_TYPE_NAME)
+                .setId(updateAction.getDocId())
+                .setDoc(
+                        doc.bytes, doc.offset, doc.length,
+                        documentSerializer.contentType()
+                );
 
-        return response;
+        if (Objects.nonNull(updateAction.getVersion())) {
+            updateRequestBuilder.setVersion(updateAction.getVersion());
+        }
+
+        return updateRequestBuilder;
+    }
+
+    /**
+     * 创建文档.
+     *
+     * @param indexAction 索引内容封装成的对象
+     * @return 索引响应
+     */
+    public IndexResponse index(IndexAction indexAction) {
+        invalidateBeforeWrite(indexAction.getIndex(), indexAction.getDocId());
+
+        IndexResponse response = ElasticMetrics.time(metrics(), ElasticConstant.Metrics.INDEX,
+                indexAction.getIndex(), () -> checkIndexResponse(getIndexRequestBuilder(indexAction).get()));
+
+        return invalidateAfterWrite(response);
+    }
+
+    /**
+     * 创建文档(异步).
+     *
+     * @param indexAction 索引内容封装成的对象
+     * @return 索引响应的 CompletableFuture
+     */
+    public CompletableFuture<IndexResponse> indexAsync(IndexAction indexAction) {
+        invalidateBeforeWrite(indexAction.getIndex(), indexAction.getDocId());
+
+        return ElasticMetrics.timeAsync(metrics(), ElasticConstant.Metrics.INDEX, indexAction.getIndex(),
+                () -> ElasticFutures.execute(getIndexRequestBuilder(indexAction))
+                        .thenApply(ElasticWriter::checkIndexResponse))
+                .thenApply(this::invalidateAfterWrite);
+    }
+
+    /**
+     * 删除文档.
+     *
+     * @param deleteAction 删除的条件封装成的对象
+     * @return 删除响应
+     */
+    public DeleteResponse delete(DeleteAction deleteAction) {
+        invalidateBeforeWrite(deleteAction.getIndex(), deleteAction.getDocId());
+
+        DeleteResponse response = ElasticMetrics.time(metrics(), ElasticConstant.Metrics.DELETE,
+                deleteAction.getIndex(), () -> checkDeleteResponse(getDeleteRequestBuilder(deleteAction).get()));
+
+        return invalidateAfterWrite(response);
+    }
+
+    /**
+     * 删除文档(异步).
+     *
+     * @param deleteAction 删除的条件封装成的对象
+     * @return 删除响应的 CompletableFuture
+     */
+    public CompletableFuture<DeleteResponse> deleteAsync(DeleteAction deleteAction) {
+        invalidateBeforeWrite(deleteAction.getIndex(), deleteAction.getDocId());
+
+        return ElasticMetrics.timeAsync(metrics(), ElasticConstant.Metrics.DELETE, deleteAction.getIndex(),
+                () -> ElasticFutures.execute(getDeleteRequestBuilder(deleteAction))
+                        .thenApply(ElasticWriter::checkDeleteResponse))
+                .thenApply(this::invalidateAfterWrite);
     }
 
     /**
@@ -142,11 +340,50 @@ public class ElasticWriter {
      * @return 批量删除响应
      */
     public BulkByScrollResponse deleteByQuery(MultiDeleteAction deleteAction) {
-        return DeleteByQueryAction.INSTANCE
-                .newRequestBuilder(client.getClient())
-                .source(deleteAction.getIndex())
-                .filter(deleteAction.getQueryBuilder())
-                .get();
+        invalidateIndex(deleteAction.getIndex());
+        try {
+            return ElasticMetrics.time(metrics(), ElasticConstant.Metrics.DELETE_BY_QUERY, deleteAction.getIndex(),
+                    () -> getDeleteByQueryRequestBuilder(deleteAction).get());
+        } finally {
+            invalidateIndex(deleteAction.getIndex());
+        }
+    }
+
+    /**
+     * 删除匹配文档(异步).
+     *
+     * @param deleteAction 批量删除的条件封装成的对象
+     * @return 批量删除响应的 CompletableFuture
+     */
+    public CompletableFuture<BulkByScrollResponse> deleteByQueryAsync(MultiDeleteAction deleteAction) {
+        invalidateIndex(deleteAction.getIndex());
+
+        return ElasticMetrics.timeAsync(metrics(), ElasticConstant.Metrics.DELETE_BY_QUERY, deleteAction.getIndex(),
+                () -> ElasticFutures.execute(getDeleteByQueryRequestBuilder(deleteAction)))
+                .whenComplete((response, e) -> invalidateIndex(deleteAction.getIndex()));
+    }
+
+    /**
+     * 删除匹配文档(后台任务).
+     * <p>
+     * 立即返回任务句柄, 可查询进度、调整限速、取消; 切片数量与限速见 MultiDeleteAction
+     *
+     * @param deleteAction 批量删除的条件封装成的对象
+     * @return 任务句柄
+     * @see ByQueryTask
+     */
+    public ByQueryTask startDeleteByQuery(MultiDeleteAction deleteAction) {
+        invalidateIndex(deleteAction.getIndex());
+
+        final String marker = ByQueryTask.newMarker();
+        final DeleteByQueryRequestBuilder requestBuilder = getDeleteByQueryRequestBuilder(
+                ByQueryTask.markClient(client.getClient(), marker), deleteAction);
+        CompletableFuture<BulkByScrollResponse> future = ElasticMetrics.timeAsync(metrics(),
+                ElasticConstant.Metrics.DELETE_BY_QUERY, deleteAction.getIndex(),
+                () -> ElasticFutures.execute(requestBuilder))
+                .whenComplete((response, e) -> invalidateIndex(deleteAction.getIndex()));
+
+        return new ByQueryTask(client, DeleteByQueryAction.NAME, marker, future);
     }
 
     /**
@@ -158,25 +395,27 @@ public class ElasticWriter {
      * @return 更新响应
      */
     public UpdateResponse update(UpdateAction updateAction) {
-        UpdateRequestBuilder updateRequestBuilder = getUpdateRequestBuilder()
-                .setIndex(updateAction.getIndex())
-                .setType(DEFAULT_TYPE_NAME)
-                .setId(updateAction.getDocId())
-                .setDoc(
-                        JSON.toJSONString(updateAction.getDoc()),
-                        XContentType.JSON
-                );
+        invalidateBeforeWrite(updateAction.getIndex(), updateAction.getDocId());
 
-        if (Objects.nonNull(updateAction.getVersion())) {
-            updateRequestBuilder.setVersion(updateAction.getVersion());
-        }
+        UpdateResponse response = ElasticMetrics.time(metrics(), ElasticConstant.Metrics.UPDATE,
+                updateAction.getIndex(), () -> checkUpdateResponse(getUpdateRequestBuilder(updateAction).get()));
 
-        UpdateResponse response = updateRequestBuilder.get();
+        return invalidateAfterWrite(response);
+    }
 
-        OperaExceptionHandler.flagCheck(!RestStatus.OK.equals(response.status()),
-                ElasticMessage.OperaFailureMsg.UPDATE_FAILURE);
+    /**
+     * 更新文档(异步).
+     *
+     * @param updateAction 更新内容封装成的对象
+     * @return 更新响应的 CompletableFuture
+     */
+    public CompletableFuture<UpdateResponse> updateAsync(UpdateAction updateAction) {
+        invalidateBeforeWrite(updateAction.getIndex(), updateAction.getDocId());
 
-        return response;
+        return ElasticMetrics.timeAsync(metrics(), ElasticConstant.Metrics.UPDATE, updateAction.getIndex(),
+                () -> ElasticFutures.execute(getUpdateRequestBuilder(updateAction))
+                        .thenApply(ElasticWriter::checkUpdateResponse))
+                .thenApply(this::invalidateAfterWrite);
     }
 
     /**
@@ -188,13 +427,50 @@ public class ElasticWriter {
      * @return 更新响应
      */
     public BulkByScrollResponse updateByQuery(MultiUpdateAction updateAction) {
-        return UpdateByQueryAction.INSTANCE
-                .newRequestBuilder(client.getClient())
-                .source(updateAction.getIndex())
-                .script(updateAction.getScript())
-                .filter(updateAction.getQueryBuilder())
-                .abortOnVersionConflict(false)
-                .get();
+        invalidateIndex(updateAction.getIndex());
+        try {
+            return ElasticMetrics.time(metrics(), ElasticConstant.Metrics.UPDATE_BY_QUERY, updateAction.getIndex(),
+                    () -> getUpdateByQueryRequestBuilder(updateAction).get());
+        } finally {
+            invalidateIndex(updateAction.getIndex());
+        }
+    }
+
+    /**
+     * 更新匹配文档(异步).
+     *
+     * @param updateAction 更新内容封装成的对象
+     * @return 更新响应的 CompletableFuture
+     */
+    public CompletableFuture<BulkByScrollResponse> updateByQueryAsync(MultiUpdateAction updateAction) {
+        invalidateIndex(updateAction.getIndex());
+
+        return ElasticMetrics.timeAsync(metrics(), ElasticConstant.Metrics.UPDATE_BY_QUERY, updateAction.getIndex(),
+                () -> ElasticFutures.execute(getUpdateByQueryRequestBuilder(updateAction)))
+                .whenComplete((response, e) -> invalidateIndex(updateAction.getIndex()));
+    }
+
+    /**
+     * 更新匹配文档(后台任务).
+     * <p>
+     * 立即返回任务句柄, 可查询进度、调整限速、取消; 切片数量与限速见 MultiUpdateAction
+     *
+     * @param updateAction 更新内容封装成的对象
+     * @return 任务句柄
+     * @see ByQueryTask
+     */
+    public ByQueryTask startUpdateByQuery(MultiUpdateAction updateAction) {
+        invalidateIndex(updateAction.getIndex());
+
+        final String marker = ByQueryTask.newMarker();
+        final UpdateByQueryRequestBuilder requestBuilder = getUpdateByQueryRequestBuilder(
+                ByQueryTask.markClient(client.getClient(), marker), updateAction);
+        CompletableFuture<BulkByScrollResponse> future = ElasticMetrics.timeAsync(metrics(),
+                ElasticConstant.Metrics.UPDATE_BY_QUERY, updateAction.getIndex(),
+                () -> ElasticFutures.execute(requestBuilder))
+                .whenComplete((response, e) -> invalidateIndex(updateAction.getIndex()));
+
+        return new ByQueryTask(client, UpdateByQueryAction.NAME, marker, future);
     }
 
     /**
@@ -244,6 +520,307 @@ public class ElasticWriter {
      * @see BulkResult
      */
     public BulkResult bulk(ActionRequestBuilder... requestBuilders) {
+        return ElasticFutures.join(bulkAsync(requestBuilders));
+    }
+
+    /**
+     * 批量 索引、删除、更新(异步).
+     *
+     * @param requestBuilders ActionRequest(可变参数)
+     * @return BulkResult 的 CompletableFuture
+     * @see #bulk(ActionRequestBuilder[])
+     */
+    public CompletableFuture<BulkResult> bulkAsync(ActionRequestBuilder... requestBuilders) {
+        return executeBulk(getBulkRequestBuilder(requestBuilders).request())
+                .thenApply(ElasticWriter::buildBulkResult);
+    }
+
+    /**
+     * 批量 索引、删除、更新, 返回紧凑结果.
+     *
+     * @param requestBuilders ActionRequest(可变参数)
+     * @return CompactBulkResult Instance
+     * @see CompactBulkResult
+     */
+    public CompactBulkResult bulkCompact(ActionRequestBuilder... requestBuilders) {
+        return bulkCompact(null, requestBuilders);
+    }
+
+    /**
+     * 批量 索引、删除、更新, 返回紧凑结果, 并逐条回调.
+     * <p>
+     * 适合大批量写入: 不保留每条响应对象, 需要逐条处理时通过 callback 完成
+     *
+     * @param callback        逐条结果回调, 可为空
+     * @param requestBuilders ActionRequest(可变参数)
+     * @return CompactBulkResult Instance
+     * @see CompactBulkResult
+     */
+    public CompactBulkResult bulkCompact(BulkItemCallback callback, ActionRequestBuilder... requestBuilders) {
+        return ElasticFutures.join(bulkCompactAsync(callback, requestBuilders));
+    }
+
+    /**
+     * 批量 索引、删除、更新(异步), 返回紧凑结果, 并逐条回调.
+     *
+     * @param callback        逐条结果回调, 可为空
+     * @param requestBuilders ActionRequest(可变参数)
+     * @return CompactBulkResult 的 CompletableFuture
+     * @see #bulkCompact(BulkItemCallback, ActionRequestBuilder[])
+     */
+    public CompletableFuture<CompactBulkResult> bulkCompactAsync(BulkItemCallback callback,
+                                                                ActionRequestBuilder... requestBuilders) {
+        return executeBulk(getBulkRequestBuilder(requestBuilders).request())
+                .thenApply(result -> buildCompactBulkResult(result, callback));
+    }
+
+    /**
+     * 开启批量写入会话.
+     * <p>
+     * 会话逐条接收请求, 按数量、字节数、时间间隔自动刷新, 并允许多个批量请求同时执行
+     *
+     * @param config   会话配置
+     * @param listener 单条结果回调
+     * @return ElasticBulkSession Instance
+     * @see ElasticBulkSession
+     */
+    public ElasticBulkSession openBulkSession(BulkSessionConfig config, BulkSessionListener listener) {
+        return new ElasticBulkSession(this, client, bulkRetryExecutor, config, listener);
+    }
+
+    /**
+     * 执行批量请求(被拒绝的条目按策略重试), 并维护文档缓存与指标;
+     * 开启批次字节数自动调整且请求超过当前批次字节数时, 拆分为多个批次依次执行后按原始顺序合并
+     *
+     * @param bulkRequest 批量请求
+     * @return 批量响应(含重试) 的 CompletableFuture
+     */
+    private CompletableFuture<BulkRetryResult> executeBulk(BulkRequest bulkRequest) {
+        final BatchSizeTuner tuner = this.bulkBatchSizeTuner;
+        if (Objects.isNull(tuner) || bulkRequest.estimatedSizeInBytes() <= tuner.getBatchSizeBytes()) {
+            return executeBatch(bulkRequest);
+        }
+        List<BulkRequest> batches = splitBulkRequest(bulkRequest, tuner.getBatchSizeBytes());
+        log.debug("ElasticWriter: split bulk request into " + batches.size() + " batches, batchSizeBytes = "
+                + tuner.getBatchSizeBytes());
+        // 依次执行: 同一 _id 的多个操作(如先 index 后 update/delete)可能被拆到不同批次, 并发时会乱序到达分片
+        return ChunkedExecutor.execute(batches, 1, 1,
+                batch -> executeBatch(batch.get(0)).thenApply(Collections::singletonList))
+                .thenApply(BulkRetryResult::merge);
+    }
+
+    /**
+     * 按字节数拆分批量请求, 保持条目顺序与请求参数
+     */
+    private static List<BulkRequest> splitBulkRequest(BulkRequest bulkRequest, long batchSizeBytes) {
+        List<BulkRequest> batches = new ArrayList<>();
+        BulkRequest batch = null;
+        for (DocWriteRequest request : bulkRequest.requests()) {
+            if (Objects.isNull(batch) || batch.estimatedSizeInBytes() >= batchSizeBytes) {
+                batch = new BulkRequest();
+                batch.timeout(bulkRequest.timeout());
+                batch.waitForActiveShards(bulkRequest.waitForActiveShards());
+                batch.setRefreshPolicy(bulkRequest.getRefreshPolicy());
+                batches.add(batch);
+            }
+            batch.add(request);
+        }
+        return batches;
+    }
+
+    /**
+     * 执行一个批次
+     */
+    private CompletableFuture<BulkRetryResult> executeBatch(BulkRequest bulkRequest) {
+        invalidateBeforeWrite(bulkRequest);
+
+        final MetricsRegistry metrics = metrics();
+        if (!metrics.isEnabled()) {
+            return admit(bulkRequest).thenApply(this::invalidateAfterWrite);
+        }
+        final String index = ElasticMetrics.indexLabel(bulkRequest.requests());
+        ElasticMetrics.recordBulkBytes(metrics, BULK, bulkRequest.requests());
+        return ElasticMetrics.timeAsync(metrics, BULK, index, () -> admit(bulkRequest))
+                .thenApply(result -> {
+                    metrics.recordServerTook(BULK, index, result.getResponse().getTook().millis());
+                    ElasticMetrics.recordBulkItems(metrics, BULK, result.getResponse().getItems());
+                    return invalidateAfterWrite(result);
+                });
+    }
+
+    /**
+     * 开启自适应并发控制时排队获取名额后执行, 否则直接执行
+     */
+    private CompletableFuture<BulkRetryResult> admit(BulkRequest bulkRequest) {
+        final AdaptiveConcurrencyLimiter limiter = this.bulkConcurrencyLimiter;
+        if (Objects.isNull(limiter)) {
+            return track(bulkRequest);
+        }
+        return limiter.submit(() -> track(bulkRequest));
+    }
+
+    /**
+     * 开启批次字节数自动调整时, 以执行耗时采样
+     */
+    private CompletableFuture<BulkRetryResult> track(BulkRequest bulkRequest) {
+        final BulkRetryExecutor retryExecutor = this.bulkRetryExecutor;
+        final BatchSizeTuner tuner = this.bulkBatchSizeTuner;
+        if (Objects.isNull(tuner)) {
+            return retryExecutor.execute(bulkRequest);
+        }
+        return tuner.track(bulkRequest.estimatedSizeInBytes(), () -> retryExecutor.execute(bulkRequest));
+    }
+
+    /**
+     * 序列化文档, 开启指标时记录序列化耗时与字节数
+     *
+     * @param index 索引名称
+     * @param doc   文档
+     * @return 序列化后的字节
+     */
+    private BytesReference serialize(String index, Object doc) {
+        MetricsRegistry metrics = metrics();
+        if (!metrics.isEnabled()) {
+            return documentSerializer.serialize(doc);
+        }
+        long startNanos = System.nanoTime();
+        BytesReference bytes = documentSerializer.serialize(doc);
+        metrics.recordLatency(ElasticConstant.Metrics.SERIALIZE, index, System.nanoTime() - startNanos, null);
+        metrics.recordBytes(ElasticConstant.Metrics.SERIALIZE, index, bytes.length());
+        return bytes;
+    }
+
+    private MetricsRegistry metrics() {
+        return client.getMetricsRegistry();
+    }
+
+    /**
+     * 写入前失效文档缓存
+     *
+     * @param index 索引名称
+     * @param docId 文档ID
+     */
+    private void invalidateBeforeWrite(String index, String docId) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            documentCache.invalidate(index, docId);
+        }
+    }
+
+    /**
+     * 写入前失效批量请求涉及的文档缓存
+     *
+     * @param bulkRequest 批量请求
+     */
+    private void invalidateBeforeWrite(BulkRequest bulkRequest) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            for (DocWriteRequest request : bulkRequest.requests()) {
+                documentCache.invalidate(request.index(), request.id());
+            }
+        }
+    }
+
+    /**
+     * 写入成功后失效文档缓存, 并记录新的版本号
+     *
+     * @param response 写入响应
+     * @return 写入响应
+     */
+    private <T extends DocWriteResponse> T invalidateAfterWrite(T response) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            documentCache.invalidate(response);
+        }
+        return response;
+    }
+
+    /**
+     * 写入成功后失效批量请求涉及的文档缓存
+     *
+     * @param result 批量响应(含重试)
+     * @return 批量响应(含重试)
+     */
+    private BulkRetryResult invalidateAfterWrite(BulkRetryResult result) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            for (BulkItemResponse item : result.getResponse().getItems()) {
+                if (!item.isFailed()) {
+                    documentCache.invalidate(item.getResponse());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 失效整个索引的文档缓存
+     *
+     * @param index 索引名称
+     */
+    private void invalidateIndex(String index) {
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            documentCache.invalidateIndex(index);
+        }
+    }
+
+    private DeleteByQueryRequestBuilder getDeleteByQueryRequestBuilder(MultiDeleteAction deleteAction) {
+        return getDeleteByQueryRequestBuilder(client.getClient(), deleteAction);
+    }
+
+    private DeleteByQueryRequestBuilder getDeleteByQueryRequestBuilder(Client elasticClient,
+                                                                       MultiDeleteAction deleteAction) {
+        DeleteByQueryRequestBuilder requestBuilder = DeleteByQueryAction.INSTANCE
+                .newRequestBuilder(elasticClient)
+                .source(deleteAction.getIndex())
+                .filter(deleteAction.getQueryBuilder());
+
+        return applyByQueryOptions(requestBuilder, deleteAction.getSlices(), deleteAction.getRequestsPerSecond(),
+                deleteAction.getBatchSize());
+    }
+
+    private UpdateByQueryRequestBuilder getUpdateByQueryRequestBuilder(MultiUpdateAction updateAction) {
+        return getUpdateByQueryRequestBuilder(client.getClient(), updateAction);
+    }
+
+    private UpdateByQueryRequestBuilder getUpdateByQueryRequestBuilder(Client elasticClient,
+                                                                       MultiUpdateAction updateAction) {
+        UpdateByQueryRequestBuilder requestBuilder = UpdateByQueryAction.INSTANCE
+                .newRequestBuilder(elasticClient)
+                .source(updateAction.getIndex())
+                .script(updateAction.getScript())
+                .filter(updateAction.getQueryBuilder())
+                .abortOnVersionConflict(false);
+
+        return applyByQueryOptions(requestBuilder, updateAction.getSlices(), updateAction.getRequestsPerSecond(),
+                updateAction.getBatchSize());
+    }
+
+    /**
+     * 设置 切片数量、限速、每批数量
+     */
+    private static <B extends AbstractBulkByScrollRequestBuilder<?, B>> B applyByQueryOptions(
+            B requestBuilder, Integer slices, Float requestsPerSecond, Integer batchSize) {
+        if (Objects.nonNull(slices)) {
+            requestBuilder.setSlices(slices);
+        }
+        if (Objects.nonNull(requestsPerSecond)) {
+            requestBuilder.setRequestsPerSecond(requestsPerSecond > 0 ? requestsPerSecond : Float.POSITIVE_INFINITY);
+        }
+        if (Objects.nonNull(batchSize)) {
+            requestBuilder.source().setSize(batchSize);
+        }
+        return requestBuilder;
+    }
+
+    /**
+     * 组装批量请求
+     *
+     * @param requestBuilders ActionRequest(可变参数)
+     * @return BulkRequestBuilder
+     */
+    private BulkRequestBuilder getBulkRequestBuilder(ActionRequestBuilder... requestBuilders) {
         BulkRequestBuilder bulkRequestBuilder = client.getClient().prepareBulk();
 
         for (ActionRequestBuilder requestBuilder : requestBuilders) {
@@ -258,11 +835,21 @@ public class ElasticWriter {
             }
         }
 
-        BulkResponse bulkItemResponses = bulkRequestBuilder.get();
+        return bulkRequestBuilder;
+    }
+
+    /**
+     * 根据批量响应构建 BulkResult
+     *
+     * @param bulkRetryResult 批量响应(含重试)
+     * @return BulkResult Instance
+     */
+    private static BulkResult buildBulkResult(BulkRetryResult bulkRetryResult) {
+        BulkResponse bulkItemResponses = bulkRetryResult.getResponse();
         BulkItemResponse[] items = bulkItemResponses.getItems();
 
         // build result data
-        BulkResult result = new BulkResult();
+        BulkResult result = new BulkResult().setItemAttempts(bulkRetryResult.getAttempts());
         if (bulkItemResponses.hasFailures()) {
             result.setFailureMessage(bulkItemResponses.buildFailureMessage());
         }
@@ -300,4 +887,70 @@ public class ElasticWriter {
 
         return result;
     }
+
+    /**
+     * 根据批量响应构建 CompactBulkResult, 并逐条回调
+     *
+     * @param bulkRetryResult 批量响应(含重试)
+     * @param callback        逐条结果回调, 可为空
+     * @return CompactBulkResult Instance
+     */
+    private static CompactBulkResult buildCompactBulkResult(BulkRetryResult bulkRetryResult,
+                                                            BulkItemCallback callback) {
+        BulkItemResponse[] items = bulkRetryResult.getResponse().getItems();
+        int[] attempts = bulkRetryResult.getAttempts();
+        short[] statuses = new short[items.length];
+        BitSet failed = new BitSet(items.length);
+        String firstFailureMessage = null;
+
+        for (int i = 0; i < items.length; i++) {
+            BulkItemResponse item = items[i];
+            statuses[i] = (short) item.status().getStatus();
+            if (item.isFailed()) {
+                failed.set(i);
+                if (Objects.isNull(firstFailureMessage)) {
+                    firstFailureMessage = "[" + item.getId() + "]: " + item.getFailureMessage();
+                }
+            }
+            if (Objects.nonNull(callback)) {
+                try {
+                    callback.onItem(i, attempts[i], item);
+                } catch (Exception e) {
+                    log.warn("ElasticWriter: bulk item callback error", e);
+                }
+            }
+        }
+
+        int failureCount = failed.cardinality();
+        return new CompactBulkResult()
+                .setTotal(items.length)
+                .setSuccessCount(items.length - failureCount)
+                .setFailureCount(failureCount)
+                .setStatuses(statuses)
+                .setFailed(failed)
+                .setItemAttempts(attempts)
+                .setFirstFailureMessage(firstFailureMessage)
+                .setTookMillis(bulkRetryResult.getResponse().getTook().millis());
+    }
+
+    private static IndexResponse checkIndexResponse(IndexResponse response) {
+        OperaExceptionHandler.flagCheck(!RestStatus.CREATED.equals(response.status()),
+                ElasticMessage.OperaFailureMsg.INDEX_FAILURE);
+
+        return response;
+    }
+
+    private static DeleteResponse checkDeleteResponse(DeleteResponse response) {
+        OperaExceptionHandler.flagCheck(!RestStatus.OK.equals(response.status()),
+                ElasticMessage.OperaFailureMsg.DELETE_FAILURE);
+
+        return response;
+    }
+
+    private static UpdateResponse checkUpdateResponse(UpdateResponse response) {
+        OperaExceptionHandler.flagCheck(!RestStatus.OK.equals(response.status()),
+                ElasticMessage.OperaFailureMsg.UPDATE_FAILURE);
+
+        return response;
+    }
 }
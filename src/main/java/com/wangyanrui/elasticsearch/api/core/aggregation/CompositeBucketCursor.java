@@ -0,0 +1,183 @@
+package com.wangyanrui.elasticsearch.api.core.aggregation;
+
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Title: CompositeBucketCursor
+ * Description: 按 after_key 分页遍历 composite 聚合的桶
+ * <p>
+ * 每页只在协调节点上保留 pageSize 个桶; 一页返回后立即以其 after_key 请求下一页,
+ * 最多提前 prefetch 页, 调用方处理当前页时后续页已在传输中.
+ * {@link #getAfterKey()} 为最后一个已返回的桶的 key, 可用于断点续传
+ * <p>
+ * notification: 未遍历完时应 close, 以停止预取
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class CompositeBucketCursor implements Iterator<CompositeAggregation.Bucket>, Closeable {
+
+    private static final Page LAST_PAGE = new Page(Collections.emptyList(), null, true);
+
+    private final Function<Map<String, Object>, CompletableFuture<CompositeAggregation>> fetcher;
+
+    private final int pageSize;
+
+    private final int prefetch;
+
+    /**
+     * 已请求(或已排队)的页, 每页在前一页完成后才会发出请求
+     */
+    private final Deque<CompletableFuture<Page>> pages = new ArrayDeque<>();
+
+    private Iterator<? extends CompositeAggregation.Bucket> current = Collections.emptyIterator();
+
+    private Map<String, Object> afterKey;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param fetcher  after_key -> 该 key 之后的一页聚合结果(为null表示第一页)
+     * @param pageSize 每页桶数量
+     * @param prefetch 预取的页数
+     * @param after    起始的 after_key, 为null时从头开始
+     */
+    public CompositeBucketCursor(Function<Map<String, Object>, CompletableFuture<CompositeAggregation>> fetcher,
+                                 int pageSize, int prefetch, Map<String, Object> after) {
+        this.fetcher = fetcher;
+        this.pageSize = Math.max(1, pageSize);
+        this.prefetch = Math.max(0, prefetch);
+        this.afterKey = after;
+
+        pages.addLast(fetch(after));
+        fillPrefetch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (closed || pages.isEmpty()) {
+                return false;
+            }
+            Page page;
+            try {
+                page = ElasticFutures.join(pages.pollFirst());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (page.last) {
+                pages.clear();
+            } else {
+                fillPrefetch();
+            }
+            current = page.buckets.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public CompositeAggregation.Bucket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CompositeAggregation.Bucket bucket = current.next();
+        afterKey = bucket.getKey();
+        return bucket;
+    }
+
+    /**
+     * 最后一个已返回的桶的 key, 作为 after 可从下一个桶继续遍历
+     *
+     * @return after_key, 尚未返回任何桶时为起始的 after
+     */
+    public Map<String, Object> getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * 转换为惰性的 Stream, 关闭 Stream 时同时关闭游标
+     *
+     * @return Stream
+     */
+    public Stream<CompositeAggregation.Bucket> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 停止预取, 可重复调用; 已发出的请求会正常完成, 其后的页不再请求
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pages.clear();
+        current = Collections.emptyIterator();
+    }
+
+    /**
+     * 队列中保持 1 + prefetch 页
+     */
+    private void fillPrefetch() {
+        while (pages.size() < 1 + prefetch) {
+            pages.addLast(pages.peekLast().thenCompose(previous -> previous.last
+                    ? CompletableFuture.completedFuture(LAST_PAGE) : fetch(previous.afterKey)));
+        }
+    }
+
+    private CompletableFuture<Page> fetch(Map<String, Object> after) {
+        if (closed) {
+            return CompletableFuture.completedFuture(LAST_PAGE);
+        }
+        try {
+            return fetcher.apply(after).thenApply(this::toPage);
+        } catch (RuntimeException e) {
+            CompletableFuture<Page> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private Page toPage(CompositeAggregation aggregation) {
+        List<? extends CompositeAggregation.Bucket> buckets = aggregation.getBuckets();
+        if (buckets.isEmpty()) {
+            return LAST_PAGE;
+        }
+        Map<String, Object> nextAfter = aggregation.afterKey();
+        if (Objects.isNull(nextAfter)) {
+            nextAfter = buckets.get(buckets.size() - 1).getKey();
+        }
+        return new Page(buckets, nextAfter, buckets.size() < pageSize);
+    }
+
+    private static final class Page {
+        private final List<? extends CompositeAggregation.Bucket> buckets;
+        private final Map<String, Object> afterKey;
+        private final boolean last;
+
+        private Page(List<? extends CompositeAggregation.Bucket> buckets, Map<String, Object> afterKey,
+                     boolean last) {
+            this.buckets = buckets;
+            this.afterKey = afterKey;
+            this.last = last;
+        }
+    }
+}
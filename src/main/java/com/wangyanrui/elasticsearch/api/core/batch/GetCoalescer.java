@@ -0,0 +1,176 @@
+package com.wangyanrui.elasticsearch.api.core.batch;
+
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: GetCoalescer
+ * Description: 将并发的单文档 Get 合并为 MultiGet
+ * <p>
+ * 第一个请求到达后等待 windowMillis, 期间到达的请求合并为一个 MultiGet; 达到 maxBatchSize 时立即发送.
+ * 每个 MultiGetItemResponse 按位置返回给对应的调用方: 文档不存在时返回 isExists() 为 false 的 GetResponse,
+ * 单条失败时对应的 future 以该异常结束.
+ * <p>
+ * close 之后提交的请求不再合并, 直接发送(调用方可能仍持有已被替换的 GetCoalescer).
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class GetCoalescer implements Closeable {
+
+    private final ElasticClient client;
+
+    private final int maxBatchSize;
+
+    private final long windowMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            ElasticThreads.daemonThreadFactory("elastic-get-coalescer"));
+
+    private List<PendingGet> pending = new ArrayList<>();
+
+    private boolean flushScheduled = false;
+
+    private boolean closed = false;
+
+    /**
+     * @param client       ElasticClient
+     * @param maxBatchSize 单个 MultiGet 的最大文档数
+     * @param windowMillis 合并等待时间(毫秒)
+     */
+    public GetCoalescer(ElasticClient client, int maxBatchSize, long windowMillis) {
+        this.client = client;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 提交一个 Get 请求
+     *
+     * @param item 文档
+     * @return GetResponse 的 CompletableFuture(文档不存在时 isExists() 为 false)
+     */
+    public CompletableFuture<GetResponse> get(MultiGetRequest.Item item) {
+        PendingGet pendingGet = new PendingGet(item);
+        List<PendingGet> batch = null;
+
+        synchronized (this) {
+            if (closed) {
+                batch = Collections.singletonList(pendingGet);
+            } else {
+                pending.add(pendingGet);
+                if (pending.size() >= maxBatchSize) {
+                    batch = pending;
+                    pending = new ArrayList<>();
+                } else if (!flushScheduled) {
+                    batch = scheduleFlush();
+                }
+            }
+        }
+
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return pendingGet.future;
+    }
+
+    /**
+     * 发送已合并的请求, 并停止合并; 之后提交的请求直接发送
+     */
+    @Override
+    public void close() {
+        List<PendingGet> batch;
+        synchronized (this) {
+            closed = true;
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        scheduler.shutdownNow();
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * 在 windowMillis 后发送已合并的请求; 调度失败时不再等待, 返回需要立即发送的请求
+     *
+     * @return 需要立即发送的请求, 调度成功时为null
+     */
+    private List<PendingGet> scheduleFlush() {
+        try {
+            scheduler.schedule(this::flushScheduled, windowMillis, TimeUnit.MILLISECONDS);
+            flushScheduled = true;
+            return null;
+        } catch (RejectedExecutionException e) {
+            log.warn("GetCoalescer: schedule flush rejected, dispatch immediately", e);
+            List<PendingGet> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+    }
+
+    private void flushScheduled() {
+        List<PendingGet> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<PendingGet> batch) {
+        MultiGetRequestBuilder multiGetRequestBuilder = client.getClient().prepareMultiGet();
+        for (PendingGet pendingGet : batch) {
+            multiGetRequestBuilder.add(pendingGet.item);
+        }
+        log.debug("GetCoalescer: dispatch multiGet, size = " + batch.size());
+
+        ElasticFutures.execute(multiGetRequestBuilder).whenComplete((multiGetResponse, e) -> {
+            if (e != null) {
+                for (PendingGet pendingGet : batch) {
+                    pendingGet.future.completeExceptionally(e);
+                }
+                return;
+            }
+
+            MultiGetItemResponse[] responses = multiGetResponse.getResponses();
+            for (int i = 0; i < batch.size(); i++) {
+                MultiGetItemResponse response = responses[i];
+                if (response.isFailed()) {
+                    batch.get(i).future.completeExceptionally(response.getFailure().getFailure());
+                } else {
+                    batch.get(i).future.complete(response.getResponse());
+                }
+            }
+        });
+    }
+
+    private static final class PendingGet {
+        private final MultiGetRequest.Item item;
+        private final CompletableFuture<GetResponse> future = new CompletableFuture<>();
+
+        private PendingGet(MultiGetRequest.Item item) {
+            this.item = item;
+        }
+    }
+}
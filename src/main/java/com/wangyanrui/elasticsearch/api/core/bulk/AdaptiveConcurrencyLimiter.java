@@ -0,0 +1,265 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkConcurrencyPolicy;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Title: AdaptiveConcurrencyLimiter
+ * Description: 批量请求的自适应并发控制(AIMD)
+ * <p>
+ * 执行中的批量请求达到并发上限时, 新请求按先后顺序排队; 每个请求完成后按其耗时和被拒绝(429)条目的比例调整上限,
+ * 见 {@link BulkConcurrencyPolicy}. 当前上限、执行中数量、排队数量以瞬时值上报到 client 的指标收集
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final String BULK = ElasticConstant.Metrics.BULK;
+
+    private final ElasticClient client;
+
+    private final BulkConcurrencyPolicy policy;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight = 0;
+
+    public AdaptiveConcurrencyLimiter(ElasticClient client, BulkConcurrencyPolicy policy) {
+        this.client = client;
+        this.policy = policy;
+        this.minLimit = Math.max(1, policy.getMinLimit());
+        this.maxLimit = Math.max(minLimit, policy.getMaxLimit());
+        this.limit = Math.min(maxLimit, Math.max(minLimit, policy.getInitialLimit()));
+    }
+
+    /**
+     * 申请执行名额, 不阻塞; 达到并发上限时排队
+     *
+     * @return 获得名额时完成的 CompletableFuture, 获得名额后必须调用一次 onComplete/onFailure/release
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        boolean granted;
+        synchronized (this) {
+            granted = waiters.isEmpty() && inFlight < currentLimit();
+            if (granted) {
+                inFlight++;
+            } else {
+                waiters.addLast(future);
+            }
+        }
+        reportGauges();
+        if (granted) {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * 申请执行名额, 达到并发上限时阻塞等待
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    public void acquire() throws InterruptedException {
+        CompletableFuture<Void> future = acquireAsync();
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            if (!future.cancel(false)) {
+                // 中断的同时已获得名额, 归还
+                release();
+            } else {
+                synchronized (this) {
+                    waiters.remove(future);
+                }
+                reportGauges();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 申请名额(排队, 不阻塞)后执行批量请求, 完成时归还名额并调整并发上限
+     *
+     * @param call 执行批量请求
+     * @return 批量响应(含重试) 的 CompletableFuture
+     */
+    public CompletableFuture<BulkRetryResult> submit(Supplier<CompletableFuture<BulkRetryResult>> call) {
+        return acquireAsync().thenCompose(ignore -> executeAcquired(call));
+    }
+
+    /**
+     * 已获得名额(见 {@link #acquire()})后执行批量请求, 完成时归还名额并调整并发上限
+     *
+     * @param call 执行批量请求
+     * @return 批量响应(含重试) 的 CompletableFuture
+     */
+    public CompletableFuture<BulkRetryResult> executeAcquired(Supplier<CompletableFuture<BulkRetryResult>> call) {
+        final long startNanos = System.nanoTime();
+        CompletableFuture<BulkRetryResult> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onFailure(e);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> {
+            if (Objects.isNull(e)) {
+                onComplete(System.nanoTime() - startNanos, result.getResponse().getItems(), result.getAttempts());
+            } else {
+                onFailure(ElasticFutures.unwrap(e));
+            }
+        });
+    }
+
+    /**
+     * 批量请求完成: 归还名额并根据结果调整并发上限
+     *
+     * @param latencyNanos 耗时(纳秒, 含重试)
+     * @param items        每个条目的最终结果
+     * @param attempts     每个条目的尝试次数, 可以为空
+     */
+    public void onComplete(long latencyNanos, BulkItemResponse[] items, int[] attempts) {
+        int rejected = 0;
+        for (int i = 0; i < items.length; i++) {
+            boolean retried = Objects.nonNull(attempts) && attempts[i] > 1;
+            if (retried || (items[i].isFailed()
+                    && RestStatus.TOO_MANY_REQUESTS.equals(items[i].getFailure().getStatus()))) {
+                rejected++;
+            }
+        }
+        boolean congested = (items.length > 0 && (double) rejected / items.length > policy.getRejectionRateThreshold())
+                || (policy.getLatencyThresholdMillis() > 0
+                && latencyNanos > TimeUnit.MILLISECONDS.toNanos(policy.getLatencyThresholdMillis()));
+        releaseAndAdjust(congested ? -1 : 1);
+    }
+
+    /**
+     * 批量请求失败: 归还名额, 整体被拒绝(429)时视为拥塞, 其他失败不调整并发上限
+     *
+     * @param e 失败原因
+     */
+    public void onFailure(Throwable e) {
+        releaseAndAdjust(RestStatus.TOO_MANY_REQUESTS.equals(ExceptionsHelper.status(e)) ? -1 : 0);
+    }
+
+    /**
+     * 归还名额, 不调整并发上限(如请求未发送)
+     */
+    public void release() {
+        releaseAndAdjust(0);
+    }
+
+    /**
+     * 当前并发上限
+     *
+     * @return 并发上限
+     */
+    public synchronized int getLimit() {
+        return currentLimit();
+    }
+
+    /**
+     * 执行中的批量请求数量
+     *
+     * @return 数量
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 排队等待执行的批量请求数量
+     *
+     * @return 数量
+     */
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public BulkConcurrencyPolicy getPolicy() {
+        return policy;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @param signal 小于0: 拥塞, 乘性减小; 大于0: 正常, 加性增大; 等于0: 不调整
+     */
+    private void releaseAndAdjust(int signal) {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            if (signal < 0) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * policy.getBackoffRatio());
+                if ((int) previous != (int) limit) {
+                    log.debug("AdaptiveConcurrencyLimiter: congestion, limit " + (int) previous + " -> " + (int) limit);
+                }
+            } else if (signal > 0 && inFlight * 2 >= currentLimit()) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            inFlight--;
+            while (!waiters.isEmpty() && inFlight < currentLimit()) {
+                granted.add(waiters.pollFirst());
+                inFlight++;
+            }
+        }
+        reportGauges();
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                // 等待方已取消
+                release();
+            }
+        }
+    }
+
+    private void reportGauges() {
+        MetricsRegistry metrics = client.getMetricsRegistry();
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        int currentLimit;
+        int currentInFlight;
+        int queueDepth;
+        synchronized (this) {
+            currentLimit = currentLimit();
+            currentInFlight = inFlight;
+            queueDepth = waiters.size();
+        }
+        metrics.recordGauge(BULK, ElasticConstant.Metrics.GAUGE_CONCURRENCY_LIMIT, currentLimit);
+        metrics.recordGauge(BULK, ElasticConstant.Metrics.GAUGE_IN_FLIGHT, currentInFlight);
+        metrics.recordGauge(BULK, ElasticConstant.Metrics.GAUGE_QUEUE_DEPTH, queueDepth);
+    }
+}
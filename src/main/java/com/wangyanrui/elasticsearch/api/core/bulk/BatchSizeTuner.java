@@ -0,0 +1,115 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkBatchTuningPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Title: BatchSizeTuner
+ * Description: 按目标耗时自动调整批次字节数
+ * <p>
+ * 以字节数而不是请求数量为批次大小, 文档大小不同的索引会收敛到不同的请求数量; 调整方式见 {@link BulkBatchTuningPolicy}
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class BatchSizeTuner {
+
+    private final BulkBatchTuningPolicy policy;
+
+    private final long minSizeBytes;
+
+    private final long maxSizeBytes;
+
+    private final long targetLatencyNanos;
+
+    private volatile long batchSizeBytes;
+
+    public BatchSizeTuner(BulkBatchTuningPolicy policy) {
+        this.policy = policy;
+        this.minSizeBytes = Math.max(1, policy.getMinSizeBytes());
+        this.maxSizeBytes = Math.max(minSizeBytes, policy.getMaxSizeBytes());
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, policy.getTargetLatencyMillis()));
+        this.batchSizeBytes = clamp(policy.getInitialSizeBytes());
+    }
+
+    /**
+     * 当前的批次字节数
+     *
+     * @return 字节数
+     */
+    public long getBatchSizeBytes() {
+        return batchSizeBytes;
+    }
+
+    public BulkBatchTuningPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 执行批量请求并采样
+     *
+     * @param bytes 批量请求的字节数
+     * @param call  执行批量请求
+     * @return 批量响应(含重试) 的 CompletableFuture
+     */
+    public CompletableFuture<BulkRetryResult> track(long bytes, Supplier<CompletableFuture<BulkRetryResult>> call) {
+        final long startNanos = System.nanoTime();
+        return call.get().whenComplete((result, e) -> {
+            if (Objects.isNull(e)) {
+                observe(bytes, System.nanoTime() - startNanos, result);
+            }
+        });
+    }
+
+    /**
+     * 采样一次批量请求
+     *
+     * @param bytes        批量请求的字节数
+     * @param latencyNanos 耗时(纳秒, 含重试)
+     * @param result       结果
+     */
+    public synchronized void observe(long bytes, long latencyNanos, BulkRetryResult result) {
+        if (bytes <= 0 || latencyNanos <= 0) {
+            return;
+        }
+        long current = batchSizeBytes;
+        long next;
+        if (isRejected(result)) {
+            next = clamp(current / 2);
+        } else {
+            // 以本次的 字节数/耗时 估算目标耗时对应的字节数, 单次最多放大或缩小一倍
+            double ideal = (double) bytes * targetLatencyNanos / latencyNanos;
+            ideal = Math.min(current * 2.0, Math.max(current / 2.0, ideal));
+            next = clamp((long) (current + policy.getSmoothing() * (ideal - current)));
+        }
+        if (next != current) {
+            batchSizeBytes = next;
+            log.debug("BatchSizeTuner: bytes = " + bytes + ", latency = " + TimeUnit.NANOSECONDS.toMillis(latencyNanos)
+                    + "ms, batchSizeBytes " + current + " -> " + next);
+        }
+    }
+
+    private static boolean isRejected(BulkRetryResult result) {
+        int[] attempts = result.getAttempts();
+        BulkItemResponse[] items = result.getResponse().getItems();
+        for (int i = 0; i < items.length; i++) {
+            if ((Objects.nonNull(attempts) && attempts[i] > 1) || (items[i].isFailed()
+                    && RestStatus.TOO_MANY_REQUESTS.equals(items[i].getFailure().getStatus()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long clamp(long sizeBytes) {
+        return Math.min(maxSizeBytes, Math.max(minSizeBytes, sizeBytes));
+    }
+}
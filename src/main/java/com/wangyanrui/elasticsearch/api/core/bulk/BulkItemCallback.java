@@ -0,0 +1,25 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+
+/**
+ * Title: BulkItemCallback
+ * Description: 批量请求的逐条结果回调
+ * <p>
+ * notification: 回调在 transport 响应线程中执行, 不要在其中做阻塞操作; 不要持有 response 的引用
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface BulkItemCallback {
+
+    /**
+     * 单条请求的最终结果(成功或失败均会回调, 通过 {@link BulkItemResponse#isFailed()} 区分)
+     *
+     * @param position 条目在请求中的下标
+     * @param attempt  最终结果所在的尝试次数(1 表示首次发送即完成)
+     * @param response 单条响应
+     */
+    void onItem(int position, int attempt, BulkItemResponse response);
+}
@@ -0,0 +1,221 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.ElasticAdmin;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.BulkLoadAction;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.common.settings.Settings;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Title: BulkLoadSession
+ * Description: 批量导入会话
+ * <p>
+ * 开启时记录索引的原始 setting, 并切换为适合导入的 setting: 关闭刷新、副本数量为0、translog 异步持久化.
+ * 结束时依次: 恢复除副本数量外的 setting, 刷新, 段合并(可选), 恢复副本数量, 等待副本恢复(green).
+ * 副本在段合并之后才恢复, 副本直接复制合并后的段, 不用在每个副本上重复合并.
+ * 前面的步骤失败时仍会恢复副本数量(各索引分别恢复, 互不影响), 之后抛出第一个异常.
+ * <p>
+ * notification: 导入期间写入的文档不可被搜索, 节点宕机会丢失未持久化的 translog 且没有副本;
+ * 使用完毕后必须 finish/close, 否则索引一直保持导入时的 setting
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class BulkLoadSession implements Closeable {
+
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    private static final String AUTO_EXPAND_REPLICAS = "index.auto_expand_replicas";
+
+    private static final String TRANSLOG_DURABILITY = "index.translog.durability";
+
+    private final ElasticAdmin admin;
+
+    private final BulkLoadAction action;
+
+    /**
+     * 索引名称 -> 修改前的 setting(值为null表示原先未设置, 恢复为默认值)
+     */
+    private final Map<String, Map<String, String>> originals = new LinkedHashMap<>();
+
+    private volatile boolean closed = false;
+
+    public BulkLoadSession(ElasticAdmin admin, BulkLoadAction action) {
+        this.admin = admin;
+        this.action = action;
+    }
+
+    /**
+     * 记录原始 setting 并切换为导入时的 setting; 某个索引修改失败时, 恢复已修改的索引
+     *
+     * @return this
+     */
+    public synchronized BulkLoadSession open() {
+        GetSettingsResponse response = admin.getSetting(action.getIndex());
+        Iterator<String> indices = response.getIndexToSettings().keysIt();
+        OperaExceptionHandler.flagCheck(!indices.hasNext(),
+                ElasticMessage.AdminFailureMsg.INDEX_NOT_FOUND + action.getIndex());
+
+        try {
+            while (indices.hasNext()) {
+                String index = indices.next();
+                Settings current = response.getIndexToSettings().get(index);
+                Settings.Builder ingest = Settings.builder();
+                Map<String, String> original = new LinkedHashMap<>();
+                if (action.isDisableRefresh()) {
+                    original.put(REFRESH_INTERVAL, current.get(REFRESH_INTERVAL));
+                    ingest.put(REFRESH_INTERVAL, ElasticConstant.BulkLoad.REFRESH_INTERVAL);
+                }
+                if (Objects.nonNull(action.getNumberOfReplicas())) {
+                    // auto_expand_replicas 会覆盖 number_of_replicas, 导入期间关闭
+                    original.put(AUTO_EXPAND_REPLICAS, current.get(AUTO_EXPAND_REPLICAS));
+                    original.put(NUMBER_OF_REPLICAS, current.get(NUMBER_OF_REPLICAS));
+                    ingest.put(AUTO_EXPAND_REPLICAS, false);
+                    ingest.put(NUMBER_OF_REPLICAS, action.getNumberOfReplicas());
+                }
+                if (action.isAsyncTranslog()) {
+                    original.put(TRANSLOG_DURABILITY, current.get(TRANSLOG_DURABILITY));
+                    ingest.put(TRANSLOG_DURABILITY, ElasticConstant.BulkLoad.TRANSLOG_DURABILITY);
+                }
+                if (original.isEmpty()) {
+                    continue;
+                }
+                originals.put(index, original);
+                admin.updateSetting(index, ingest.build());
+                log.debug("BulkLoadSession: [" + index + "] switched to bulk load settings, original = " + original);
+            }
+        } catch (RuntimeException e) {
+            log.warn("BulkLoadSession: open failure, restoring settings", e);
+            closed = true;
+            RuntimeException failure = restoreQuietly(e, false);
+            throw restoreQuietly(failure, true);
+        }
+        return this;
+    }
+
+    /**
+     * 结束导入: 恢复 setting, 刷新, 段合并(可选), 等待副本恢复.
+     * 恢复 setting、刷新或段合并失败时, 仍会恢复副本数量, 然后抛出异常
+     *
+     * @return 是否在等待时间内恢复为 green(不等待时返回true)
+     */
+    public synchronized boolean finish() {
+        OperaExceptionHandler.flagCheck(closed, ElasticMessage.AdminFailureMsg.BULK_LOAD_SESSION_CLOSED);
+        closed = true;
+
+        RuntimeException failure = null;
+        try {
+            restore(false);
+            admin.refresh(action.getIndex());
+            if (action.getMaxNumSegments() > 0) {
+                log.debug("BulkLoadSession: [" + action.getIndex() + "] force merge, maxNumSegments = "
+                        + action.getMaxNumSegments());
+                admin.forceMerge(action.getIndex(), action.getMaxNumSegments());
+            }
+        } catch (RuntimeException e) {
+            log.warn("BulkLoadSession: finish failure, restoring replicas", e);
+            failure = e;
+        }
+        failure = restoreQuietly(failure, true);
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+
+        if (action.getWaitForGreenTimeoutMillis() <= 0) {
+            return true;
+        }
+        boolean green = admin.waitForGreen(action.getIndex(), action.getWaitForGreenTimeoutMillis());
+        if (!green) {
+            log.warn("BulkLoadSession: [" + action.getIndex() + "] not green after "
+                    + action.getWaitForGreenTimeoutMillis() + "ms");
+        }
+        return green;
+    }
+
+    /**
+     * 结束导入, 已结束时忽略
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            finish();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 恢复 setting, 异常记录到 failure 中
+     *
+     * @param failure  之前的异常, 可为null
+     * @param replicas 见 {@link #restore(boolean)}
+     * @return 第一个异常(其后的异常为 suppressed), 都成功时为null
+     */
+    private RuntimeException restoreQuietly(RuntimeException failure, boolean replicas) {
+        try {
+            restore(replicas);
+        } catch (RuntimeException e) {
+            if (Objects.isNull(failure)) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    /**
+     * 恢复 setting; 每个索引都会尝试, 之后抛出第一个异常
+     *
+     * @param replicas true: 只恢复副本相关的 setting; false: 只恢复其他 setting
+     */
+    private void restore(boolean replicas) {
+        RuntimeException failure = null;
+        for (Map.Entry<String, Map<String, String>> entry : originals.entrySet()) {
+            Settings.Builder builder = Settings.builder();
+            for (Map.Entry<String, String> original : entry.getValue().entrySet()) {
+                boolean isReplicas = NUMBER_OF_REPLICAS.equals(original.getKey())
+                        || AUTO_EXPAND_REPLICAS.equals(original.getKey());
+                if (isReplicas != replicas) {
+                    continue;
+                }
+                if (Objects.isNull(original.getValue())) {
+                    builder.putNull(original.getKey());
+                } else {
+                    builder.put(original.getKey(), original.getValue());
+                }
+            }
+            Settings settings = builder.build();
+            if (settings.isEmpty()) {
+                continue;
+            }
+            try {
+                admin.updateSetting(entry.getKey(), settings);
+                log.debug("BulkLoadSession: [" + entry.getKey() + "] restored " + settings);
+            } catch (RuntimeException e) {
+                log.warn("BulkLoadSession: [" + entry.getKey() + "] restore " + settings + " failure", e);
+                if (Objects.isNull(failure)) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkRetryPolicy;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: BulkRetryExecutor
+ * Description: 带选择性重试的批量请求执行
+ * <p>
+ * 写入线程池饱和时, 部分条目会以 429(EsRejectedExecutionException) 失败.
+ * 只把这些条目组成新的批量请求, 按指数退避 + 随机抖动重发, 直到成功、达到最大重试次数或重试预算用尽;
+ * 其他失败(版本冲突、mapping 错误等)不重试.
+ * <p>
+ * notification: 首次发送整体失败且不是 429 时以异常结束; 重试整体失败时, 这些条目记录为失败, 已完成的条目保留
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class BulkRetryExecutor {
+
+    /**
+     * 只用于延迟重发, 发送本身是异步的, 不会阻塞该线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            ElasticThreads.daemonThreadFactory("elastic-bulk-retry"));
+
+    private final ElasticClient client;
+
+    private final BulkRetryPolicy policy;
+
+    private final RetryBudget budget;
+
+    public BulkRetryExecutor(ElasticClient client, BulkRetryPolicy policy) {
+        this.client = client;
+        this.policy = policy;
+        this.budget = new RetryBudget(policy.getBudgetRatio(), policy.getBudgetCapacity());
+    }
+
+    /**
+     * 执行批量请求, 被拒绝的条目按策略重试
+     *
+     * @param bulkRequest 批量请求
+     * @return 合并后的结果 的 CompletableFuture
+     */
+    public CompletableFuture<BulkRetryResult> execute(BulkRequest bulkRequest) {
+        budget.deposit(bulkRequest.numberOfActions());
+
+        Execution execution = new Execution(bulkRequest);
+        execution.send(1, null);
+        return execution.future;
+    }
+
+    public BulkRetryPolicy getPolicy() {
+        return policy;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    private static boolean isRejected(BulkItemResponse item) {
+        return item.isFailed() && RestStatus.TOO_MANY_REQUESTS.equals(item.getFailure().getStatus());
+    }
+
+    private static boolean isRejected(Throwable e) {
+        return RestStatus.TOO_MANY_REQUESTS.equals(ExceptionsHelper.status(e));
+    }
+
+    /**
+     * 一次批量请求(含重试)的执行状态
+     */
+    private final class Execution {
+        private final BulkRequest original;
+        private final List<DocWriteRequest> requests;
+        private final BulkItemResponse[] items;
+        private final int[] attempts;
+        private final CompletableFuture<BulkRetryResult> future = new CompletableFuture<>();
+        private long tookMillis = 0;
+
+        private Execution(BulkRequest original) {
+            this.original = original;
+            this.requests = original.requests();
+            this.items = new BulkItemResponse[requests.size()];
+            this.attempts = new int[requests.size()];
+        }
+
+        /**
+         * 发送一次
+         *
+         * @param attempt   第几次尝试(从1开始)
+         * @param positions 本次发送的条目在原始请求中的下标, 为null表示首次发送全部条目
+         */
+        private void send(int attempt, int[] positions) {
+            BulkRequest request = Objects.isNull(positions) ? original : buildRetryRequest(positions);
+            try {
+                client.getClient().bulk(request, new ActionListener<BulkResponse>() {
+                    @Override
+                    public void onResponse(BulkResponse response) {
+                        handleResponse(attempt, positions, response);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        handleFailure(attempt, positions, e);
+                    }
+                });
+            } catch (Exception e) {
+                handleFailure(attempt, positions, e);
+            }
+        }
+
+        private void handleResponse(int attempt, int[] positions, BulkResponse response) {
+            tookMillis += response.getTook().millis();
+
+            List<Integer> rejected = new ArrayList<>();
+            for (BulkItemResponse item : response.getItems()) {
+                int position = Objects.isNull(positions) ? item.getItemId() : positions[item.getItemId()];
+                items[position] = Objects.isNull(positions) ? item : BulkRetryResult.withItemId(position, item);
+                attempts[position] = attempt;
+                if (isRejected(item)) {
+                    rejected.add(position);
+                }
+            }
+            retryOrComplete(attempt, rejected);
+        }
+
+        private void handleFailure(int attempt, int[] positions, Exception e) {
+            if (Objects.isNull(positions) && !isRejected(e)) {
+                future.completeExceptionally(e);
+                return;
+            }
+
+            List<Integer> rejected = new ArrayList<>();
+            int count = Objects.isNull(positions) ? requests.size() : positions.length;
+            for (int i = 0; i < count; i++) {
+                int position = Objects.isNull(positions) ? i : positions[i];
+                DocWriteRequest request = requests.get(position);
+                items[position] = new BulkItemResponse(position, request.opType(),
+                        new BulkItemResponse.Failure(request.index(), request.type(), request.id(), e));
+                attempts[position] = attempt;
+                rejected.add(position);
+            }
+            if (isRejected(e)) {
+                retryOrComplete(attempt, rejected);
+            } else {
+                log.warn("BulkRetryExecutor: retry bulk request failure", e);
+                complete();
+            }
+        }
+
+        private void retryOrComplete(int attempt, List<Integer> rejected) {
+            if (rejected.isEmpty() || attempt > policy.getMaxRetries()) {
+                complete();
+                return;
+            }
+            int granted = budget.tryAcquire(rejected.size());
+            if (granted < rejected.size()) {
+                log.warn("BulkRetryExecutor: retry budget exhausted, " + (rejected.size() - granted)
+                        + " rejected item(s) will not be retried");
+            }
+            if (granted == 0) {
+                complete();
+                return;
+            }
+
+            final int[] positions = new int[granted];
+            for (int i = 0; i < granted; i++) {
+                positions[i] = rejected.get(i);
+            }
+            long backoffMillis = backoffMillis(attempt);
+            log.debug("BulkRetryExecutor: retry " + granted + " rejected item(s), attempt = " + (attempt + 1)
+                    + ", backoff = " + backoffMillis + "ms");
+            try {
+                SCHEDULER.schedule(() -> send(attempt + 1, positions), backoffMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                complete();
+            }
+        }
+
+        /**
+         * 第 attempt 次尝试之后的退避时间: full jitter
+         */
+        private long backoffMillis(int attempt) {
+            long ceiling = policy.getInitialBackoffMillis() << Math.min(attempt - 1, 30);
+            if (ceiling <= 0 || ceiling > policy.getMaxBackoffMillis()) {
+                ceiling = policy.getMaxBackoffMillis();
+            }
+            return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        }
+
+        private BulkRequest buildRetryRequest(int[] positions) {
+            BulkRequest request = new BulkRequest();
+            for (int position : positions) {
+                request.add(requests.get(position));
+            }
+            request.timeout(original.timeout());
+            request.waitForActiveShards(original.waitForActiveShards());
+            request.setRefreshPolicy(original.getRefreshPolicy());
+            return request;
+        }
+
+        private void complete() {
+            future.complete(new BulkRetryResult(new BulkResponse(items, tookMillis), attempts));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+import java.util.List;
+
+/**
+ * Title: BulkRetryResult
+ * Description: 带重试的批量请求结果
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Getter
+@AllArgsConstructor
+public class BulkRetryResult {
+    /**
+     * 合并后的批量响应, 条目顺序与 itemId 均与原始请求一致
+     */
+    private final BulkResponse response;
+    /**
+     * 每个条目最终结果所在的尝试次数(1 表示首次发送即完成), 下标与原始请求一致
+     */
+    private final int[] attempts;
+
+    /**
+     * 按顺序合并多个批次的结果, 条目的 itemId 依次编号; took 取各批次的最大值(批次并发执行)
+     *
+     * @param results 各批次的结果
+     * @return 合并后的结果
+     */
+    public static BulkRetryResult merge(List<BulkRetryResult> results) {
+        int count = 0;
+        long tookMillis = 0;
+        for (BulkRetryResult result : results) {
+            count += result.getResponse().getItems().length;
+            tookMillis = Math.max(tookMillis, result.getResponse().getTook().millis());
+        }
+        BulkItemResponse[] items = new BulkItemResponse[count];
+        int[] attempts = new int[count];
+        int offset = 0;
+        for (BulkRetryResult result : results) {
+            BulkItemResponse[] batchItems = result.getResponse().getItems();
+            for (int i = 0; i < batchItems.length; i++) {
+                items[offset + i] = withItemId(offset + i, batchItems[i]);
+                attempts[offset + i] = result.getAttempts()[i];
+            }
+            offset += batchItems.length;
+        }
+        return new BulkRetryResult(new BulkResponse(items, tookMillis), attempts);
+    }
+
+    /**
+     * 以新的 itemId 复制条目结果
+     */
+    static BulkItemResponse withItemId(int itemId, BulkItemResponse item) {
+        if (item.getItemId() == itemId) {
+            return item;
+        }
+        return item.isFailed()
+                ? new BulkItemResponse(itemId, item.getOpType(), item.getFailure())
+                : new BulkItemResponse(itemId, item.getOpType(), item.getResponse());
+    }
+}
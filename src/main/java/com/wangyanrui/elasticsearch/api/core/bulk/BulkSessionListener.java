@@ -0,0 +1,32 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+
+/**
+ * Title: BulkSessionListener
+ * Description: 批量写入会话的单条结果回调
+ * <p>
+ * notification: 回调在 transport 响应线程中执行, 不要在其中做阻塞操作
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface BulkSessionListener {
+
+    /**
+     * 单条请求得到响应(成功或失败均会回调, 通过 {@link BulkItemResponse#isFailed()} 区分)
+     *
+     * @param request  原始请求
+     * @param response 单条响应
+     */
+    void onResponse(DocWriteRequest<?> request, BulkItemResponse response);
+
+    /**
+     * 整个批量请求执行失败, 批次内每条请求都会回调一次
+     *
+     * @param request 原始请求
+     * @param cause   失败原因
+     */
+    void onFailure(DocWriteRequest<?> request, Throwable cause);
+}
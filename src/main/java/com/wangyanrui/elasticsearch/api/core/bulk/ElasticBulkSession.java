@@ -0,0 +1,333 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.ElasticWriter;
+import com.wangyanrui.elasticsearch.api.core.cache.DocumentCache;
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.metrics.ElasticMetrics;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkSessionConfig;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.DeleteAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.IndexAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.UpdateAction;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: ElasticBulkSession
+ * Description: 长期存活的批量写入会话
+ * <p>
+ * 逐条接收 索引/更新/删除 请求, 按 请求数量、字节数、时间间隔 自动刷新为批量请求,
+ * 并允许多个批量请求同时执行. 被拒绝(429)的条目按 {@link BulkRetryExecutor} 的策略重试,
+ * 重试完成前该批次一直占用并发名额. 每条请求的最终结果通过 {@link BulkSessionListener} 回调.
+ * <p>
+ * 所属 ElasticWriter 开启自适应并发控制时, 同时执行的批量请求数量由 {@link AdaptiveConcurrencyLimiter} 决定
+ * (concurrentRequests 不再限制), 达到上限时 add/flush 阻塞等待.
+ * 配置了 batchTuning 时, 刷新的字节数按批量请求的耗时自动调整, 见 {@link BatchSizeTuner}.
+ * <p>
+ * notification: 使用完毕后必须 close, 否则缓冲中的数据不会被写入
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class ElasticBulkSession implements Closeable {
+
+    private final ElasticWriter writer;
+
+    private final ElasticClient client;
+
+    private final BulkRetryExecutor retryExecutor;
+
+    private final BulkSessionConfig config;
+
+    private final BulkSessionListener listener;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final BatchSizeTuner tuner;
+
+    private final Semaphore semaphore;
+
+    private final int concurrentRequests;
+
+    private final ScheduledExecutorService scheduler;
+
+    private BulkRequest bulkRequest = new BulkRequest();
+
+    private volatile boolean closed = false;
+
+    public ElasticBulkSession(ElasticWriter writer, ElasticClient client, BulkRetryExecutor retryExecutor,
+                              BulkSessionConfig config, BulkSessionListener listener) {
+        this.writer = writer;
+        this.client = client;
+        this.retryExecutor = retryExecutor;
+        this.config = config;
+        this.listener = listener;
+        this.limiter = writer.getBulkConcurrencyLimiter();
+        this.tuner = Objects.nonNull(config.getBatchTuning()) ? new BatchSizeTuner(config.getBatchTuning()) : null;
+        // 开启自适应并发时, semaphore 只用于 close 时等待执行中的请求
+        this.concurrentRequests = Objects.nonNull(limiter)
+                ? Math.max(limiter.getMaxLimit(), config.getConcurrentRequests())
+                : Math.max(1, config.getConcurrentRequests());
+        this.semaphore = new Semaphore(concurrentRequests);
+
+        if (config.getFlushIntervalMillis() > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    ElasticThreads.daemonThreadFactory("elastic-bulk-session-flush"));
+            this.scheduler.scheduleWithFixedDelay(this::flushIfNecessary,
+                    config.getFlushIntervalMillis(), config.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 添加索引请求
+     *
+     * @param indexAction 索引内容封装成的对象
+     * @return this
+     */
+    public ElasticBulkSession add(IndexAction indexAction) {
+        return add(writer.getIndexRequestBuilder(indexAction).request());
+    }
+
+    /**
+     * 添加更新请求
+     *
+     * @param updateAction 更新内容封装成的对象
+     * @return this
+     */
+    public ElasticBulkSession add(UpdateAction updateAction) {
+        return add(writer.getUpdateRequestBuilder(updateAction).request());
+    }
+
+    /**
+     * 添加删除请求
+     *
+     * @param deleteAction 删除的条件封装成的对象
+     * @return this
+     */
+    public ElasticBulkSession add(DeleteAction deleteAction) {
+        return add(writer.getDeleteRequestBuilder(deleteAction).request());
+    }
+
+    /**
+     * 添加原生请求
+     *
+     * @param request IndexRequest/UpdateRequest/DeleteRequest
+     * @return this
+     */
+    public synchronized ElasticBulkSession add(DocWriteRequest<?> request) {
+        OperaExceptionHandler.flagCheck(closed, ElasticMessage.OperaErrorMsg.BULK_SESSION_CLOSED);
+
+        DocumentCache documentCache = client.getDocumentCache();
+        if (Objects.nonNull(documentCache)) {
+            documentCache.invalidate(request.index(), request.id());
+        }
+        bulkRequest.add(request);
+        if (isOverTheLimit()) {
+            execute();
+        }
+        return this;
+    }
+
+    /**
+     * 立即刷新缓冲中的请求(不等待执行完成)
+     */
+    public synchronized void flush() {
+        OperaExceptionHandler.flagCheck(closed, ElasticMessage.OperaErrorMsg.BULK_SESSION_CLOSED);
+
+        if (bulkRequest.numberOfActions() > 0) {
+            execute();
+        }
+    }
+
+    /**
+     * 关闭会话: 刷新缓冲中的请求, 并等待所有执行中的批量请求完成
+     *
+     * @param timeout 等待时间
+     * @param unit    时间单位
+     * @return 所有请求是否在等待时间内完成
+     * @throws InterruptedException 等待时被中断
+     */
+    public synchronized boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            return true;
+        }
+        closed = true;
+
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdown();
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+            execute();
+        }
+
+        if (semaphore.tryAcquire(concurrentRequests, timeout, unit)) {
+            semaphore.release(concurrentRequests);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 关闭会话, 一直等待到所有请求完成
+     */
+    @Override
+    public void close() {
+        try {
+            awaitClose(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 批次字节数自动调整, 可获取当前批次字节数
+     *
+     * @return BatchSizeTuner, 未开启时返回null
+     */
+    public BatchSizeTuner getBatchSizeTuner() {
+        return tuner;
+    }
+
+    private synchronized void flushIfNecessary() {
+        if (!closed && bulkRequest.numberOfActions() > 0) {
+            execute();
+        }
+    }
+
+    private boolean isOverTheLimit() {
+        if (Objects.nonNull(tuner)) {
+            return bulkRequest.estimatedSizeInBytes() >= tuner.getBatchSizeBytes();
+        }
+        return (config.getBulkActions() > 0 && bulkRequest.numberOfActions() >= config.getBulkActions())
+                || (config.getBulkSizeBytes() > 0 && bulkRequest.estimatedSizeInBytes() >= config.getBulkSizeBytes());
+    }
+
+    /**
+     * 发送当前缓冲的批量请求, 执行中的请求达到上限时阻塞等待
+     */
+    private void execute() {
+        final BulkRequest request = this.bulkRequest;
+        this.bulkRequest = new BulkRequest();
+
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            notifyFailure(request, e);
+            return;
+        }
+        if (Objects.nonNull(limiter)) {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                semaphore.release();
+                notifyFailure(request, e);
+                return;
+            }
+        }
+
+        log.debug("ElasticBulkSession: execute bulk, actions = " + request.numberOfActions());
+        try {
+            executeWithMetrics(request).whenComplete((result, e) -> {
+                try {
+                    if (Objects.isNull(e)) {
+                        notifyResponse(request, result.getResponse());
+                    } else {
+                        notifyFailure(request, ElasticFutures.unwrap(e));
+                    }
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (Exception e) {
+            semaphore.release();
+            notifyFailure(request, e);
+        }
+    }
+
+    private CompletableFuture<BulkRetryResult> executeWithMetrics(BulkRequest request) {
+        final MetricsRegistry metrics = client.getMetricsRegistry();
+        if (!metrics.isEnabled()) {
+            return executeWithLimiter(request);
+        }
+        final String index = ElasticMetrics.indexLabel(request.requests());
+        ElasticMetrics.recordBulkBytes(metrics, ElasticConstant.Metrics.BULK, request.requests());
+        return ElasticMetrics.timeAsync(metrics, ElasticConstant.Metrics.BULK, index,
+                () -> executeWithLimiter(request))
+                .whenComplete((result, e) -> {
+                    if (Objects.nonNull(result)) {
+                        metrics.recordServerTook(ElasticConstant.Metrics.BULK, index,
+                                result.getResponse().getTook().millis());
+                        ElasticMetrics.recordBulkItems(metrics, ElasticConstant.Metrics.BULK,
+                                result.getResponse().getItems());
+                    }
+                });
+    }
+
+    /**
+     * 开启自适应并发时, 名额已在 execute 中获得, 完成时归还并调整并发上限
+     */
+    private CompletableFuture<BulkRetryResult> executeWithLimiter(BulkRequest request) {
+        if (Objects.isNull(limiter)) {
+            return executeWithTuner(request);
+        }
+        return limiter.executeAcquired(() -> executeWithTuner(request));
+    }
+
+    /**
+     * 开启批次字节数自动调整时, 以执行耗时采样
+     */
+    private CompletableFuture<BulkRetryResult> executeWithTuner(BulkRequest request) {
+        if (Objects.isNull(tuner)) {
+            return retryExecutor.execute(request);
+        }
+        return tuner.track(request.estimatedSizeInBytes(), () -> retryExecutor.execute(request));
+    }
+
+    private void notifyResponse(BulkRequest request, BulkResponse response) {
+        DocumentCache documentCache = client.getDocumentCache();
+        List<DocWriteRequest> requests = request.requests();
+        for (BulkItemResponse item : response.getItems()) {
+            if (Objects.nonNull(documentCache) && !item.isFailed()) {
+                documentCache.invalidate(item.getResponse());
+            }
+            try {
+                listener.onResponse(requests.get(item.getItemId()), item);
+            } catch (Exception e) {
+                log.warn("ElasticBulkSession: listener onResponse error", e);
+            }
+        }
+    }
+
+    private void notifyFailure(BulkRequest request, Throwable cause) {
+        log.warn("ElasticBulkSession: bulk request failure", cause);
+        for (DocWriteRequest docWriteRequest : request.requests()) {
+            try {
+                listener.onFailure(docWriteRequest, cause);
+            } catch (Exception e) {
+                log.warn("ElasticBulkSession: listener onFailure error", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+/**
+ * Title: RetryBudget
+ * Description: 重试预算(令牌桶)
+ * <p>
+ * 每条首次发送的请求存入 ratio 个令牌, 每重试一条取出1个, 最多保存 capacity 个.
+ * 集群持续过载时, 重试量被限制在正常写入量的 ratio 倍以内, 避免重试放大负载
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class RetryBudget {
+
+    private final double ratio;
+
+    private final double capacity;
+
+    private double tokens;
+
+    public RetryBudget(double ratio, int capacity) {
+        this.ratio = Math.max(0, ratio);
+        this.capacity = Math.max(0, capacity);
+        this.tokens = this.capacity;
+    }
+
+    /**
+     * 存入首次发送的请求
+     *
+     * @param requests 请求数量
+     */
+    public synchronized void deposit(int requests) {
+        tokens = Math.min(capacity, tokens + requests * ratio);
+    }
+
+    /**
+     * 取出重试额度
+     *
+     * @param requests 希望重试的请求数量
+     * @return 允许重试的请求数量
+     */
+    public synchronized int tryAcquire(int requests) {
+        int granted = (int) Math.min(requests, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    /**
+     * 当前可用额度
+     *
+     * @return 令牌数
+     */
+    public synchronized double available() {
+        return tokens;
+    }
+}
@@ -0,0 +1,62 @@
+package com.wangyanrui.elasticsearch.api.core.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Title: CacheStats
+ * Description: 缓存统计(命中、未命中、淘汰)
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 因容量或过期被淘汰的数量
+     *
+     * @return 淘汰数量
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + getHits()
+                + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions()
+                + ", hitRate=" + String.format("%.3f", getHitRate()) + "}";
+    }
+}
@@ -0,0 +1,120 @@
+package com.wangyanrui.elasticsearch.api.core.cache;
+
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.get.GetResponse;
+
+import java.util.Objects;
+
+/**
+ * Title: DocumentCache
+ * Description: 按 _version 校验的客户端文档缓存
+ * <p>
+ * 缓存 ElasticReader.get/multiGet 的结果; 同一进程通过 ElasticWriter 写入文档时自动失效.
+ * 写入后会保留一个带新版本号的标记, 写入前发出、写入后才返回的旧版本 Get 结果不会覆盖缓存.
+ * <p>
+ * notification: 只能感知本进程(共享同一个 ElasticClient)的写入, 其他进程的写入在 TTL 之后才可见;
+ * 缓存以响应中的实际索引名为 key, 通过别名读取的文档不会命中缓存
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class DocumentCache {
+
+    private final ExpiringLruCache<String, CachedDocument> cache;
+
+    private final long ttlMillis;
+
+    /**
+     * @param maxSize   最大缓存文档数
+     * @param ttlMillis 缓存存活时间(毫秒)
+     */
+    public DocumentCache(long maxSize, long ttlMillis) {
+        this.cache = new ExpiringLruCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 获取缓存的文档
+     *
+     * @param index 索引名称
+     * @param id    文档ID
+     * @return GetResponse, 不存在时返回null
+     */
+    public GetResponse get(String index, String id) {
+        CachedDocument document = cache.get(key(index, id), value -> Objects.nonNull(value.response));
+        return Objects.isNull(document) ? null : document.response;
+    }
+
+    /**
+     * 缓存 Get 结果, 仅缓存存在的文档, 且版本号不低于已知版本
+     *
+     * @param response GetResponse
+     */
+    public void put(GetResponse response) {
+        if (Objects.isNull(response) || !response.isExists()) {
+            return;
+        }
+        cache.putIf(key(response.getIndex(), response.getId()),
+                new CachedDocument(response, response.getVersion()), ttlMillis,
+                (old, value) -> value.version >= old.version);
+    }
+
+    /**
+     * 写入前失效
+     *
+     * @param index 索引名称
+     * @param id    文档ID
+     */
+    public void invalidate(String index, String id) {
+        cache.remove(key(index, id));
+    }
+
+    /**
+     * 写入成功后失效, 并记录写入后的版本号
+     *
+     * @param response 写入响应
+     */
+    public void invalidate(DocWriteResponse response) {
+        cache.put(key(response.getIndex(), response.getId()),
+                new CachedDocument(null, response.getVersion()), ttlMillis);
+    }
+
+    /**
+     * 失效整个索引的缓存(deleteByQuery/updateByQuery)
+     *
+     * @param index 索引名称
+     */
+    public void invalidateIndex(String index) {
+        final String prefix = index + '/';
+        cache.removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    private static String key(String index, String id) {
+        return index + '/' + id;
+    }
+
+    /**
+     * response 为null表示写入后的版本标记
+     */
+    private static final class CachedDocument {
+        private final GetResponse response;
+        private final long version;
+
+        private CachedDocument(GetResponse response, long version) {
+            this.response = response;
+            this.version = version;
+        }
+    }
+}
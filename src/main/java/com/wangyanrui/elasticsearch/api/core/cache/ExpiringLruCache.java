@@ -0,0 +1,192 @@
+package com.wangyanrui.elasticsearch.api.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Title: ExpiringLruCache
+ * Description: 带过期时间与容量上限的 LRU 缓存
+ * <p>
+ * 容量按权重计算(默认每个元素权重为1), 超出时淘汰最久未访问的元素; 过期元素在访问时淘汰
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final CacheStats stats = new CacheStats();
+
+    private long weight = 0;
+
+    public ExpiringLruCache(long maxSize) {
+        this(maxSize, value -> 1);
+    }
+
+    public ExpiringLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * 获取缓存, 不存在或已过期时返回null
+     *
+     * @param key key
+     * @return value
+     */
+    public V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * 获取缓存, 不存在、已过期或不可用时返回null
+     *
+     * @param key    key
+     * @param usable 缓存值是否可用, 不可用时计为未命中
+     * @return value
+     */
+    public synchronized V get(K key, Predicate<V> usable) {
+        Entry<V> entry = getEntry(key);
+        if (Objects.isNull(entry) || !usable.test(entry.value)) {
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        return entry.value;
+    }
+
+    /**
+     * 获取缓存, 不计入命中统计
+     *
+     * @param key key
+     * @return value
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = getEntry(key);
+        return Objects.isNull(entry) ? null : entry.value;
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param key       key
+     * @param value     value
+     * @param ttlMillis 存活时间(毫秒)
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        Entry<V> entry = new Entry<>(value, weigher.applyAsLong(value), System.currentTimeMillis() + ttlMillis);
+        if (entry.weight > maxWeight) {
+            remove(key);
+            return;
+        }
+
+        Entry<V> old = map.put(key, entry);
+        if (Objects.nonNull(old)) {
+            weight -= old.weight;
+        }
+        weight += entry.weight;
+        evictIfNecessary();
+    }
+
+    /**
+     * 按条件放入缓存
+     *
+     * @param key       key
+     * @param value     value
+     * @param ttlMillis 存活时间(毫秒)
+     * @param condition (旧值, 新值) -> 是否放入, 旧值不存在或已过期时直接放入
+     * @return 是否放入
+     */
+    public synchronized boolean putIf(K key, V value, long ttlMillis, BiPredicate<V, V> condition) {
+        Entry<V> old = getEntry(key);
+        if (Objects.nonNull(old) && !condition.test(old.value, value)) {
+            return false;
+        }
+        put(key, value, ttlMillis);
+        return true;
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> old = map.remove(key);
+        if (Objects.isNull(old)) {
+            return null;
+        }
+        weight -= old.weight;
+        return old.value;
+    }
+
+    /**
+     * 删除所有 key 满足条件的缓存
+     *
+     * @param predicate 条件
+     */
+    public synchronized void removeIf(Predicate<K> predicate) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> next = iterator.next();
+            if (predicate.test(next.getKey())) {
+                weight -= next.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private Entry<V> getEntry(K key) {
+        Entry<V> entry = map.get(key);
+        if (Objects.nonNull(entry) && entry.expireAt <= System.currentTimeMillis()) {
+            remove(key);
+            stats.recordEviction();
+            return null;
+        }
+        return entry;
+    }
+
+    private void evictIfNecessary() {
+        Iterator<Entry<V>> iterator = map.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next();
+            weight -= eldest.weight;
+            iterator.remove();
+            stats.recordEviction();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expireAt;
+
+        private Entry(V value, long weight, long expireAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.wangyanrui.elasticsearch.api.core.cache;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Title: SearchResponseCache
+ * Description: 搜索结果缓存
+ * <p>
+ * 以请求的规范化形式(索引 + 类型 + 查询JSON)为 key; 存活时间不超过所查索引的 refresh_interval
+ * (索引刷新之前, 重复查询的结果不会变化); 按响应序列化后的字节数限制总内存.
+ * 相同请求同时未命中时只发起一次查询, 其余调用等待同一结果.
+ * <p>
+ * 部分分片失败或超时的响应不会被缓存
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class SearchResponseCache {
+
+    /**
+     * refresh_interval 的缓存时间(毫秒)
+     */
+    private static final long REFRESH_INTERVAL_TTL_MILLIS = 60_000L;
+
+    private final ExpiringLruCache<String, CachedSearch> cache;
+
+    private final ConcurrentMap<String, CompletableFuture<SearchResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExpiringLruCache<String, Long> refreshIntervals = new ExpiringLruCache<>(1024);
+
+    private final long maxTtlMillis;
+
+    /**
+     * 索引名称 -> refresh_interval(毫秒, -1表示关闭刷新) 的 CompletableFuture
+     */
+    private volatile Function<String, CompletableFuture<Long>> refreshIntervalResolver;
+
+    /**
+     * @param maxBytes     缓存的最大字节数
+     * @param maxTtlMillis 最大存活时间(毫秒)
+     */
+    public SearchResponseCache(long maxBytes, long maxTtlMillis) {
+        this.cache = new ExpiringLruCache<>(maxBytes, value -> value.bytes);
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    /**
+     * 设置 refresh_interval 的获取方式, 为空时存活时间固定为 maxTtlMillis.
+     * 获取须是异步的(不阻塞调用线程), 其回调可能在 transport 线程中执行
+     *
+     * @param refreshIntervalResolver 索引名称 -> refresh_interval(毫秒) 的 CompletableFuture
+     */
+    public void setRefreshIntervalResolver(Function<String, CompletableFuture<Long>> refreshIntervalResolver) {
+        this.refreshIntervalResolver = refreshIntervalResolver;
+    }
+
+    /**
+     * 请求的规范化 key
+     *
+     * @param searchRequest 搜索请求
+     * @return key
+     */
+    public static String key(SearchRequest searchRequest) {
+        return Arrays.toString(searchRequest.indices())
+                + Arrays.toString(searchRequest.types())
+                + searchRequest.source();
+    }
+
+    /**
+     * 获取缓存的结果
+     *
+     * @param key key
+     * @return SearchResponse, 不存在时返回null
+     */
+    public SearchResponse getIfPresent(String key) {
+        CachedSearch cached = cache.get(key);
+        return Objects.isNull(cached) ? null : cached.response;
+    }
+
+    /**
+     * 获取结果: 命中缓存时直接返回; 相同请求正在查询时等待其结果; 否则调用 loader 查询并缓存
+     *
+     * @param key     key
+     * @param indices 查询的索引(用于确定存活时间)
+     * @param loader  查询
+     * @return SearchResponse 的 CompletableFuture
+     */
+    public CompletableFuture<SearchResponse> get(String key, String[] indices,
+                                                 Supplier<CompletableFuture<SearchResponse>> loader) {
+        SearchResponse cached = getIfPresent(key);
+        if (Objects.nonNull(cached)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        CompletableFuture<SearchResponse> existing = register(key, future);
+        if (Objects.nonNull(existing)) {
+            return existing;
+        }
+        try {
+            final CompletableFuture<Long> ttlMillis = ttlMillis(indices);
+            loader.get().whenComplete((response, e) -> complete(key, ttlMillis, future, response, e));
+        } catch (RuntimeException e) {
+            complete(key, 0, future, null, e);
+        }
+        return future;
+    }
+
+    /**
+     * 登记一次查询
+     *
+     * @param key    key
+     * @param future 当前调用方的 future
+     * @return 正在进行中的同一查询, 为null表示由当前调用方负责查询并调用 complete
+     */
+    public CompletableFuture<SearchResponse> register(String key, CompletableFuture<SearchResponse> future) {
+        return inFlight.putIfAbsent(key, future);
+    }
+
+    /**
+     * 完成一次登记的查询, 存活时间确定后(见 {@link #ttlMillis(String[])})再放入缓存并结束 future
+     *
+     * @param key       key
+     * @param ttlMillis 存活时间(毫秒) 的 CompletableFuture, 获取失败时不缓存
+     * @param future    登记时的 future
+     * @param response  查询结果, error 为null时不能为null
+     * @param error     查询异常
+     */
+    public void complete(String key, CompletableFuture<Long> ttlMillis, CompletableFuture<SearchResponse> future,
+                         SearchResponse response, Throwable error) {
+        ttlMillis.whenComplete((ttl, e) -> complete(key, Objects.isNull(e) ? ttl : 0, future, response, error));
+    }
+
+    /**
+     * 完成一次登记的查询, 成功时放入缓存
+     *
+     * @param key       key
+     * @param ttlMillis 存活时间(毫秒)
+     * @param future    登记时的 future
+     * @param response  查询结果, error 为null时不能为null
+     * @param error     查询异常
+     */
+    public void complete(String key, long ttlMillis, CompletableFuture<SearchResponse> future,
+                         SearchResponse response, Throwable error) {
+        try {
+            if (Objects.isNull(error) && ttlMillis > 0 && isCacheable(response)) {
+                cache.put(key, new CachedSearch(response, key.length() * 2L + sizeOf(response)), ttlMillis);
+            }
+        } catch (RuntimeException e) {
+            log.warn("SearchResponseCache: cache response failure", e);
+        } finally {
+            inFlight.remove(key, future);
+            if (Objects.nonNull(error)) {
+                future.completeExceptionally(error);
+            } else if (Objects.isNull(response)) {
+                // 等待同一查询的调用方不能得到null
+                future.completeExceptionally(new IllegalStateException(
+                        ElasticMessage.OperaFailureMsg.MULTI_SEARCH_ITEM_FAILURE));
+            } else {
+                future.complete(response);
+            }
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+        refreshIntervals.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 当前占用的字节数(估算)
+     *
+     * @return 字节数
+     */
+    public long bytes() {
+        return cache.weight();
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    private static boolean isCacheable(SearchResponse response) {
+        return Objects.nonNull(response) && response.getFailedShards() == 0 && !response.isTimedOut();
+    }
+
+    /**
+     * 查询这些索引的结果的存活时间: 不超过 maxTtlMillis 与各索引的 refresh_interval.
+     * 不阻塞: 未缓存的 refresh_interval 异步获取, 获取完成后结束
+     *
+     * @param indices 查询的索引
+     * @return 存活时间(毫秒) 的 CompletableFuture
+     */
+    public CompletableFuture<Long> ttlMillis(String[] indices) {
+        Function<String, CompletableFuture<Long>> resolver = this.refreshIntervalResolver;
+        if (Objects.isNull(resolver)) {
+            return CompletableFuture.completedFuture(maxTtlMillis);
+        }
+
+        CompletableFuture<Long> ttlMillis = CompletableFuture.completedFuture(maxTtlMillis);
+        for (String index : indices) {
+            Long cached = refreshIntervals.peek(index);
+            CompletableFuture<Long> refreshInterval = Objects.nonNull(cached)
+                    ? CompletableFuture.completedFuture(cached)
+                    : resolver.apply(index).thenApply(millis -> {
+                        refreshIntervals.put(index, millis, REFRESH_INTERVAL_TTL_MILLIS);
+                        return millis;
+                    });
+            ttlMillis = ttlMillis.thenCombine(refreshInterval,
+                    (ttl, millis) -> millis >= 0 ? Math.min(ttl, millis) : ttl);
+        }
+        return ttlMillis;
+    }
+
+    private static long sizeOf(SearchResponse response) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            response.writeTo(out);
+            return out.size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedSearch {
+        private final SearchResponse response;
+        private final long bytes;
+
+        private CachedSearch(SearchResponse response, long bytes) {
+            this.response = response;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.wangyanrui.elasticsearch.api.core.client;
 
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.cache.DocumentCache;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.client.ElasticClientConfig;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
@@ -8,11 +15,20 @@ import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Title: ElasticClient
  * Description: ElasticSearch Client
+ * <p>
+ * 支持多个种子节点与 transport 调优参数, 见 {@link ElasticClientConfig};
+ * poolSize 大于1时建立多个 TransportClient, {@link #getClient()} 轮询返回.
+ * <p>
+ * 连接是延迟建立的: 首次 getClient 或显式 connect 时才连接; 已连接时获取 client 不加锁
  *
  * @author wangyanrui
  * @version 1.0
@@ -26,35 +42,139 @@ public class ElasticClient {
     @Getter
     private String clusterName;
     @Getter
-    private TransportClient client;
+    private ElasticClientConfig config;
+    private volatile TransportClient[] clients;
+    /**
+     * 是否已主动关闭, 关闭后 getClient 不再自动建立连接
+     */
+    private volatile boolean closed = false;
+    private final AtomicInteger next = new AtomicInteger();
+    /**
+     * 文档缓存, 为空表示不缓存; 共享此 client 的 ElasticReader 读取缓存, ElasticWriter 写入时失效
+     */
+    @Getter
+    @Setter
+    private volatile DocumentCache documentCache;
+    /**
+     * 指标收集, 共享此 client 的 ElasticWriter/ElasticReader/ElasticAdmin 均向其上报, 默认不收集
+     */
+    @Getter
+    private volatile MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
 
     public ElasticClient(String address, String clusterName) {
-        this.address = address;
-        this.clusterName = clusterName;
+        this(address, ElasticConstant.Client.PORT, clusterName);
     }
 
     public ElasticClient(String address, int port, String clusterName) {
-        this.address = address;
-        this.port = port;
-        this.clusterName = clusterName;
+        this(new ElasticClientConfig(clusterName).addSeedNode(address, port));
+    }
+
+    public ElasticClient(ElasticClientConfig config) {
+        OperaExceptionHandler.flagCheck(config.getSeedNodes().isEmpty(), ElasticMessage.OperaErrorMsg.SEED_NODES_EMPTY);
+        InetSocketAddress first = parseSeedNode(config.getSeedNodes().get(0));
+        this.address = first.getHostString();
+        this.port = first.getPort();
+        this.clusterName = config.getClusterName();
+        this.config = config;
     }
 
     /**
-     * 重新建立连接
+     * 获取 TransportClient, 多个实例时轮询返回; 尚未连接时先建立连接
+     *
+     * @return TransportClient, 已关闭时返回null
+     */
+    public TransportClient getClient() {
+        TransportClient[] current = this.clients;
+        if (Objects.isNull(current)) {
+            if (closed) {
+                return null;
+            }
+            current = connectIfNecessary();
+            if (Objects.isNull(current)) {
+                return null;
+            }
+        }
+        if (current.length == 1) {
+            return current[0];
+        }
+        return current[(next.getAndIncrement() & Integer.MAX_VALUE) % current.length];
+    }
+
+    /**
+     * 设置指标收集, 为null时不收集
+     *
+     * @param metricsRegistry 指标收集
+     * @see com.wangyanrui.elasticsearch.api.core.metrics.InMemoryMetricsRegistry
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = Objects.nonNull(metricsRegistry) ? metricsRegistry : MetricsRegistry.NOOP;
+    }
+
+    /**
+     * 是否已建立连接
+     *
+     * @return 是否已建立连接
+     */
+    public boolean isConnected() {
+        return Objects.nonNull(clients);
+    }
+
+    /**
+     * 是否健康: 已建立连接, 且每个 TransportClient 都至少连接到一个节点
+     *
+     * @return 是否健康
+     */
+    public boolean isHealthy() {
+        TransportClient[] current = this.clients;
+        if (Objects.isNull(current)) {
+            return false;
+        }
+        for (TransportClient client : current) {
+            if (client.connectedNodes().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 重新建立连接: 新连接建立后再替换并关闭旧连接, 期间的请求仍使用旧连接.
+     * 已关闭时不重新连接; 建立期间被关闭时, 关闭新建立的连接
      */
     public void reConnect() {
-        close();
-        connect();
+        if (closed) {
+            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] is closed, skip reconnect");
+            return;
+        }
+        TransportClient[] created = createClients();
+        TransportClient[] previous;
+        synchronized (this) {
+            if (closed) {
+                previous = created;
+            } else {
+                previous = this.clients;
+                this.clients = created;
+            }
+        }
+        closeClients(previous);
+        if (previous == created) {
+            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] closed while reconnecting");
+            return;
+        }
+        log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] reconnected");
     }
 
     /**
-     * 关闭连接
+     * 关闭连接, 之后 getClient 返回null, reConnect 不再生效, 直到再次调用 connect
      */
     public void close() {
-        if (Objects.nonNull(this.client)) {
-            client.close();
-            client = null;
+        TransportClient[] previous;
+        synchronized (this) {
+            previous = this.clients;
+            this.clients = null;
+            this.closed = true;
         }
+        closeClients(previous);
     }
 
     /**
@@ -63,22 +183,129 @@ public class ElasticClient {
      * @return ElasticClient Instance
      */
     public ElasticClient connect() {
-        if (Objects.isNull(client)) {
-            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] connecting...");
+        if (Objects.nonNull(clients)) {
+            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] is connected");
+            return this;
+        }
+        synchronized (this) {
+            closed = false;
+            connectIfNecessary();
+        }
+        return this;
+    }
+
+    private synchronized TransportClient[] connectIfNecessary() {
+        if (Objects.isNull(clients) && !closed) {
+            clients = createClients();
+        }
+        return clients;
+    }
 
-            // In order to enable sniffing, set client.transport.sniff to true
-            Settings settings = Settings.builder()
-                    .put("cluster.name", this.clusterName)
-                    .put("client.transport.sniff", true).build();
+    private TransportClient[] createClients() {
+        log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] connecting...");
 
-            // connect
-            client = new PreBuiltTransportClient(settings)
-                    .addTransportAddress(new TransportAddress(new InetSocketAddress(address, port)));
+        Settings settings = buildSettings();
+        TransportAddress[] addresses = buildTransportAddresses();
 
-            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] connected");
-        } else {
-            log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] is connected");
+        // connect
+        TransportClient[] created = new TransportClient[Math.max(1, config.getPoolSize())];
+        try {
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new PreBuiltTransportClient(settings).addTransportAddresses(addresses);
+            }
+        } catch (RuntimeException e) {
+            closeClients(created);
+            throw e;
         }
-        return this;
+
+        log.debug("ElasticSearch: ClusterName[{" + this.clusterName + "}] connected, seedNodes = "
+                + config.getSeedNodes() + ", poolSize = " + created.length);
+        return created;
+    }
+
+    private void closeClients(TransportClient[] clients) {
+        if (Objects.isNull(clients)) {
+            return;
+        }
+        for (TransportClient client : clients) {
+            if (Objects.isNull(client)) {
+                continue;
+            }
+            try {
+                client.close();
+            } catch (RuntimeException e) {
+                log.warn("ElasticSearch: ClusterName[{" + this.clusterName + "}] close client failure", e);
+            }
+        }
+    }
+
+    private Settings buildSettings() {
+        // In order to enable sniffing, set client.transport.sniff to true
+        Settings.Builder builder = Settings.builder()
+                .put("cluster.name", this.clusterName)
+                .put("client.transport.sniff", config.isSniff());
+
+        putIfPresent(builder, "transport.connections_per_node.recovery", config.getConnectionsPerNodeRecovery());
+        putIfPresent(builder, "transport.connections_per_node.bulk", config.getConnectionsPerNodeBulk());
+        putIfPresent(builder, "transport.connections_per_node.reg", config.getConnectionsPerNodeReg());
+        putIfPresent(builder, "transport.connections_per_node.state", config.getConnectionsPerNodeState());
+        putIfPresent(builder, "transport.connections_per_node.ping", config.getConnectionsPerNodePing());
+        putMillisIfPresent(builder, "client.transport.ping_timeout", config.getPingTimeoutMillis());
+        putMillisIfPresent(builder, "client.transport.nodes_sampler_interval", config.getNodesSamplerIntervalMillis());
+        putMillisIfPresent(builder, "transport.ping_schedule", config.getPingScheduleMillis());
+        putIfPresent(builder, "transport.tcp.compress", config.getCompress());
+        putIfPresent(builder, "transport.netty.worker_count", config.getNettyWorkerCount());
+        for (Map.Entry<String, String> entry : config.getSettings().entrySet()) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    private static void putIfPresent(Settings.Builder builder, String key, Object value) {
+        if (Objects.nonNull(value)) {
+            builder.put(key, String.valueOf(value));
+        }
+    }
+
+    private static void putMillisIfPresent(Settings.Builder builder, String key, Long millis) {
+        if (Objects.nonNull(millis)) {
+            builder.put(key, millis < 0 ? "-1" : millis + "ms");
+        }
+    }
+
+    private TransportAddress[] buildTransportAddresses() {
+        List<TransportAddress> addresses = new ArrayList<>(config.getSeedNodes().size());
+        for (String seedNode : config.getSeedNodes()) {
+            addresses.add(new TransportAddress(parseSeedNode(seedNode)));
+        }
+        return addresses.toArray(new TransportAddress[0]);
+    }
+
+    /**
+     * 解析种子节点: host, host:port, [ipv6], [ipv6]:port
+     */
+    private static InetSocketAddress parseSeedNode(String seedNode) {
+        OperaExceptionHandler.flagCheck(Objects.isNull(seedNode) || seedNode.trim().isEmpty(),
+                ElasticMessage.OperaErrorMsg.SEED_NODE_INVALID + seedNode);
+        String node = seedNode.trim();
+        String host = node;
+        int port = ElasticConstant.Client.PORT;
+        try {
+            if (node.startsWith("[")) {
+                int end = node.indexOf(']');
+                OperaExceptionHandler.flagCheck(end < 0, ElasticMessage.OperaErrorMsg.SEED_NODE_INVALID + seedNode);
+                host = node.substring(1, end);
+                if (node.length() > end + 1 && node.charAt(end + 1) == ':') {
+                    port = Integer.parseInt(node.substring(end + 2));
+                }
+            } else if (node.indexOf(':') > 0 && node.indexOf(':') == node.lastIndexOf(':')) {
+                host = node.substring(0, node.indexOf(':'));
+                port = Integer.parseInt(node.substring(node.indexOf(':') + 1));
+            }
+        } catch (NumberFormatException e) {
+            OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.SEED_NODE_INVALID + seedNode);
+        }
+        // 旧构造方法未指定端口时为0, 使用默认端口
+        return new InetSocketAddress(host, port > 0 ? port : ElasticConstant.Client.PORT);
     }
 }
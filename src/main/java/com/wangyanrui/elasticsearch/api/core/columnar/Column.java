@@ -0,0 +1,35 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+/**
+ * Title: Column
+ * Description: 一页数据中某个字段的列
+ * <p>
+ * notification: 多值字段只取第一个值(doc values 中按升序排列, 即最小值)
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface Column {
+
+    /**
+     * 列类型
+     *
+     * @return ColumnType
+     */
+    ColumnType getType();
+
+    /**
+     * 行数
+     *
+     * @return 行数
+     */
+    int size();
+
+    /**
+     * 该行是否有值
+     *
+     * @param row 行号, 从0开始
+     * @return 是否有值
+     */
+    boolean isPresent(int row);
+}
@@ -0,0 +1,23 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+/**
+ * Title: ColumnType
+ * Description: 列式读取的列类型
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public enum ColumnType {
+    /**
+     * long/integer/short/byte/date(毫秒)/boolean(1/0) 字段, 读取为 long[]
+     */
+    LONG,
+    /**
+     * double/float/half_float/scaled_float 字段, 读取为 double[]
+     */
+    DOUBLE,
+    /**
+     * keyword/ip 字段, 读取为 字典 + 序号
+     */
+    STRING
+}
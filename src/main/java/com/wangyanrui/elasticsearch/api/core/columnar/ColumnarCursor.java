@@ -0,0 +1,78 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollCursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Title: ColumnarCursor
+ * Description: 按页遍历 scroll 结果, 每页转换为列式数据
+ * <p>
+ * 预取方式与 {@link ScrollCursor} 相同; 每页的 SearchHit 在转换后即可回收
+ * <p>
+ * notification: 未遍历完时需要 close (或通过 try-with-resources 使用), 以释放服务端的 scroll 上下文
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ColumnarCursor implements Iterator<ColumnarPage>, Closeable {
+
+    private final ScrollCursor cursor;
+
+    private final Map<String, ColumnType> columnTypes;
+
+    public ColumnarCursor(ScrollCursor cursor, Map<String, ColumnType> columnTypes) {
+        this.cursor = cursor;
+        this.columnTypes = columnTypes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    public ColumnarPage next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return ColumnarPage.of(cursor.next(), columnTypes);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 匹配的文档总数(取到第一页之后有效, 之前为-1)
+     *
+     * @return 文档总数
+     */
+    public long getTotalHits() {
+        return cursor.getTotalHits();
+    }
+
+    /**
+     * 转换为惰性的 Stream(每页一个元素), 关闭 Stream 时同时关闭游标
+     *
+     * @return Stream
+     */
+    public Stream<ColumnarPage> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
@@ -0,0 +1,162 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Title: ColumnarPage
+ * Description: 列式的一页数据
+ * <p>
+ * 由一页 SearchHit 的 docvalue_fields 按列转换而来, 转换后不再持有 SearchHit
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class ColumnarPage {
+
+    private final int size;
+
+    private final Map<String, Column> columns;
+
+    private ColumnarPage(int size, Map<String, Column> columns) {
+        this.size = size;
+        this.columns = Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * 按列转换一页数据
+     *
+     * @param hits        一页数据
+     * @param columnTypes 字段名称 -> 列类型
+     * @return 列式的一页数据
+     */
+    public static ColumnarPage of(SearchHit[] hits, Map<String, ColumnType> columnTypes) {
+        Map<String, Column> columns = new LinkedHashMap<>(columnTypes.size() * 2);
+        for (Map.Entry<String, ColumnType> entry : columnTypes.entrySet()) {
+            columns.put(entry.getKey(), buildColumn(hits, entry.getKey(), entry.getValue()));
+        }
+        return new ColumnarPage(hits.length, columns);
+    }
+
+    /**
+     * 行数
+     *
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 全部列, 顺序与请求一致
+     *
+     * @return 字段名称 -> 列
+     */
+    public Map<String, Column> getColumns() {
+        return columns;
+    }
+
+    public Column getColumn(String field) {
+        return columns.get(field);
+    }
+
+    public LongColumn getLongColumn(String field) {
+        return (LongColumn) columns.get(field);
+    }
+
+    public DoubleColumn getDoubleColumn(String field) {
+        return (DoubleColumn) columns.get(field);
+    }
+
+    public StringColumn getStringColumn(String field) {
+        return (StringColumn) columns.get(field);
+    }
+
+    private static Column buildColumn(SearchHit[] hits, String field, ColumnType type) {
+        switch (type) {
+            case LONG:
+                return buildLongColumn(hits, field);
+            case DOUBLE:
+                return buildDoubleColumn(hits, field);
+            default:
+                return buildStringColumn(hits, field);
+        }
+    }
+
+    private static LongColumn buildLongColumn(SearchHit[] hits, String field) {
+        long[] values = new long[hits.length];
+        BitSet present = new BitSet(hits.length);
+        for (int row = 0; row < hits.length; row++) {
+            Object value = firstValue(hits[row], field);
+            if (value instanceof Number) {
+                values[row] = ((Number) value).longValue();
+                present.set(row);
+            } else if (value instanceof Boolean) {
+                values[row] = (Boolean) value ? 1L : 0L;
+                present.set(row);
+            } else {
+                checkMissing(value, field, ColumnType.LONG);
+            }
+        }
+        return new LongColumn(values, present);
+    }
+
+    private static DoubleColumn buildDoubleColumn(SearchHit[] hits, String field) {
+        double[] values = new double[hits.length];
+        BitSet present = new BitSet(hits.length);
+        for (int row = 0; row < hits.length; row++) {
+            Object value = firstValue(hits[row], field);
+            if (value instanceof Number) {
+                values[row] = ((Number) value).doubleValue();
+                present.set(row);
+            } else {
+                checkMissing(value, field, ColumnType.DOUBLE);
+            }
+        }
+        return new DoubleColumn(values, present);
+    }
+
+    private static StringColumn buildStringColumn(SearchHit[] hits, String field) {
+        int[] ordinals = new int[hits.length];
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int row = 0; row < hits.length; row++) {
+            Object value = firstValue(hits[row], field);
+            if (Objects.isNull(value)) {
+                ordinals[row] = -1;
+                continue;
+            }
+            String string = value.toString();
+            Integer ordinal = dictionary.get(string);
+            if (Objects.isNull(ordinal)) {
+                ordinal = dictionary.size();
+                dictionary.put(string, ordinal);
+            }
+            ordinals[row] = ordinal;
+        }
+
+        String[] values = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            values[entry.getValue()] = entry.getKey();
+        }
+        return new StringColumn(ordinals, values);
+    }
+
+    private static Object firstValue(SearchHit hit, String field) {
+        DocumentField documentField = hit.field(field);
+        return Objects.isNull(documentField) ? null : documentField.getValue();
+    }
+
+    private static void checkMissing(Object value, String field, ColumnType type) {
+        OperaExceptionHandler.flagCheck(Objects.nonNull(value), ElasticMessage.OperaErrorMsg.COLUMN_TYPE_MISMATCH
+                + field + " is not " + type + ", value = " + value);
+    }
+}
@@ -0,0 +1,50 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+import java.util.BitSet;
+
+/**
+ * Title: DoubleColumn
+ * Description: double 类型的列, 无值的行为 0
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class DoubleColumn implements Column {
+
+    private final double[] values;
+
+    private final BitSet present;
+
+    DoubleColumn(double[] values, BitSet present) {
+        this.values = values;
+        this.present = present;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.DOUBLE;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isPresent(int row) {
+        return present.get(row);
+    }
+
+    /**
+     * 全部值(直接返回内部数组, 不复制)
+     *
+     * @return 值数组, 长度为行数
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    public double get(int row) {
+        return values[row];
+    }
+}
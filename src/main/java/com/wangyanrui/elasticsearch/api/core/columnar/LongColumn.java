@@ -0,0 +1,50 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+import java.util.BitSet;
+
+/**
+ * Title: LongColumn
+ * Description: long 类型的列, 无值的行为 0
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class LongColumn implements Column {
+
+    private final long[] values;
+
+    private final BitSet present;
+
+    LongColumn(long[] values, BitSet present) {
+        this.values = values;
+        this.present = present;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.LONG;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isPresent(int row) {
+        return present.get(row);
+    }
+
+    /**
+     * 全部值(直接返回内部数组, 不复制)
+     *
+     * @return 值数组, 长度为行数
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    public long get(int row) {
+        return values[row];
+    }
+}
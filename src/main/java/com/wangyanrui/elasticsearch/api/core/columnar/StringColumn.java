@@ -0,0 +1,60 @@
+package com.wangyanrui.elasticsearch.api.core.columnar;
+
+/**
+ * Title: StringColumn
+ * Description: 字典编码的字符串列
+ * <p>
+ * 每行保存值在字典中的序号(无值为 -1), 同一页内相同的值只保存一份
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class StringColumn implements Column {
+
+    private final int[] ordinals;
+
+    private final String[] dictionary;
+
+    StringColumn(int[] ordinals, String[] dictionary) {
+        this.ordinals = ordinals;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.STRING;
+    }
+
+    @Override
+    public int size() {
+        return ordinals.length;
+    }
+
+    @Override
+    public boolean isPresent(int row) {
+        return ordinals[row] >= 0;
+    }
+
+    /**
+     * 每行的字典序号(直接返回内部数组, 不复制)
+     *
+     * @return 序号数组, 无值为 -1
+     */
+    public int[] getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * 字典, 按值首次出现的顺序
+     *
+     * @return 字典
+     */
+    public String[] getDictionary() {
+        return dictionary;
+    }
+
+    public String get(int row) {
+        int ordinal = ordinals[row];
+        return ordinal < 0 ? null : dictionary[ordinal];
+    }
+}
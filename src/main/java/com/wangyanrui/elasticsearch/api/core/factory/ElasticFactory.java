@@ -1,16 +1,30 @@
 package com.wangyanrui.elasticsearch.api.core.factory;
 
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
 import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
-import lombok.Synchronized;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.client.ElasticClientConfig;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Title: ElasticFactory
  * Description: ElasticSearch Factory Class
+ * <p>
+ * 按 集群名称 + 节点地址 缓存 ElasticClient, 获取实例不加全局锁, 也不在调用线程中建立连接(首次使用时连接).
+ * 后台定时检查已连接的实例, 不健康(没有可用节点)时在后台重新建立连接
  *
  * @author wangyanrui
  * @version 1.0
@@ -20,6 +34,25 @@ public class ElasticFactory {
 
     private static final Map<String, ElasticClient> CACHE = new ConcurrentHashMap<>();
 
+    /**
+     * 正在后台重新连接的实例的 key
+     */
+    private static final Set<String> RECONNECTING = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService CONNECT_EXECUTOR = Executors.newCachedThreadPool(
+            ElasticThreads.daemonThreadFactory("elastic-connect"));
+
+    private static final ScheduledExecutorService HEALTH_CHECKER = Executors.newSingleThreadScheduledExecutor(
+            ElasticThreads.daemonThreadFactory("elastic-health-check"));
+
+    private static final Object HEALTH_CHECK_LOCK = new Object();
+
+    private static ScheduledFuture<?> healthCheck;
+
+    static {
+        setHealthCheckInterval(ElasticConstant.Client.HEALTH_CHECK_INTERVAL_MILLIS);
+    }
+
     /**
      * Get Instance
      *
@@ -27,9 +60,8 @@ public class ElasticFactory {
      * @param clusterName clusterName
      * @return ElasticClient Instance
      */
-    @Synchronized
     public static ElasticClient getInstance(String address, String clusterName) {
-        return getInstance(address, 9300, clusterName);
+        return getInstance(address, ElasticConstant.Client.PORT, clusterName);
     }
 
     /**
@@ -40,28 +72,116 @@ public class ElasticFactory {
      * @param clusterName clusterName
      * @return ElasticClient Instance
      */
-    @Synchronized
     public static ElasticClient getInstance(String address, int port, String clusterName) {
-        ElasticClient instance = CACHE.get(clusterName);
-        if (Objects.isNull(instance)) {
-            instance = new ElasticClient(address, port, clusterName);
-            CACHE.put(clusterName, instance);
+        final int actualPort = port > 0 ? port : ElasticConstant.Client.PORT;
+        return CACHE.computeIfAbsent(clusterName + "@" + address + ":" + actualPort,
+                key -> new ElasticClient(address, actualPort, clusterName));
+    }
+
+    /**
+     * Get Instance, 以 集群名称 + 全部种子节点 为 key; 相同 key 的后续调用返回首次创建的实例, 忽略其他配置
+     *
+     * @param config 连接配置
+     * @return ElasticClient Instance
+     */
+    public static ElasticClient getInstance(ElasticClientConfig config) {
+        return CACHE.computeIfAbsent(config.getClusterName() + "@" + String.join(",", config.getSeedNodes()),
+                key -> new ElasticClient(config));
+    }
+
+    /**
+     * 并行建立多个集群的连接, 用于启动时预热
+     *
+     * @param configs 连接配置
+     * @return 全部连接建立完成的 CompletableFuture, 任一失败时以其异常结束
+     */
+    public static CompletableFuture<List<ElasticClient>> warmUp(ElasticClientConfig... configs) {
+        List<ElasticClient> instances = new ArrayList<>(configs.length);
+        for (ElasticClientConfig config : configs) {
+            instances.add(getInstance(config));
         }
+        return warmUp(instances);
+    }
+
+    /**
+     * 并行建立多个实例的连接, 用于启动时预热
+     *
+     * @param instances ElasticClient 实例
+     * @return 全部连接建立完成的 CompletableFuture, 任一失败时以其异常结束
+     */
+    public static CompletableFuture<List<ElasticClient>> warmUp(List<ElasticClient> instances) {
+        List<CompletableFuture<ElasticClient>> futures = new ArrayList<>(instances.size());
+        for (ElasticClient instance : instances) {
+            futures.add(CompletableFuture.supplyAsync(instance::connect, CONNECT_EXECUTOR));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignore -> {
+            List<ElasticClient> connected = new ArrayList<>(futures.size());
+            for (CompletableFuture<ElasticClient> future : futures) {
+                connected.add(future.join());
+            }
+            return connected;
+        });
+    }
+
+    /**
+     * 设置后台健康检查的间隔
+     *
+     * @param intervalMillis 间隔(毫秒), 小于等于0表示关闭健康检查
+     */
+    public static void setHealthCheckInterval(long intervalMillis) {
+        synchronized (HEALTH_CHECK_LOCK) {
+            if (Objects.nonNull(healthCheck)) {
+                healthCheck.cancel(false);
+                healthCheck = null;
+            }
+            if (intervalMillis > 0) {
+                healthCheck = HEALTH_CHECKER.scheduleWithFixedDelay(ElasticFactory::checkHealth,
+                        intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 
-        return instance.connect();
+    /**
+     * 检查已连接的实例, 不健康的实例在后台重新连接; 同一实例同时只有一个重新连接的任务
+     */
+    private static void checkHealth() {
+        for (Map.Entry<String, ElasticClient> entry : CACHE.entrySet()) {
+            final String key = entry.getKey();
+            final ElasticClient instance = entry.getValue();
+            try {
+                if (!instance.isConnected() || instance.isHealthy() || !RECONNECTING.add(key)) {
+                    continue;
+                }
+                log.warn("ElasticFactory: [" + key + "] has no connected node, reconnecting ...");
+                CONNECT_EXECUTOR.execute(() -> {
+                    try {
+                        if (instance.isConnected()) {
+                            instance.reConnect();
+                        }
+                    } catch (Exception e) {
+                        log.warn("ElasticFactory: [" + key + "] reconnect failure", e);
+                    } finally {
+                        RECONNECTING.remove(key);
+                    }
+                });
+            } catch (Exception e) {
+                RECONNECTING.remove(key);
+                log.warn("ElasticFactory: [" + key + "] health check failure", e);
+            }
+        }
     }
 
     /**
-     * shutdown
+     * shutdown: 停止后台健康检查并关闭全部实例; 之后需要健康检查时重新调用 {@link #setHealthCheckInterval(long)}
      */
-    @Synchronized
     public static void shutdown() {
         int count = 0;
         log.debug("ElasticClient shutdown starting ...");
-        for (ElasticClient instance : CACHE.values()) {
+        setHealthCheckInterval(0);
+        for (String key : CACHE.keySet()) {
+            ElasticClient instance = CACHE.remove(key);
             if (Objects.nonNull(instance)) {
                 instance.close();
-                instance = null;
                 count++;
             }
         }
@@ -0,0 +1,218 @@
+package com.wangyanrui.elasticsearch.api.core.hedge;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.core.bulk.RetryBudget;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.HedgePolicy;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Title: HedgedExecutor
+ * Description: 对冲请求执行
+ * <p>
+ * 首次请求按调用方的 routing/preference 原样发送(由服务端选择分片副本);
+ * 在对冲延迟(近期首次请求延迟的百分位)内未返回时, 只对对冲请求设置 preference 后发送相同的请求,
+ * 取先成功的结果, 另一个请求在客户端取消(结果被丢弃, 服务端仍会执行完毕).
+ * 两次都失败时以首次请求的异常结束; 首次请求在对冲之前失败时直接以该异常结束(对冲不是重试).
+ * <p>
+ * 对冲请求消耗对冲预算(见 {@link RetryBudget}), 额外的请求量不超过 budgetRatio.
+ * 被取消的首次请求以取消时的耗时记入延迟样本(实际延迟不小于该值), 否则最慢的样本总被丢弃, 对冲延迟会逐渐偏低.
+ * <p>
+ * notification: 未配置 hedgePreference 时使用随机的自定义 preference, 只按其哈希选择分片副本,
+ * 可能与首次请求落在同一个副本上(概率约为 1/副本数), 此时对冲不起作用; 需要保证落在其他副本时,
+ * 配置指向另一组节点的 _only_nodes/_prefer_nodes
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class HedgedExecutor {
+
+    /**
+     * 只用于触发对冲请求, 发送本身是异步的, 不会阻塞该线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            ElasticThreads.daemonThreadFactory("elastic-hedge"));
+
+    private final HedgePolicy policy;
+
+    private final LatencyWindow latencyWindow;
+
+    private final RetryBudget budget;
+
+    private final AtomicLong hedgedCount = new AtomicLong();
+
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    public HedgedExecutor(HedgePolicy policy) {
+        this.policy = policy;
+        this.latencyWindow = new LatencyWindow(policy.getWindowSize(), policy.getPercentile());
+        this.budget = new RetryBudget(policy.getBudgetRatio(), policy.getBudgetCapacity());
+    }
+
+    /**
+     * 执行请求, 必要时发送对冲请求
+     *
+     * @param call preference -> 发送的请求, 每次调用都要构建新的请求;
+     *             首次请求时 preference 为null(不修改调用方的请求), 对冲请求时为对冲使用的 preference
+     * @param <T>  响应类型
+     * @return 先成功的响应 的 CompletableFuture
+     */
+    public <T> CompletableFuture<T> execute(Function<String, CompletableFuture<T>> call) {
+        budget.deposit(1);
+
+        Execution<T> execution = new Execution<>(call);
+        execution.sendPrimary();
+
+        if (!execution.result.isDone()) {
+            ScheduledFuture<?> timer = SCHEDULER.schedule(() -> execution.sendHedge(hedgePreference()),
+                    delayNanos(), TimeUnit.NANOSECONDS);
+            execution.result.whenComplete((response, e) -> timer.cancel(false));
+        }
+        return execution.result;
+    }
+
+    /**
+     * 当前的对冲延迟
+     *
+     * @return 延迟(毫秒)
+     */
+    public long getDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos());
+    }
+
+    /**
+     * 已发送的对冲请求数量
+     *
+     * @return 数量
+     */
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * 对冲请求先于首次请求成功的次数
+     *
+     * @return 次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    public HedgePolicy getPolicy() {
+        return policy;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    private long delayNanos() {
+        long delayNanos = latencyWindow.count() < policy.getMinSamples()
+                ? TimeUnit.MILLISECONDS.toNanos(policy.getInitialDelayMillis())
+                : latencyWindow.percentileNanos();
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(policy.getMinDelayMillis()), delayNanos);
+    }
+
+    /**
+     * 对冲请求的 preference: 未配置时每次使用随机的自定义字符串, 由其哈希选择分片副本(可能与首次请求相同)
+     */
+    private String hedgePreference() {
+        String preference = policy.getHedgePreference();
+        return Objects.nonNull(preference) ? preference
+                : ElasticConstant.Hedge.PREFERENCE_PREFIX + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static <T> CompletableFuture<T> call(Function<String, CompletableFuture<T>> call, String preference) {
+        try {
+            return call.apply(preference);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * 一次(含对冲)请求的执行状态
+     */
+    private final class Execution<T> {
+        private final Function<String, CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private CompletableFuture<T> primary;
+        private CompletableFuture<T> hedge;
+        private int outstanding = 0;
+        private Throwable primaryFailure;
+
+        private Execution(Function<String, CompletableFuture<T>> call) {
+            this.call = call;
+        }
+
+        private void sendPrimary() {
+            final long startNanos = System.nanoTime();
+            CompletableFuture<T> future;
+            synchronized (this) {
+                outstanding++;
+                future = HedgedExecutor.call(call, null);
+                primary = future;
+            }
+            future.whenComplete((response, e) -> {
+                latencyWindow.record(System.nanoTime() - startNanos);
+                onComplete(false, response, e);
+            });
+        }
+
+        private void sendHedge(String preference) {
+            CompletableFuture<T> future;
+            synchronized (this) {
+                if (result.isDone() || budget.tryAcquire(1) == 0) {
+                    return;
+                }
+                outstanding++;
+                hedgedCount.incrementAndGet();
+                log.debug("HedgedExecutor: send hedge request, preference = " + preference);
+                future = HedgedExecutor.call(call, preference);
+                hedge = future;
+            }
+            future.whenComplete((response, e) -> onComplete(true, response, e));
+        }
+
+        private void onComplete(boolean hedged, T response, Throwable e) {
+            CompletableFuture<T> loser;
+            synchronized (this) {
+                outstanding--;
+                if (Objects.nonNull(e)) {
+                    if (!hedged) {
+                        primaryFailure = e;
+                    }
+                    if (outstanding == 0 && !result.isDone()) {
+                        result.completeExceptionally(Objects.nonNull(primaryFailure) ? primaryFailure : e);
+                    }
+                    return;
+                }
+                // result 只在持有锁时结束; 先计数再结束, 调用方被唤醒时计数已经更新
+                if (result.isDone()) {
+                    return;
+                }
+                if (hedged) {
+                    hedgeWinCount.incrementAndGet();
+                }
+                result.complete(response);
+                loser = hedged ? primary : hedge;
+            }
+            if (Objects.nonNull(loser)) {
+                loser.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wangyanrui.elasticsearch.api.core.hedge;
+
+import java.util.Arrays;
+
+/**
+ * Title: LatencyWindow
+ * Description: 近期延迟的环形缓冲区, 用于计算百分位
+ * <p>
+ * 百分位每记录 size/16 个样本重新计算一次(排序一份副本), 读取时直接返回缓存值
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+
+    private final int recomputeInterval;
+
+    private final double percentile;
+
+    private int next = 0;
+
+    private int count = 0;
+
+    private int sinceRecompute = 0;
+
+    private volatile long percentileNanos = -1;
+
+    /**
+     * @param size       样本数量
+     * @param percentile 百分位, 取值 (0, 1]
+     */
+    public LatencyWindow(int size, double percentile) {
+        this.samples = new long[Math.max(1, size)];
+        this.recomputeInterval = Math.max(1, samples.length / 16);
+        this.percentile = Math.min(1, Math.max(0, percentile));
+    }
+
+    /**
+     * 记录一个样本
+     *
+     * @param latencyNanos 延迟(纳秒)
+     */
+    public synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (++sinceRecompute >= recomputeInterval) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile * count) - 1;
+            percentileNanos = sorted[Math.min(count - 1, Math.max(0, rank))];
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * 最近一次计算的百分位
+     *
+     * @return 延迟(纳秒), 尚未计算时为-1
+     */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+}
@@ -0,0 +1,189 @@
+package com.wangyanrui.elasticsearch.api.core.metrics;
+
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Title: ElasticMetrics
+ * Description: 指标上报工具
+ * <p>
+ * registry 未启用时直接执行, 不读取时钟
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class ElasticMetrics {
+
+    private ElasticMetrics() {
+    }
+
+    /**
+     * 计时执行同步操作
+     *
+     * @param registry  指标收集
+     * @param operation 操作类型
+     * @param index     索引名称
+     * @param call      操作
+     * @param <T>       结果类型
+     * @return 操作结果
+     */
+    public static <T> T time(MetricsRegistry registry, String operation, String index, Supplier<T> call) {
+        if (!registry.isEnabled()) {
+            return call.get();
+        }
+        long startNanos = System.nanoTime();
+        try {
+            T result = call.get();
+            registry.recordLatency(operation, index, System.nanoTime() - startNanos, null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            registry.recordLatency(operation, index, System.nanoTime() - startNanos, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 计时执行异步操作, 在 future 完成时记录
+     *
+     * @param registry  指标收集
+     * @param operation 操作类型
+     * @param index     索引名称
+     * @param call      操作
+     * @param <T>       结果类型
+     * @return 操作返回的 future
+     */
+    public static <T> CompletableFuture<T> timeAsync(MetricsRegistry registry, String operation, String index,
+                                                     Supplier<CompletableFuture<T>> call) {
+        if (!registry.isEnabled()) {
+            return call.get();
+        }
+        final long startNanos = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException | Error e) {
+            registry.recordLatency(operation, index, System.nanoTime() - startNanos, e);
+            throw e;
+        }
+        future.whenComplete((result, e) -> registry.recordLatency(operation, index,
+                System.nanoTime() - startNanos, Objects.isNull(e) ? null : ElasticFutures.unwrap(e)));
+        return future;
+    }
+
+    /**
+     * 多个索引的指标标签
+     *
+     * @param indices 索引名称
+     * @return 单个索引时为索引名称, 多个时以逗号分隔
+     */
+    public static String indexLabel(String... indices) {
+        if (Objects.isNull(indices) || indices.length == 0) {
+            return "_all";
+        }
+        return indices.length == 1 ? indices[0] : String.join(",", indices);
+    }
+
+    /**
+     * 批量请求的指标标签
+     *
+     * @param requests 批量请求中的条目
+     * @return 涉及的索引名称(去重后以逗号分隔)
+     */
+    public static String indexLabel(List<? extends DocWriteRequest> requests) {
+        Set<String> indices = new LinkedHashSet<>();
+        for (DocWriteRequest request : requests) {
+            indices.add(request.index());
+        }
+        return indexLabel(indices.toArray(new String[0]));
+    }
+
+    /**
+     * 按索引上报批量请求的负载字节数(连续的同一索引合并为一次上报)
+     *
+     * @param registry  指标收集
+     * @param operation 操作类型
+     * @param requests  批量请求中的条目
+     */
+    public static void recordBulkBytes(MetricsRegistry registry, String operation,
+                                       List<? extends DocWriteRequest> requests) {
+        if (!registry.isEnabled()) {
+            return;
+        }
+        String index = null;
+        long bytes = 0;
+        for (DocWriteRequest request : requests) {
+            if (!Objects.equals(index, request.index())) {
+                if (Objects.nonNull(index)) {
+                    registry.recordBytes(operation, index, bytes);
+                }
+                index = request.index();
+                bytes = 0;
+            }
+            bytes += payloadBytes(request);
+        }
+        if (Objects.nonNull(index)) {
+            registry.recordBytes(operation, index, bytes);
+        }
+    }
+
+    /**
+     * 按索引上报批量响应的条目数量(连续的同一索引合并为一次上报)
+     *
+     * @param registry  指标收集
+     * @param operation 操作类型
+     * @param items     批量响应中的条目
+     */
+    public static void recordBulkItems(MetricsRegistry registry, String operation, BulkItemResponse[] items) {
+        if (!registry.isEnabled()) {
+            return;
+        }
+        String index = null;
+        long count = 0;
+        long failed = 0;
+        long rejected = 0;
+        for (BulkItemResponse item : items) {
+            if (!Objects.equals(index, item.getIndex())) {
+                if (Objects.nonNull(index)) {
+                    registry.recordItems(operation, index, count, failed, rejected);
+                }
+                index = item.getIndex();
+                count = 0;
+                failed = 0;
+                rejected = 0;
+            }
+            count++;
+            if (item.isFailed()) {
+                failed++;
+                if (RestStatus.TOO_MANY_REQUESTS.equals(item.getFailure().getStatus())) {
+                    rejected++;
+                }
+            }
+        }
+        if (Objects.nonNull(index)) {
+            registry.recordItems(operation, index, count, failed, rejected);
+        }
+    }
+
+    private static long payloadBytes(DocWriteRequest request) {
+        if (request instanceof IndexRequest) {
+            IndexRequest indexRequest = (IndexRequest) request;
+            return Objects.isNull(indexRequest.source()) ? 0 : indexRequest.source().length();
+        }
+        if (request instanceof UpdateRequest) {
+            IndexRequest doc = ((UpdateRequest) request).doc();
+            return Objects.isNull(doc) || Objects.isNull(doc.source()) ? 0 : doc.source().length();
+        }
+        return 0;
+    }
+}
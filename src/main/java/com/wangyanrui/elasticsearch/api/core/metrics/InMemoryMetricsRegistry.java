@@ -0,0 +1,123 @@
+package com.wangyanrui.elasticsearch.api.core.metrics;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Title: InMemoryMetricsRegistry
+ * Description: 进程内的指标收集
+ * <p>
+ * 按 操作类型 -> 索引 两级保存 {@link OperationStats}, 查找不拼接字符串; 记录只有原子加, 不加锁
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationStats>> stats = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLatency(String operation, String index, long latencyNanos, Throwable error) {
+        boolean rejected = Objects.nonNull(error)
+                && RestStatus.TOO_MANY_REQUESTS.equals(ExceptionsHelper.status(error));
+        getStats(operation, index).recordLatency(latencyNanos, Objects.nonNull(error), rejected);
+    }
+
+    @Override
+    public void recordServerTook(String operation, String index, long tookMillis) {
+        getStats(operation, index).recordServerTook(tookMillis);
+    }
+
+    @Override
+    public void recordItems(String operation, String index, long items, long failedItems, long rejectedItems) {
+        getStats(operation, index).recordItems(items, failedItems, rejectedItems);
+    }
+
+    @Override
+    public void recordBytes(String operation, String index, long bytes) {
+        getStats(operation, index).recordBytes(bytes);
+    }
+
+    @Override
+    public void recordGauge(String operation, String name, long value) {
+        String key = operation + "." + name;
+        AtomicLong gauge = gauges.get(key);
+        if (Objects.isNull(gauge)) {
+            gauge = gauges.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        gauge.set(value);
+    }
+
+    /**
+     * 获取瞬时值
+     *
+     * @param operation 操作类型
+     * @param name      名称
+     * @return 最近一次记录的值, 未记录时返回null
+     */
+    public Long getGauge(String operation, String name) {
+        AtomicLong gauge = gauges.get(operation + "." + name);
+        return Objects.isNull(gauge) ? null : gauge.get();
+    }
+
+    /**
+     * 获取(不存在时创建)指定 操作类型 + 索引 的指标
+     *
+     * @param operation 操作类型
+     * @param index     索引名称
+     * @return OperationStats
+     */
+    public OperationStats getStats(String operation, String index) {
+        String indexKey = Objects.isNull(index) ? "" : index;
+        ConcurrentMap<String, OperationStats> byIndex = stats.get(operation);
+        if (Objects.isNull(byIndex)) {
+            byIndex = stats.computeIfAbsent(operation, key -> new ConcurrentHashMap<>());
+        }
+        OperationStats operationStats = byIndex.get(indexKey);
+        if (Objects.isNull(operationStats)) {
+            operationStats = byIndex.computeIfAbsent(indexKey, key -> new OperationStats(operation, key));
+        }
+        return operationStats;
+    }
+
+    /**
+     * 全部指标
+     *
+     * @return OperationStats 集合
+     */
+    public List<OperationStats> getAllStats() {
+        List<OperationStats> result = new ArrayList<>();
+        for (ConcurrentMap<String, OperationStats> byIndex : stats.values()) {
+            result.addAll(byIndex.values());
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (OperationStats operationStats : getAllStats()) {
+            operationStats.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("InMemoryMetricsRegistry:");
+        for (OperationStats operationStats : getAllStats()) {
+            builder.append("\r\n").append(operationStats);
+        }
+        for (Map.Entry<String, AtomicLong> gauge : gauges.entrySet()) {
+            builder.append("\r\n").append(gauge.getKey()).append(" = ").append(gauge.getValue().get());
+        }
+        return builder.toString();
+    }
+}
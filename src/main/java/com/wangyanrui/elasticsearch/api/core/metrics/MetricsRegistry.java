@@ -0,0 +1,89 @@
+package com.wangyanrui.elasticsearch.api.core.metrics;
+
+/**
+ * Title: MetricsRegistry
+ * Description: 指标收集 SPI
+ * <p>
+ * ElasticWriter/ElasticReader/ElasticAdmin 按 操作类型 + 索引 上报指标, 操作类型见 ElasticConstant.Metrics.
+ * 默认为 {@link #NOOP}, 不做任何计时; 进程内实现见 {@link InMemoryMetricsRegistry},
+ * 也可以实现此接口对接 Micrometer/Prometheus 等.
+ * <p>
+ * notification: 方法会在调用线程和 transport 响应线程中被并发调用, 实现必须线程安全且不能阻塞
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface MetricsRegistry {
+
+    /**
+     * 不收集任何指标
+     */
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * 是否收集指标, 为false时调用方跳过计时
+     *
+     * @return 是否收集
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * 一次操作完成(客户端视角的耗时, 含序列化与网络)
+     *
+     * @param operation    操作类型
+     * @param index        索引名称(多个索引时以逗号分隔)
+     * @param latencyNanos 耗时(纳秒)
+     * @param error        失败原因, 成功时为空
+     */
+    default void recordLatency(String operation, String index, long latencyNanos, Throwable error) {
+    }
+
+    /**
+     * 服务端报告的耗时(search/bulk 响应中的 took)
+     *
+     * @param operation  操作类型
+     * @param index      索引名称
+     * @param tookMillis 耗时(毫秒)
+     */
+    default void recordServerTook(String operation, String index, long tookMillis) {
+    }
+
+    /**
+     * 批量操作的条目数量
+     *
+     * @param operation     操作类型
+     * @param index         索引名称
+     * @param items         条目数量
+     * @param failedItems   失败的条目数量
+     * @param rejectedItems 其中被拒绝(429)的条目数量
+     */
+    default void recordItems(String operation, String index, long items, long failedItems, long rejectedItems) {
+    }
+
+    /**
+     * 请求负载的字节数
+     *
+     * @param operation 操作类型
+     * @param index     索引名称
+     * @param bytes     字节数
+     */
+    default void recordBytes(String operation, String index, long bytes) {
+    }
+
+    /**
+     * 瞬时值(如自适应并发的当前并发上限、排队数量), 名称见 ElasticConstant.Metrics.GAUGE_*
+     *
+     * @param operation 操作类型
+     * @param name      名称
+     * @param value     当前值
+     */
+    default void recordGauge(String operation, String name, long value) {
+    }
+}
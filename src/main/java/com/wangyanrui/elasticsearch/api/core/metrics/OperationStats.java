@@ -0,0 +1,163 @@
+package com.wangyanrui.elasticsearch.api.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Title: OperationStats
+ * Description: 单个 操作类型 + 索引 的指标
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class OperationStats {
+
+    private final String operation;
+
+    private final String index;
+
+    /**
+     * 客户端耗时(纳秒)
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * 服务端耗时(毫秒)
+     */
+    private final LatencyHistogram serverTook = new LatencyHistogram();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private final LongAdder items = new LongAdder();
+
+    private final LongAdder failedItems = new LongAdder();
+
+    private final LongAdder rejectedItems = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private volatile long startNanos = System.nanoTime();
+
+    public OperationStats(String operation, String index) {
+        this.operation = operation;
+        this.index = index;
+    }
+
+    void recordLatency(long latencyNanos, boolean error, boolean rejected) {
+        latency.record(latencyNanos);
+        if (error) {
+            errors.increment();
+        }
+        if (rejected) {
+            rejections.increment();
+        }
+    }
+
+    void recordServerTook(long tookMillis) {
+        serverTook.record(tookMillis);
+    }
+
+    void recordItems(long items, long failedItems, long rejectedItems) {
+        this.items.add(items);
+        this.failedItems.add(failedItems);
+        this.rejectedItems.add(rejectedItems);
+    }
+
+    void recordBytes(long bytes) {
+        this.bytes.add(bytes);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public LatencyHistogram getServerTook() {
+        return serverTook;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public long getItems() {
+        return items.sum();
+    }
+
+    public long getFailedItems() {
+        return failedItems.sum();
+    }
+
+    public long getRejectedItems() {
+        return rejectedItems.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * 自创建(或 reset)以来的平均吞吐量
+     *
+     * @return 操作数/秒
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0 : getCount() / seconds;
+    }
+
+    /**
+     * 自创建(或 reset)以来的平均条目吞吐量
+     *
+     * @return 条目数/秒
+     */
+    public double getItemThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0 : getItems() / seconds;
+    }
+
+    public void reset() {
+        latency.reset();
+        serverTook.reset();
+        errors.reset();
+        rejections.reset();
+        items.reset();
+        failedItems.reset();
+        rejectedItems.reset();
+        bytes.reset();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return operation + "[" + index + "]: count=" + getCount()
+                + ", errors=" + getErrors()
+                + ", rejections=" + getRejections()
+                + String.format(", throughput=%.1f/s", getThroughput())
+                + ", p50=" + TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(50)) + "us"
+                + ", p99=" + TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(99)) + "us"
+                + ", p999=" + TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(99.9)) + "us"
+                + ", max=" + TimeUnit.NANOSECONDS.toMicros(latency.getMax()) + "us"
+                + ", serverP99=" + serverTook.getPercentile(99) + "ms"
+                + ", items=" + getItems()
+                + ", failedItems=" + getFailedItems()
+                + ", bytes=" + getBytes();
+    }
+}
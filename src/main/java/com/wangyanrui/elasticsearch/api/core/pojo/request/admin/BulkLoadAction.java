@@ -0,0 +1,43 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.admin;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: BulkLoadAction
+ * Description: 批量导入会话 数据封装
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class BulkLoadAction {
+    /**
+     * 索引名称(可以是别名或通配符, 作用于匹配到的全部索引)
+     */
+    @NonNull
+    private String index;
+    /**
+     * 导入期间是否关闭刷新(refresh_interval: -1)
+     */
+    private boolean disableRefresh = true;
+    /**
+     * 导入期间的副本数量, 为空表示不修改
+     */
+    private Integer numberOfReplicas = ElasticConstant.BulkLoad.NUMBER_OF_REPLICAS;
+    /**
+     * 导入期间是否异步持久化 translog(index.translog.durability: async)
+     */
+    private boolean asyncTranslog = true;
+    /**
+     * 结束时段合并后每个分片的最大段数量, 小于等于0表示不合并
+     */
+    private int maxNumSegments = 0;
+    /**
+     * 结束时等待副本恢复(green)的超时时间(毫秒), 小于等于0表示不等待
+     */
+    private long waitForGreenTimeoutMillis = ElasticConstant.BulkLoad.WAIT_FOR_GREEN_TIMEOUT_MILLIS;
+}
@@ -0,0 +1,40 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.bulk;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: BulkBatchTuningPolicy
+ * Description: 批次字节数自动调整策略 数据封装
+ * <p>
+ * 每个批量请求完成后, 按 字节数 / 耗时 估算出达到目标耗时所需的字节数, 当前批次字节数向其靠近 smoothing 的比例
+ * (单次最多放大或缩小一倍); 有条目被拒绝(429)时减半. 批次字节数始终在 [minSizeBytes, maxSizeBytes] 之间
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class BulkBatchTuningPolicy {
+    /**
+     * 批量请求(单次尝试)的目标耗时(毫秒)
+     */
+    private long targetLatencyMillis = ElasticConstant.BatchTuning.TARGET_LATENCY_MILLIS;
+    /**
+     * 初始批次字节数
+     */
+    private long initialSizeBytes = ElasticConstant.BatchTuning.INITIAL_SIZE_BYTES;
+    /**
+     * 最小批次字节数
+     */
+    private long minSizeBytes = ElasticConstant.BatchTuning.MIN_SIZE_BYTES;
+    /**
+     * 最大批次字节数
+     */
+    private long maxSizeBytes = ElasticConstant.BatchTuning.MAX_SIZE_BYTES;
+    /**
+     * 每次采样向目标值靠近的比例, 取值 (0, 1]
+     */
+    private double smoothing = ElasticConstant.BatchTuning.SMOOTHING;
+}
@@ -0,0 +1,44 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.bulk;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: BulkConcurrencyPolicy
+ * Description: 批量请求自适应并发(AIMD)策略 数据封装
+ * <p>
+ * 每完成一个批量请求采样一次: 被拒绝(429)条目的比例或耗时超过阈值时, 并发上限乘以 backoffRatio;
+ * 否则在并发已被充分使用时(执行中的请求数不少于上限的一半)上限加1. 上限始终在 [minLimit, maxLimit] 之间
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class BulkConcurrencyPolicy {
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = ElasticConstant.Concurrency.INITIAL_LIMIT;
+    /**
+     * 最小并发上限(至少为1)
+     */
+    private int minLimit = ElasticConstant.Concurrency.MIN_LIMIT;
+    /**
+     * 最大并发上限
+     */
+    private int maxLimit = ElasticConstant.Concurrency.MAX_LIMIT;
+    /**
+     * 出现拥塞信号时并发上限乘以该系数, 取值 (0, 1)
+     */
+    private double backoffRatio = ElasticConstant.Concurrency.BACKOFF_RATIO;
+    /**
+     * 被拒绝(429)条目的比例超过该值视为拥塞
+     */
+    private double rejectionRateThreshold = ElasticConstant.Concurrency.REJECTION_RATE_THRESHOLD;
+    /**
+     * 批量请求(含重试)的耗时超过该值(毫秒)视为拥塞, 小于等于0表示不按耗时判断
+     */
+    private long latencyThresholdMillis = ElasticConstant.Concurrency.LATENCY_THRESHOLD_MILLIS;
+}
@@ -0,0 +1,40 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.bulk;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: BulkRetryPolicy
+ * Description: 批量请求中被拒绝(429)条目的重试策略 数据封装
+ * <p>
+ * 只重发被拒绝的条目; 第 n 次重试前等待 [0, min(maxBackoff, initialBackoff * 2^(n-1))) 之间的随机时间;
+ * 重试消耗重试预算, 预算不足时剩余的条目不再重试, 保留拒绝结果
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class BulkRetryPolicy {
+    /**
+     * 最大重试次数, 小于等于0表示不重试
+     */
+    private int maxRetries = ElasticConstant.Retry.MAX_RETRIES;
+    /**
+     * 首次重试的退避上限(毫秒)
+     */
+    private long initialBackoffMillis = ElasticConstant.Retry.INITIAL_BACKOFF_MILLIS;
+    /**
+     * 退避的最大值(毫秒)
+     */
+    private long maxBackoffMillis = ElasticConstant.Retry.MAX_BACKOFF_MILLIS;
+    /**
+     * 每条首次发送的请求存入的重试额度, 即持续过载时重试量不超过写入量的该比例
+     */
+    private double budgetRatio = ElasticConstant.Retry.BUDGET_RATIO;
+    /**
+     * 重试预算的最大额度(也是初始额度), 每重试一条消耗1
+     */
+    private int budgetCapacity = ElasticConstant.Retry.BUDGET_CAPACITY;
+}
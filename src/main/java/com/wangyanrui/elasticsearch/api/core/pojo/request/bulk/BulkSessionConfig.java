@@ -0,0 +1,38 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.bulk;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: BulkSessionConfig
+ * Description: 批量写入会话配置 数据封装
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class BulkSessionConfig {
+    /**
+     * 达到该请求数量时刷新, 小于等于0表示不限制
+     */
+    private int bulkActions = ElasticConstant.Bulk.ACTIONS;
+    /**
+     * 达到该字节数时刷新, 小于等于0表示不限制
+     */
+    private long bulkSizeBytes = ElasticConstant.Bulk.SIZE_BYTES;
+    /**
+     * 定时刷新间隔(毫秒), 小于等于0表示不定时刷新
+     */
+    private long flushIntervalMillis = ElasticConstant.Bulk.FLUSH_INTERVAL_MILLIS;
+    /**
+     * 同时执行中的批量请求数量(至少为1), 达到上限后 add 会阻塞等待
+     */
+    private int concurrentRequests = ElasticConstant.Bulk.CONCURRENT_REQUESTS;
+    /**
+     * 批次字节数自动调整策略, 为空表示按 bulkActions/bulkSizeBytes 刷新;
+     * 不为空时按调整后的字节数刷新, bulkActions 与 bulkSizeBytes 不再生效
+     */
+    private BulkBatchTuningPolicy batchTuning;
+}
@@ -0,0 +1,112 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.client;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title: ElasticClientConfig
+ * Description: ElasticClient 连接配置 数据封装
+ * <p>
+ * 为空的可选项不写入 Settings, 使用 ElasticSearch 的默认值
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class ElasticClientConfig {
+    /**
+     * 集群名称
+     */
+    @NonNull
+    private String clusterName;
+    /**
+     * 种子节点, host 或 host:port(IPv6 写作 [host]:port), 未指定端口时使用 9300
+     */
+    @NonNull
+    private List<String> seedNodes = new ArrayList<>();
+    /**
+     * 是否嗅探集群中的其他节点(client.transport.sniff)
+     */
+    private boolean sniff = true;
+    /**
+     * 每个节点的连接数: 恢复(transport.connections_per_node.recovery)
+     */
+    private Integer connectionsPerNodeRecovery;
+    /**
+     * 每个节点的连接数: 批量写入(transport.connections_per_node.bulk)
+     */
+    private Integer connectionsPerNodeBulk;
+    /**
+     * 每个节点的连接数: 常规请求, 包括查询和单条写入(transport.connections_per_node.reg)
+     */
+    private Integer connectionsPerNodeReg;
+    /**
+     * 每个节点的连接数: 集群状态(transport.connections_per_node.state)
+     */
+    private Integer connectionsPerNodeState;
+    /**
+     * 每个节点的连接数: ping(transport.connections_per_node.ping)
+     */
+    private Integer connectionsPerNodePing;
+    /**
+     * 节点 ping 超时时间(毫秒)(client.transport.ping_timeout)
+     */
+    private Long pingTimeoutMillis;
+    /**
+     * 节点采样/嗅探间隔(毫秒)(client.transport.nodes_sampler_interval)
+     */
+    private Long nodesSamplerIntervalMillis;
+    /**
+     * 连接保活 ping 间隔(毫秒), -1 表示关闭(transport.ping_schedule)
+     */
+    private Long pingScheduleMillis;
+    /**
+     * 是否压缩传输内容(transport.tcp.compress), 跨机房等带宽受限时开启
+     */
+    private Boolean compress;
+    /**
+     * netty 工作线程数(transport.netty.worker_count), 默认为 CPU 核数的两倍
+     */
+    private Integer nettyWorkerCount;
+    /**
+     * 底层 TransportClient 的数量, 大于1时轮询使用; 每个实例各自建立连接并各自占用 netty 工作线程
+     */
+    private int poolSize = ElasticConstant.Client.POOL_SIZE;
+    /**
+     * 其他 Settings, 会覆盖以上同名配置
+     */
+    @NonNull
+    private Map<String, String> settings = new LinkedHashMap<>();
+
+    /**
+     * 添加种子节点
+     *
+     * @param host host
+     * @param port port
+     * @return this
+     */
+    public ElasticClientConfig addSeedNode(String host, int port) {
+        this.seedNodes.add(host + ":" + port);
+        return this;
+    }
+
+    /**
+     * 添加其他 Settings
+     *
+     * @param key   key
+     * @param value value
+     * @return this
+     */
+    public ElasticClientConfig putSetting(String key, String value) {
+        this.settings.put(key, value);
+        return this;
+    }
+}
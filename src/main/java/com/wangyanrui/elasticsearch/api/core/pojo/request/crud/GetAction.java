@@ -5,6 +5,7 @@ import lombok.NonNull;
 import lombok.experimental.Accessors;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Title: GetAction
@@ -30,6 +31,14 @@ public class GetAction {
      * 查询结果集字段
      */
     private String[] fields;
+    /**
+     * _source 中返回的字段(支持通配符), 为空时返回全部字段
+     */
+    private String[] sourceIncludes;
+    /**
+     * _source 中排除的字段(支持通配符)
+     */
+    private String[] sourceExcludes;
     /**
      * 版本号
      */
@@ -40,6 +49,25 @@ public class GetAction {
         return this;
     }
 
+    public GetAction setSourceIncludes(String... sourceIncludes) {
+        this.sourceIncludes = sourceIncludes;
+        return this;
+    }
+
+    public GetAction setSourceExcludes(String... sourceExcludes) {
+        this.sourceExcludes = sourceExcludes;
+        return this;
+    }
+
+    /**
+     * 是否指定了 _source 过滤
+     *
+     * @return 是否指定了 sourceIncludes/sourceExcludes
+     */
+    public boolean isSourceFiltered() {
+        return Objects.nonNull(sourceIncludes) || Objects.nonNull(sourceExcludes);
+    }
+
     public GetAction setFields(List<String> fields) {
         fields.toArray(this.fields);
         return this;
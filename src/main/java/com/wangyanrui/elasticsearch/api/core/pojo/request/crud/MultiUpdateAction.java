@@ -31,4 +31,16 @@ public class MultiUpdateAction {
      */
     @NonNull
     private QueryBuilder queryBuilder;
+    /**
+     * 切片数量, 在服务端并行执行; 为空表示不切片, 0 表示由服务端按分片数决定(auto)
+     */
+    private Integer slices;
+    /**
+     * 每秒处理的文档数上限, 为空表示不限制
+     */
+    private Float requestsPerSecond;
+    /**
+     * 每批处理的文档数(scroll 每页数量), 为空时使用服务端默认值(1000)
+     */
+    private Integer batchSize;
 }
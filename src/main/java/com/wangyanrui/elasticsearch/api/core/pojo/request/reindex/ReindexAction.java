@@ -0,0 +1,78 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.reindex;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.BulkLoadAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkSessionConfig;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SearchAction;
+import com.wangyanrui.elasticsearch.api.core.reindex.ReindexTransform;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: ReindexAction
+ * Description: 客户端并行重建索引行为 数据封装
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class ReindexAction {
+    /**
+     * 源索引的查询条件(from/size 会被忽略)
+     */
+    @NonNull
+    private SearchAction source;
+    /**
+     * 目标索引名称
+     */
+    @NonNull
+    private String targetIndex;
+    /**
+     * 目标索引不存在时, 创建索引使用的 setting, 可为空
+     */
+    private String targetSetting;
+    /**
+     * 目标索引不存在时, 创建索引使用的 mapping, 可为空
+     */
+    private String targetMapping;
+    /**
+     * 文档转换, 为空时原样复制 _source
+     */
+    private ReindexTransform transform;
+    /**
+     * 切片数量; 也是断点续传的粒度, 未完成的切片续传时从头读取
+     */
+    private int slices = ElasticConstant.Scroll.SLICES;
+    /**
+     * 同时执行的切片数量
+     */
+    private int parallelism = ElasticConstant.Reindex.PARALLELISM;
+    /**
+     * 每页数据量
+     */
+    private int pageSize = ElasticConstant.Scroll.PAGE_SIZE;
+    /**
+     * 游标存活时间(毫秒), 需大于处理一页数据的耗时
+     */
+    private long keepAliveMillis = ElasticConstant.Scroll.KEEP_ALIVE_MILLIS;
+    /**
+     * 每个切片的批量写入会话配置
+     */
+    @NonNull
+    private BulkSessionConfig bulkSessionConfig = new BulkSessionConfig()
+            .setConcurrentRequests(ElasticConstant.Reindex.CONCURRENT_REQUESTS);
+    /**
+     * 断点文件路径, 为空表示不记录断点; 文件存在时跳过其中已完成的切片
+     */
+    private String checkpointFile;
+    /**
+     * 目标索引的批量导入 setting, 为空表示不切换(见 BulkLoadSession), 其中的 index 会被替换为目标索引
+     */
+    private BulkLoadAction bulkLoad;
+    /**
+     * 进度回调间隔(毫秒), 小于等于0表示不定时回调
+     */
+    private long progressIntervalMillis = ElasticConstant.Scroll.PROGRESS_INTERVAL_MILLIS;
+}
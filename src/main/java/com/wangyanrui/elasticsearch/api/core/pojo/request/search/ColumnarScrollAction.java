@@ -0,0 +1,38 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.search;
+
+import com.wangyanrui.elasticsearch.api.core.columnar.ColumnType;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Title: ColumnarScrollAction
+ * Description: 列式游标遍历行为 数据封装
+ * <p>
+ * notification: 字段需开启 doc_values(keyword/数值/日期/ip 等默认开启, text 不支持);
+ * searchAction 中的 sourceIncludes/sourceExcludes 会被忽略
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class ColumnarScrollAction {
+    /**
+     * 游标遍历条件
+     */
+    @NonNull
+    private ScrollAction scrollAction;
+    /**
+     * 读取的列: 字段名称 -> 列类型, 顺序即结果中列的顺序
+     */
+    private Map<String, ColumnType> columns = new LinkedHashMap<>();
+
+    public ColumnarScrollAction addColumn(String field, ColumnType type) {
+        this.columns.put(field, type);
+        return this;
+    }
+}
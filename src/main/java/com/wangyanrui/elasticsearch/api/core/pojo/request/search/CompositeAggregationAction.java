@@ -0,0 +1,61 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.search;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title: CompositeAggregationAction
+ * Description: composite 聚合分页遍历行为 数据封装
+ * <p>
+ * notification: searchAction 中只有 indices/queryBuilder 生效, 不返回文档
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class CompositeAggregationAction {
+    /**
+     * 查询条件
+     */
+    @NonNull
+    private SearchAction searchAction;
+    /**
+     * 分组的来源(terms/histogram/date_histogram), 顺序即桶 key 的顺序
+     */
+    private List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+    /**
+     * 每个桶内的子聚合
+     */
+    private List<AggregationBuilder> subAggregations = new ArrayList<>();
+    /**
+     * 每页桶数量
+     */
+    private int pageSize = ElasticConstant.Composite.PAGE_SIZE;
+    /**
+     * 预取的页数, 调用方处理当前页时最多提前请求的页数
+     */
+    private int prefetch = ElasticConstant.Composite.PREFETCH;
+    /**
+     * 从该 key 之后开始遍历(用于断点续传), 为空时从头开始
+     */
+    private Map<String, Object> after;
+
+    public CompositeAggregationAction addSource(CompositeValuesSourceBuilder<?> source) {
+        this.sources.add(source);
+        return this;
+    }
+
+    public CompositeAggregationAction addSubAggregation(AggregationBuilder subAggregation) {
+        this.subAggregations.add(subAggregation);
+        return this;
+    }
+}
@@ -0,0 +1,53 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.search;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: HedgePolicy
+ * Description: 对冲读(search/get) 策略 数据封装
+ * <p>
+ * 请求在近期延迟的 percentile 百分位内未返回时, 以 hedgePreference 发送相同的请求,
+ * 取先返回的结果; 首次请求不修改 preference. 对冲请求消耗对冲预算, 预算不足时不发送
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class HedgePolicy {
+    /**
+     * 发送对冲请求的延迟: 近期(首次请求)延迟的该百分位, 取值 (0, 1]
+     */
+    private double percentile = ElasticConstant.Hedge.PERCENTILE;
+    /**
+     * 统计近期延迟的样本数量
+     */
+    private int windowSize = ElasticConstant.Hedge.WINDOW_SIZE;
+    /**
+     * 样本数量达到该值之前, 对冲延迟使用 initialDelayMillis
+     */
+    private int minSamples = ElasticConstant.Hedge.MIN_SAMPLES;
+    /**
+     * 样本不足时的对冲延迟(毫秒)
+     */
+    private long initialDelayMillis = ElasticConstant.Hedge.INITIAL_DELAY_MILLIS;
+    /**
+     * 对冲延迟的最小值(毫秒)
+     */
+    private long minDelayMillis = ElasticConstant.Hedge.MIN_DELAY_MILLIS;
+    /**
+     * 每个请求存入的对冲额度, 即额外的请求量不超过该比例
+     */
+    private double budgetRatio = ElasticConstant.Hedge.BUDGET_RATIO;
+    /**
+     * 对冲预算的最大额度(也是初始额度), 每个对冲请求消耗1
+     */
+    private int budgetCapacity = ElasticConstant.Hedge.BUDGET_CAPACITY;
+    /**
+     * 只用于对冲请求的 preference, 如 _prefer_nodes:xxx 指向另一组节点;
+     * 为null时每次使用随机的自定义字符串, 对冲请求随机落在某个分片副本上(可能与首次请求是同一个副本)
+     */
+    private String hedgePreference;
+}
@@ -0,0 +1,33 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.search;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Title: ScrollAction
+ * Description: 游标遍历行为 数据封装
+ * <p>
+ * notification: searchAction 中的 from/size 会被忽略, 每页数据量以 pageSize 为准
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class ScrollAction {
+    /**
+     * 查询条件
+     */
+    @NonNull
+    private SearchAction searchAction;
+    /**
+     * 每页数据量
+     */
+    private int pageSize = ElasticConstant.Scroll.PAGE_SIZE;
+    /**
+     * 游标存活时间(毫秒), 需大于处理一页数据的耗时
+     */
+    private long keepAliveMillis = ElasticConstant.Scroll.KEEP_ALIVE_MILLIS;
+}
@@ -8,6 +8,7 @@ import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Title: SearchAction
@@ -44,6 +45,14 @@ public class SearchAction {
      * 查询结果集字段
      */
     private String[] fields;
+    /**
+     * _source 中返回的字段(支持通配符), 为空时返回全部字段
+     */
+    private String[] sourceIncludes;
+    /**
+     * _source 中排除的字段(支持通配符)
+     */
+    private String[] sourceExcludes;
     /**
      * 聚合 数组
      */
@@ -67,6 +76,25 @@ public class SearchAction {
         return this;
     }
 
+    public SearchAction setSourceIncludes(String... sourceIncludes) {
+        this.sourceIncludes = sourceIncludes;
+        return this;
+    }
+
+    public SearchAction setSourceExcludes(String... sourceExcludes) {
+        this.sourceExcludes = sourceExcludes;
+        return this;
+    }
+
+    /**
+     * 是否指定了 _source 过滤
+     *
+     * @return 是否指定了 sourceIncludes/sourceExcludes
+     */
+    public boolean isSourceFiltered() {
+        return Objects.nonNull(sourceIncludes) || Objects.nonNull(sourceExcludes);
+    }
+
     public SearchAction setAggregationBuilders(AbstractAggregationBuilder... aggregationBuilders) {
         this.aggregationBuilders = aggregationBuilders;
         return this;
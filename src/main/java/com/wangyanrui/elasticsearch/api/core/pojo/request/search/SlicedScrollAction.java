@@ -0,0 +1,37 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.request.search;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Title: SlicedScrollAction
+ * Description: 切片并行游标遍历行为 数据封装
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class SlicedScrollAction {
+    /**
+     * 游标遍历条件
+     */
+    @NonNull
+    private ScrollAction scrollAction;
+    /**
+     * 切片数量, 建议不超过索引的主分片数
+     */
+    private int slices = ElasticConstant.Scroll.SLICES;
+    /**
+     * 执行切片的线程池, 为空时创建 slices 个线程的临时线程池
+     */
+    private ExecutorService executor;
+    /**
+     * 进度回调间隔(毫秒), 小于等于0表示不定时回调
+     */
+    private long progressIntervalMillis = ElasticConstant.Scroll.PROGRESS_INTERVAL_MILLIS;
+}
@@ -37,6 +37,10 @@ public class BulkResult {
      * failure message
      */
     private String failureMessage;
+    /**
+     * 每个条目最终结果所在的尝试次数(1 表示首次发送即完成, 大于1表示被拒绝后重试), 下标与请求顺序一致
+     */
+    private int[] itemAttempts;
 
     @Setter
     @Getter
@@ -0,0 +1,65 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.result.bulk;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.BitSet;
+
+/**
+ * Title: CompactBulkResult
+ * Description: 紧凑的批量操作结果 数据封装
+ * <p>
+ * 与 {@link BulkResult} 不同, 不保留每条响应对象, 也不拼接完整的失败信息,
+ * 只用基本类型数组记录 数量、每条的状态码、失败的条目下标, 适合长时间运行的大批量写入
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class CompactBulkResult {
+    /**
+     * 条目总数
+     */
+    private int total;
+    /**
+     * 成功的条目数量
+     */
+    private int successCount;
+    /**
+     * 失败的条目数量
+     */
+    private int failureCount;
+    /**
+     * 每条的 HTTP 状态码, 下标与请求顺序一致
+     */
+    private short[] statuses;
+    /**
+     * 失败的条目下标
+     */
+    private BitSet failed;
+    /**
+     * 每条最终结果所在的尝试次数, 下标与请求顺序一致
+     */
+    private int[] itemAttempts;
+    /**
+     * 第一个失败条目的失败信息, 没有失败时为空
+     */
+    private String firstFailureMessage;
+    /**
+     * 服务端耗时(毫秒, 含重试)
+     */
+    private long tookMillis;
+
+    public boolean hasFailures() {
+        return failureCount > 0;
+    }
+
+    public boolean isFailed(int position) {
+        return failed.get(position);
+    }
+
+    public int getStatus(int position) {
+        return statuses[position];
+    }
+}
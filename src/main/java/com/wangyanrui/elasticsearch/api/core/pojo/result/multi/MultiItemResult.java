@@ -0,0 +1,36 @@
+package com.wangyanrui.elasticsearch.api.core.pojo.result.multi;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Objects;
+
+/**
+ * Title: MultiItemResult
+ * Description: MultiGet/MultiSearch 单项结果 数据封装
+ * <p>
+ * 单项失败(文档不存在、分片异常、所在的分块请求失败)时 failureMessage 不为空, 不影响其他项
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Data
+@Accessors(chain = true)
+public class MultiItemResult<T> {
+    /**
+     * response, 失败时可能为空(文档不存在时为 isExists=false 的响应)
+     */
+    private T response;
+    /**
+     * failure message
+     */
+    private String failureMessage;
+    /**
+     * failure cause, 可能为空
+     */
+    private Throwable failure;
+
+    public boolean isFailed() {
+        return Objects.nonNull(failureMessage);
+    }
+}
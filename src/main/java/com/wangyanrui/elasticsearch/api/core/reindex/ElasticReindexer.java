@@ -0,0 +1,340 @@
+package com.wangyanrui.elasticsearch.api.core.reindex;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.ElasticAdmin;
+import com.wangyanrui.elasticsearch.api.core.ElasticReader;
+import com.wangyanrui.elasticsearch.api.core.ElasticWriter;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkLoadSession;
+import com.wangyanrui.elasticsearch.api.core.bulk.BulkSessionListener;
+import com.wangyanrui.elasticsearch.api.core.bulk.ElasticBulkSession;
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.AdminAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.IndexAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.reindex.ReindexAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.ScrollAction;
+import com.wangyanrui.elasticsearch.api.core.scroll.ScrollCursor;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.mapper.ParentFieldMapper;
+import org.elasticsearch.index.mapper.RoutingFieldMapper;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Title: ElasticReindexer
+ * Description: 客户端并行重建索引
+ * <p>
+ * 源索引按切片并行 scroll 读取, 每条文档经 {@link ReindexTransform} 转换后, 由每个切片各自的批量写入会话写入目标索引.
+ * 切片的文档全部写入成功后记录断点, 中断后再次执行时跳过已完成的切片; 未完成的切片从头读取,
+ * 文档按 ID 覆盖写入, 重复写入不影响结果.
+ * <p>
+ * notification: 任一切片读取失败时其余切片停止, 异常抛给调用方; 写入失败的文档计入 failed, 其所在的切片不记录断点
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class ElasticReindexer {
+
+    private static final String DEFAULT_TYPE_NAME = ElasticConstant.Default.TYPE_NAME;
+
+    private final ElasticReader reader;
+
+    private final ElasticWriter writer;
+
+    private final ElasticAdmin admin;
+
+    public ElasticReindexer(ElasticClient client) {
+        this(new ElasticReader(client), new ElasticWriter(client), new ElasticAdmin(client));
+    }
+
+    /**
+     * @param reader 读取源索引
+     * @param writer 写入目标索引(其重试、自适应并发、批次调整等设置同样生效)
+     * @param admin  创建目标索引、切换批量导入 setting
+     */
+    public ElasticReindexer(ElasticReader reader, ElasticWriter writer, ElasticAdmin admin) {
+        this.reader = reader;
+        this.writer = writer;
+        this.admin = admin;
+    }
+
+    /**
+     * 重建索引, 阻塞直到全部完成
+     *
+     * @param reindexAction 重建索引条件
+     * @return 最终进度
+     * @see ReindexAction
+     */
+    public ReindexProgress reindex(ReindexAction reindexAction) {
+        return reindex(reindexAction, null);
+    }
+
+    /**
+     * 重建索引, 阻塞直到全部完成
+     *
+     * @param reindexAction 重建索引条件
+     * @param listener      进度回调, 可为空
+     * @return 最终进度
+     * @see ReindexAction
+     */
+    public ReindexProgress reindex(ReindexAction reindexAction, ReindexProgressListener listener) {
+        final int slices = Math.max(1, reindexAction.getSlices());
+        final ReindexProgressListener progressListener = Objects.nonNull(listener)
+                ? listener : new ReindexProgressListener() {
+        };
+        final ReindexCheckpoint checkpoint = Objects.nonNull(reindexAction.getCheckpointFile())
+                ? new ReindexCheckpoint(reindexAction.getCheckpointFile(), signature(reindexAction), slices) : null;
+        final ReindexProgress progress = new ReindexProgress(slices);
+        final AtomicBoolean failed = new AtomicBoolean(false);
+
+        prepareTarget(reindexAction);
+        BulkLoadSession bulkLoadSession = null;
+        if (Objects.nonNull(reindexAction.getBulkLoad())) {
+            bulkLoadSession = admin.openBulkLoadSession(
+                    reindexAction.getBulkLoad().setIndex(reindexAction.getTargetIndex()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(slices, Math.max(1, reindexAction.getParallelism())),
+                ElasticThreads.daemonThreadFactory("elastic-reindex"));
+        ScheduledExecutorService reporter = null;
+        if (reindexAction.getProgressIntervalMillis() > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(
+                    ElasticThreads.daemonThreadFactory("elastic-reindex-progress"));
+            reporter.scheduleAtFixedRate(() -> reportProgress(progressListener, progress),
+                    reindexAction.getProgressIntervalMillis(),
+                    reindexAction.getProgressIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        boolean success = false;
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[slices];
+            for (int i = 0; i < slices; i++) {
+                final int sliceId = i;
+                if (Objects.nonNull(checkpoint) && checkpoint.isDone(sliceId)) {
+                    progress.sliceResumed(sliceId);
+                    futures[i] = CompletableFuture.completedFuture(null);
+                    continue;
+                }
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        reindexSlice(reindexAction, sliceId, slices, checkpoint, progressListener, progress, failed);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(futures).get();
+            success = true;
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.REINDEX_INTERRUPTED);
+        } catch (ExecutionException e) {
+            Throwable cause = ElasticFutures.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            progress.finish();
+            if (Objects.nonNull(reporter)) {
+                reporter.shutdownNow();
+            }
+            executor.shutdownNow();
+            finishBulkLoad(bulkLoadSession, success);
+        }
+
+        log.debug("ElasticReindexer: finished, " + progress);
+        return progress;
+    }
+
+    private void reindexSlice(ReindexAction reindexAction, int sliceId, int slices, ReindexCheckpoint checkpoint,
+                              ReindexProgressListener listener, ReindexProgress progress, AtomicBoolean failed) {
+        ScrollAction scrollAction = new ScrollAction(reindexAction.getSource())
+                .setPageSize(reindexAction.getPageSize())
+                .setKeepAliveMillis(reindexAction.getKeepAliveMillis());
+
+        long totalHits = -1;
+        long read = 0;
+        try (ScrollCursor cursor = reader.scrollPages(scrollAction, sliceId, slices)) {
+            ElasticBulkSession session = writer.openBulkSession(reindexAction.getBulkSessionConfig(),
+                    new SliceListener(sliceId, listener, progress));
+            try {
+                while (!failed.get() && cursor.hasNext()) {
+                    SearchHit[] hits = cursor.next();
+                    if (totalHits < 0) {
+                        totalHits = cursor.getTotalHits();
+                        progress.setSliceTotal(sliceId, totalHits);
+                    }
+                    for (SearchHit hit : hits) {
+                        DocWriteRequest<?> request = toRequest(reindexAction, hit);
+                        if (Objects.isNull(request)) {
+                            progress.skipped(sliceId);
+                        } else {
+                            session.add(request);
+                        }
+                    }
+                    progress.read(sliceId, hits.length);
+                    read += hits.length;
+                }
+            } finally {
+                // 等待该切片的写入全部完成
+                session.close();
+            }
+            if (totalHits < 0) {
+                totalHits = Math.max(0, cursor.getTotalHits());
+                progress.setSliceTotal(sliceId, totalHits);
+            }
+        }
+
+        if (failed.get()) {
+            return;
+        }
+        // 读取的数量与切片的命中总数不一致时, 不能记录 checkpoint(续传会跳过缺失的文档)
+        OperaExceptionHandler.flagCheck(read != totalHits, ElasticMessage.OperaErrorMsg.REINDEX_SLICE_INCOMPLETE
+                + "slice " + sliceId + ", read " + read + " of " + totalHits);
+        if (progress.getSliceFailed(sliceId) > 0) {
+            log.warn("ElasticReindexer: slice " + sliceId + " has " + progress.getSliceFailed(sliceId)
+                    + " failed document(s), checkpoint not recorded");
+            return;
+        }
+        if (Objects.nonNull(checkpoint)) {
+            checkpoint.markDone(sliceId, progress.getSliceWritten(sliceId));
+        }
+        progress.sliceDone(sliceId);
+        try {
+            listener.onSliceComplete(sliceId, progress);
+        } catch (Exception e) {
+            log.warn("ElasticReindexer: listener onSliceComplete error", e);
+        }
+    }
+
+    /**
+     * 转换为写入请求, 按 ID 覆盖写入(续传时重复写入不冲突).
+     * 未指定 transform 时保留源文档的 _routing/_parent
+     *
+     * @return 写入请求, 跳过时返回null
+     */
+    private IndexRequest toRequest(ReindexAction reindexAction, SearchHit hit) {
+        if (Objects.isNull(reindexAction.getTransform())) {
+            if (Objects.isNull(hit.getSourceRef())) {
+                return null;
+            }
+            return writer.getIndexRequestBuilder()
+                    .setIndex(reindexAction.getTargetIndex())
+                    .setType(DEFAULT_TYPE_NAME)
+                    .setId(hit.getId())
+                    .setRouting(metadataField(hit, RoutingFieldMapper.NAME))
+                    .setParent(metadataField(hit, ParentFieldMapper.NAME))
+                    .setSource(hit.getSourceRef(), XContentType.JSON)
+                    .request();
+        }
+
+        IndexAction indexAction = reindexAction.getTransform().transform(hit, reindexAction.getTargetIndex());
+        if (Objects.isNull(indexAction)) {
+            return null;
+        }
+        return writer.getIndexRequestBuilder(indexAction).setCreate(false).request();
+    }
+
+    private static String metadataField(SearchHit hit, String name) {
+        DocumentField field = hit.field(name);
+        return Objects.isNull(field) ? null : field.getValue();
+    }
+
+    private void prepareTarget(ReindexAction reindexAction) {
+        if (!admin.existsIndex(reindexAction.getTargetIndex())) {
+            log.debug("ElasticReindexer: create target index [" + reindexAction.getTargetIndex() + "]");
+            admin.createIndex(new AdminAction(reindexAction.getTargetIndex())
+                    .setSetting(reindexAction.getTargetSetting())
+                    .setMapping(reindexAction.getTargetMapping()));
+        }
+    }
+
+    /**
+     * 成功时结束批量导入(异常抛给调用方); 失败时尽量恢复目标索引的 setting
+     */
+    private static void finishBulkLoad(BulkLoadSession bulkLoadSession, boolean success) {
+        if (Objects.isNull(bulkLoadSession)) {
+            return;
+        }
+        if (success) {
+            bulkLoadSession.close();
+            return;
+        }
+        try {
+            bulkLoadSession.close();
+        } catch (RuntimeException e) {
+            log.warn("ElasticReindexer: restore target index settings failure", e);
+        }
+    }
+
+    /**
+     * 请求签名: 源索引 + 查询条件 + 目标索引, 用于校验断点文件
+     */
+    private static String signature(ReindexAction reindexAction) {
+        String source = Arrays.toString(reindexAction.getSource().getIndices())
+                + reindexAction.getSource().getQueryBuilder();
+        return reindexAction.getTargetIndex() + "@" + Integer.toHexString(source.hashCode());
+    }
+
+    private static void reportProgress(ReindexProgressListener listener, ReindexProgress progress) {
+        log.debug("ElasticReindexer: " + progress);
+        try {
+            listener.onProgress(progress);
+        } catch (Exception e) {
+            log.warn("ElasticReindexer: listener onProgress error", e);
+        }
+    }
+
+    /**
+     * 单个切片的写入结果回调
+     */
+    private static final class SliceListener implements BulkSessionListener {
+        private final int sliceId;
+        private final ReindexProgressListener listener;
+        private final ReindexProgress progress;
+
+        private SliceListener(int sliceId, ReindexProgressListener listener, ReindexProgress progress) {
+            this.sliceId = sliceId;
+            this.listener = listener;
+            this.progress = progress;
+        }
+
+        @Override
+        public void onResponse(DocWriteRequest<?> request, BulkItemResponse response) {
+            if (response.isFailed()) {
+                progress.failed(sliceId);
+                listener.onItemFailure(request, response.getFailureMessage());
+            } else {
+                progress.written(sliceId);
+            }
+        }
+
+        @Override
+        public void onFailure(DocWriteRequest<?> request, Throwable cause) {
+            progress.failed(sliceId);
+            listener.onItemFailure(request, String.valueOf(cause));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.wangyanrui.elasticsearch.api.core.reindex;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Title: ReindexCheckpoint
+ * Description: 重建索引的断点文件
+ * <p>
+ * 以 properties 格式记录 请求签名、切片数量 与 已完成的切片; 每完成一个切片先写临时文件再原子替换,
+ * 进程中断时文件总是完整的. 签名或切片数量不一致时拒绝续传
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ReindexCheckpoint {
+
+    private static final String SIGNATURE = "signature";
+
+    private static final String SLICES = "slices";
+
+    private static final String SLICE_PREFIX = "slice.";
+
+    private final Path file;
+
+    private final Properties properties = new Properties();
+
+    /**
+     * 加载断点文件, 不存在时创建新的断点
+     *
+     * @param file      断点文件路径
+     * @param signature 请求签名
+     * @param slices    切片数量
+     */
+    public ReindexCheckpoint(String file, String signature, int slices) {
+        this.file = Paths.get(file);
+        if (Files.exists(this.file)) {
+            try (InputStream in = Files.newInputStream(this.file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.REINDEX_CHECKPOINT_IO_ERROR + file);
+            }
+            OperaExceptionHandler.flagCheck(!Objects.equals(signature, properties.getProperty(SIGNATURE))
+                            || !Objects.equals(String.valueOf(slices), properties.getProperty(SLICES)),
+                    ElasticMessage.OperaErrorMsg.REINDEX_CHECKPOINT_MISMATCH + file);
+        } else {
+            properties.setProperty(SIGNATURE, signature);
+            properties.setProperty(SLICES, String.valueOf(slices));
+        }
+    }
+
+    /**
+     * 切片是否已完成
+     *
+     * @param sliceId 切片ID
+     * @return 是否已完成
+     */
+    public synchronized boolean isDone(int sliceId) {
+        return properties.containsKey(SLICE_PREFIX + sliceId);
+    }
+
+    /**
+     * 记录切片完成, 并写入文件
+     *
+     * @param sliceId 切片ID
+     * @param written 该切片写入的文档数
+     */
+    public synchronized void markDone(int sliceId, long written) {
+        properties.setProperty(SLICE_PREFIX + sliceId, String.valueOf(written));
+        save();
+    }
+
+    private void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (Objects.nonNull(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "reindex checkpoint");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.REINDEX_CHECKPOINT_IO_ERROR + file);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.wangyanrui.elasticsearch.api.core.reindex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Title: ReindexProgress
+ * Description: 重建索引的进度, 各切片独立计数, 可在执行过程中并发读取
+ * <p>
+ * 断点续传时跳过的切片不计入本次的文档数与总数
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ReindexProgress {
+
+    private final int slices;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLongArray sliceRead;
+
+    private final AtomicLongArray sliceWritten;
+
+    private final AtomicLongArray sliceFailed;
+
+    private final AtomicLongArray sliceSkipped;
+
+    /**
+     * 各切片匹配的文档总数, -1 表示尚未取到第一页
+     */
+    private final AtomicLongArray sliceTotals;
+
+    /**
+     * 各切片状态: 0 执行中/未开始, 1 完成, 2 断点续传时跳过
+     */
+    private final AtomicLongArray sliceStates;
+
+    private volatile long endNanos = -1;
+
+    public ReindexProgress(int slices) {
+        this.slices = slices;
+        this.sliceRead = new AtomicLongArray(slices);
+        this.sliceWritten = new AtomicLongArray(slices);
+        this.sliceFailed = new AtomicLongArray(slices);
+        this.sliceSkipped = new AtomicLongArray(slices);
+        this.sliceTotals = new AtomicLongArray(slices);
+        this.sliceStates = new AtomicLongArray(slices);
+        for (int i = 0; i < slices; i++) {
+            sliceTotals.set(i, -1);
+        }
+    }
+
+    void read(int sliceId, long count) {
+        sliceRead.addAndGet(sliceId, count);
+    }
+
+    void written(int sliceId) {
+        sliceWritten.incrementAndGet(sliceId);
+    }
+
+    void failed(int sliceId) {
+        sliceFailed.incrementAndGet(sliceId);
+    }
+
+    void skipped(int sliceId) {
+        sliceSkipped.incrementAndGet(sliceId);
+    }
+
+    void setSliceTotal(int sliceId, long total) {
+        sliceTotals.set(sliceId, total);
+    }
+
+    void sliceDone(int sliceId) {
+        sliceStates.set(sliceId, 1);
+    }
+
+    void sliceResumed(int sliceId) {
+        sliceStates.set(sliceId, 2);
+        sliceTotals.set(sliceId, 0);
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    public long getSliceWritten(int sliceId) {
+        return sliceWritten.get(sliceId);
+    }
+
+    public long getSliceFailed(int sliceId) {
+        return sliceFailed.get(sliceId);
+    }
+
+    public boolean isSliceDone(int sliceId) {
+        return sliceStates.get(sliceId) != 0;
+    }
+
+    /**
+     * 已读取的文档数
+     *
+     * @return 文档数
+     */
+    public long getRead() {
+        return sum(sliceRead);
+    }
+
+    /**
+     * 已写入成功的文档数
+     *
+     * @return 文档数
+     */
+    public long getWritten() {
+        return sum(sliceWritten);
+    }
+
+    /**
+     * 写入失败的文档数
+     *
+     * @return 文档数
+     */
+    public long getFailed() {
+        return sum(sliceFailed);
+    }
+
+    /**
+     * 被转换跳过的文档数
+     *
+     * @return 文档数
+     */
+    public long getSkipped() {
+        return sum(sliceSkipped);
+    }
+
+    /**
+     * 本次需要处理的文档总数(已取到第一页的切片之和)
+     *
+     * @return 文档总数
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < slices; i++) {
+            total += Math.max(0, sliceTotals.get(i));
+        }
+        return total;
+    }
+
+    public int getCompletedSlices() {
+        int completed = 0;
+        for (int i = 0; i < slices; i++) {
+            completed += sliceStates.get(i) == 1 ? 1 : 0;
+        }
+        return completed;
+    }
+
+    public int getResumedSlices() {
+        int resumed = 0;
+        for (int i = 0; i < slices; i++) {
+            resumed += sliceStates.get(i) == 2 ? 1 : 0;
+        }
+        return resumed;
+    }
+
+    public long getElapsedMillis() {
+        long end = endNanos < 0 ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * 吞吐量(读取的文档数/秒)
+     *
+     * @return 吞吐量
+     */
+    public double getThroughput() {
+        long elapsedMillis = getElapsedMillis();
+        return elapsedMillis == 0 ? 0 : getRead() * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * 按当前吞吐量估算的剩余时间(毫秒); 仍有切片未取到第一页时总数偏小, 估算值偏小
+     *
+     * @return 剩余时间, 无法估算时返回-1
+     */
+    public long getEtaMillis() {
+        double throughput = getThroughput();
+        if (throughput <= 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, getTotal() - getRead());
+        return (long) (remaining * 1000.0 / throughput);
+    }
+
+    private long sum(AtomicLongArray values) {
+        long sum = 0;
+        for (int i = 0; i < slices; i++) {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexProgress{read=" + getRead()
+                + ", total=" + getTotal()
+                + ", written=" + getWritten()
+                + ", failed=" + getFailed()
+                + ", skipped=" + getSkipped()
+                + ", completedSlices=" + getCompletedSlices() + "/" + slices
+                + ", resumedSlices=" + getResumedSlices()
+                + ", elapsedMillis=" + getElapsedMillis()
+                + ", throughput=" + String.format("%.1f", getThroughput()) + "/s"
+                + ", etaMillis=" + getEtaMillis() + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.wangyanrui.elasticsearch.api.core.reindex;
+
+import org.elasticsearch.action.DocWriteRequest;
+
+/**
+ * Title: ReindexProgressListener
+ * Description: 重建索引的进度回调
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface ReindexProgressListener {
+
+    /**
+     * 定时进度回调
+     *
+     * @param progress 当前进度
+     */
+    default void onProgress(ReindexProgress progress) {
+    }
+
+    /**
+     * 单个切片完成(该切片的文档已全部写入并记录断点)
+     *
+     * @param sliceId  切片ID
+     * @param progress 当前进度
+     */
+    default void onSliceComplete(int sliceId, ReindexProgress progress) {
+    }
+
+    /**
+     * 单条文档写入失败, 在 transport 响应线程中执行, 不要在其中做阻塞操作
+     *
+     * @param request        写入请求
+     * @param failureMessage 失败原因
+     */
+    default void onItemFailure(DocWriteRequest<?> request, String failureMessage) {
+    }
+}
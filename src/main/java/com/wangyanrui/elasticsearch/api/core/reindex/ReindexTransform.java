@@ -0,0 +1,26 @@
+package com.wangyanrui.elasticsearch.api.core.reindex;
+
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.IndexAction;
+import org.elasticsearch.search.SearchHit;
+
+/**
+ * Title: ReindexTransform
+ * Description: 重建索引时的单条文档转换
+ * <p>
+ * notification: 会被多个切片线程同时调用, 必须线程安全
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface ReindexTransform {
+
+    /**
+     * 转换一条文档
+     *
+     * @param hit         源文档
+     * @param targetIndex 目标索引名称
+     * @return 写入目标索引的文档(index 与 docId 可以修改), 返回null表示跳过该文档
+     */
+    IndexAction transform(SearchHit hit, String targetIndex);
+}
@@ -0,0 +1,200 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.metrics.ElasticMetrics;
+import com.wangyanrui.elasticsearch.api.core.metrics.MetricsRegistry;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Title: ScrollCursor
+ * Description: 按页遍历 scroll 结果的游标
+ * <p>
+ * 取到一页后立即异步请求下一页, 调用方处理当前页时下一页已在传输中.
+ * 返回空页时遍历结束; 某一页有分片失败或超时时抛出异常(否则会静默丢失该分片上的文档).
+ * 遍历结束、出现异常或 close 时都会清除服务端的 scroll 上下文.
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class ScrollCursor implements Iterator<SearchHit[]>, Closeable {
+
+    private final Client client;
+
+    private final TimeValue keepAlive;
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final String metricsIndex;
+
+    /**
+     * 下一页(请求中)
+     */
+    private CompletableFuture<SearchResponse> pending;
+
+    /**
+     * 已取到但尚未交给调用方的一页
+     */
+    private SearchHit[] current;
+
+    private String scrollId;
+
+    private long totalHits = -1;
+
+    private boolean closed = false;
+
+    public ScrollCursor(Client client, SearchRequestBuilder searchRequestBuilder, TimeValue keepAlive) {
+        this(client, searchRequestBuilder, keepAlive, MetricsRegistry.NOOP);
+    }
+
+    /**
+     * @param metricsRegistry 每页的请求耗时上报为 scroll 操作
+     */
+    public ScrollCursor(Client client, SearchRequestBuilder searchRequestBuilder, TimeValue keepAlive,
+                        MetricsRegistry metricsRegistry) {
+        this.client = client;
+        this.keepAlive = keepAlive;
+        this.metricsRegistry = metricsRegistry;
+        this.metricsIndex = metricsRegistry.isEnabled()
+                ? ElasticMetrics.indexLabel(searchRequestBuilder.request().indices()) : null;
+
+        log.debug("\r\n" + searchRequestBuilder.toString());
+        this.pending = fetch(() -> ElasticFutures.execute(searchRequestBuilder));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (Objects.nonNull(current)) {
+            return true;
+        }
+        if (Objects.isNull(pending)) {
+            return false;
+        }
+
+        SearchResponse response;
+        try {
+            response = ElasticFutures.join(pending);
+        } catch (RuntimeException e) {
+            pending = null;
+            close();
+            throw e;
+        }
+        pending = null;
+        scrollId = response.getScrollId();
+        if (totalHits < 0) {
+            totalHits = response.getHits().getTotalHits();
+        }
+        checkComplete(response);
+
+        SearchHit[] hits = response.getHits().getHits();
+        if (hits.length == 0) {
+            close();
+            return false;
+        }
+
+        // 不满一页不代表已经结束(各分片的返回数量不一定均匀), 以空页为准
+        current = hits;
+        final String nextScrollId = scrollId;
+        pending = fetch(() -> ElasticFutures.execute(
+                client.prepareSearchScroll(nextScrollId).setScroll(keepAlive)));
+        return true;
+    }
+
+    @Override
+    public SearchHit[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchHit[] hits = current;
+        current = null;
+        return hits;
+    }
+
+    /**
+     * 匹配的文档总数(取到第一页之后有效, 之前为-1)
+     *
+     * @return 文档总数
+     */
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * 清除服务端的 scroll 上下文, 可重复调用
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        clearScroll(scrollId);
+        if (Objects.nonNull(pending)) {
+            // 预取中的请求完成后, 同样清除其 scroll 上下文
+            final String knownScrollId = scrollId;
+            pending.whenComplete((response, e) -> {
+                if (Objects.nonNull(response) && !Objects.equals(knownScrollId, response.getScrollId())) {
+                    clearScroll(response.getScrollId());
+                }
+            });
+            pending = null;
+        }
+    }
+
+    /**
+     * 某页有分片失败或超时时, 清除 scroll 上下文并抛出异常
+     */
+    private void checkComplete(SearchResponse response) {
+        if (response.getFailedShards() == 0 && response.getShardFailures().length == 0 && !response.isTimedOut()) {
+            return;
+        }
+        close();
+        String reason = response.isTimedOut() ? "timed out"
+                : response.getFailedShards() + " of " + response.getTotalShards() + " shards failed";
+        if (response.getShardFailures().length > 0) {
+            reason += ", " + response.getShardFailures()[0].reason();
+        }
+        OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.SCROLL_INCOMPLETE + reason);
+    }
+
+    private CompletableFuture<SearchResponse> fetch(Supplier<CompletableFuture<SearchResponse>> call) {
+        if (!metricsRegistry.isEnabled()) {
+            return call.get();
+        }
+        return ElasticMetrics.timeAsync(metricsRegistry, ElasticConstant.Metrics.SCROLL, metricsIndex, call)
+                .whenComplete((response, e) -> {
+                    if (Objects.nonNull(response)) {
+                        metricsRegistry.recordServerTook(ElasticConstant.Metrics.SCROLL, metricsIndex,
+                                response.getTook().millis());
+                    }
+                });
+    }
+
+    private void clearScroll(String id) {
+        if (Objects.isNull(id)) {
+            return;
+        }
+        ElasticFutures.execute(client.prepareClearScroll().addScrollId(id))
+                .whenComplete((response, e) -> {
+                    if (Objects.nonNull(e)) {
+                        log.warn("ScrollCursor: clear scroll failure", e);
+                    }
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+import org.elasticsearch.search.SearchHit;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Title: ScrollHitIterator
+ * Description: 按文档遍历 scroll 结果, 内存中最多保留 当前页 + 预取页
+ * <p>
+ * notification: 未遍历完时需要 close (或通过 try-with-resources 使用), 以释放服务端的 scroll 上下文
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ScrollHitIterator implements Iterator<SearchHit>, Closeable {
+
+    private final ScrollCursor cursor;
+
+    private SearchHit[] page = new SearchHit[0];
+
+    private int position = 0;
+
+    public ScrollHitIterator(ScrollCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (position >= page.length) {
+            if (!cursor.hasNext()) {
+                return false;
+            }
+            page = cursor.next();
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public SearchHit next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchHit hit = page[position];
+        // 释放已消费文档的引用
+        page[position++] = null;
+        return hit;
+    }
+
+    /**
+     * 匹配的文档总数(取到第一页之后有效, 之前为-1)
+     *
+     * @return 文档总数
+     */
+    public long getTotalHits() {
+        return cursor.getTotalHits();
+    }
+
+    /**
+     * 转换为惰性的 Stream, 关闭 Stream 时同时关闭游标
+     *
+     * @return Stream
+     */
+    public Stream<SearchHit> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
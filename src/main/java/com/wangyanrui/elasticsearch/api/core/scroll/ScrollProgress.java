@@ -0,0 +1,132 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Title: ScrollProgress
+ * Description: 切片并行遍历的进度, 各切片独立计数, 可在遍历过程中并发读取
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ScrollProgress {
+
+    private final int slices;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLongArray sliceHits;
+
+    /**
+     * 各切片匹配的文档总数, -1 表示尚未取到第一页
+     */
+    private final AtomicLongArray sliceTotals;
+
+    /**
+     * 各切片是否完成, 1 表示完成
+     */
+    private final AtomicLongArray sliceDone;
+
+    private volatile long endNanos = -1;
+
+    public ScrollProgress(int slices) {
+        this.slices = slices;
+        this.sliceHits = new AtomicLongArray(slices);
+        this.sliceTotals = new AtomicLongArray(slices);
+        this.sliceDone = new AtomicLongArray(slices);
+        for (int i = 0; i < slices; i++) {
+            sliceTotals.set(i, -1);
+        }
+    }
+
+    void increment(int sliceId) {
+        sliceHits.incrementAndGet(sliceId);
+    }
+
+    void setSliceTotal(int sliceId, long total) {
+        sliceTotals.set(sliceId, total);
+    }
+
+    void sliceDone(int sliceId) {
+        sliceDone.set(sliceId, 1);
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    public long getSliceHits(int sliceId) {
+        return sliceHits.get(sliceId);
+    }
+
+    public long getSliceTotal(int sliceId) {
+        return sliceTotals.get(sliceId);
+    }
+
+    public boolean isSliceDone(int sliceId) {
+        return sliceDone.get(sliceId) == 1;
+    }
+
+    /**
+     * 已遍历的文档数
+     *
+     * @return 文档数
+     */
+    public long getHits() {
+        long hits = 0;
+        for (int i = 0; i < slices; i++) {
+            hits += sliceHits.get(i);
+        }
+        return hits;
+    }
+
+    /**
+     * 匹配的文档总数(已取到第一页的切片之和)
+     *
+     * @return 文档总数
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < slices; i++) {
+            total += Math.max(0, sliceTotals.get(i));
+        }
+        return total;
+    }
+
+    public int getCompletedSlices() {
+        int completed = 0;
+        for (int i = 0; i < slices; i++) {
+            completed += sliceDone.get(i);
+        }
+        return completed;
+    }
+
+    public long getElapsedMillis() {
+        long end = endNanos < 0 ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * 吞吐量(文档数/秒)
+     *
+     * @return 吞吐量
+     */
+    public double getThroughput() {
+        long elapsedMillis = getElapsedMillis();
+        return elapsedMillis == 0 ? 0 : getHits() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ScrollProgress{hits=" + getHits()
+                + ", total=" + getTotal()
+                + ", completedSlices=" + getCompletedSlices() + "/" + slices
+                + ", elapsedMillis=" + getElapsedMillis()
+                + ", throughput=" + String.format("%.1f", getThroughput()) + "/s}";
+    }
+}
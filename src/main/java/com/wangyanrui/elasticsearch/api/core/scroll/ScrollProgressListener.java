@@ -0,0 +1,28 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+/**
+ * Title: ScrollProgressListener
+ * Description: 切片并行遍历的进度回调
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface ScrollProgressListener {
+
+    /**
+     * 定时进度回调
+     *
+     * @param progress 当前进度
+     */
+    default void onProgress(ScrollProgress progress) {
+    }
+
+    /**
+     * 单个切片遍历完成(该切片的文档已全部交给 consumer)
+     *
+     * @param sliceId  切片ID
+     * @param progress 当前进度
+     */
+    default void onSliceComplete(int sliceId, ScrollProgress progress) {
+    }
+}
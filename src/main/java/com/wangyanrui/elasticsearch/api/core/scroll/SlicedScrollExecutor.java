@@ -0,0 +1,144 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SlicedScrollAction;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Title: SlicedScrollExecutor
+ * Description: 切片并行游标遍历
+ * <p>
+ * 将一个查询拆分为 N 个切片, 每个切片一个独立的 scroll, 在线程池中并行遍历.
+ * 任一切片失败时其余切片停止遍历, 异常抛给调用方.
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class SlicedScrollExecutor {
+
+    private final SlicedScrollAction slicedScrollAction;
+
+    /**
+     * 切片ID -> 该切片的游标
+     */
+    private final IntFunction<ScrollCursor> cursorFactory;
+
+    public SlicedScrollExecutor(SlicedScrollAction slicedScrollAction, IntFunction<ScrollCursor> cursorFactory) {
+        this.slicedScrollAction = slicedScrollAction;
+        this.cursorFactory = cursorFactory;
+    }
+
+    /**
+     * 并行遍历所有切片, 阻塞直到全部完成
+     *
+     * @param consumer 文档消费者, 会被多个线程同时调用, 必须线程安全
+     * @param listener 进度回调, 可为空
+     * @return 最终进度
+     */
+    public ScrollProgress execute(Consumer<SearchHit> consumer, ScrollProgressListener listener) {
+        final int slices = Math.max(1, slicedScrollAction.getSlices());
+        final ScrollProgressListener progressListener = Objects.nonNull(listener)
+                ? listener : new ScrollProgressListener() {
+        };
+        final ScrollProgress progress = new ScrollProgress(slices);
+        final AtomicBoolean failed = new AtomicBoolean(false);
+
+        ExecutorService executor = slicedScrollAction.getExecutor();
+        boolean ownExecutor = Objects.isNull(executor);
+        if (ownExecutor) {
+            executor = Executors.newFixedThreadPool(slices,
+                    ElasticThreads.daemonThreadFactory("elastic-sliced-scroll"));
+        }
+        ScheduledExecutorService reporter = null;
+        if (slicedScrollAction.getProgressIntervalMillis() > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(
+                    ElasticThreads.daemonThreadFactory("elastic-sliced-scroll-progress"));
+            reporter.scheduleAtFixedRate(() -> reportProgress(progressListener, progress),
+                    slicedScrollAction.getProgressIntervalMillis(),
+                    slicedScrollAction.getProgressIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[slices];
+            for (int i = 0; i < slices; i++) {
+                final int sliceId = i;
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        scrollSlice(sliceId, consumer, progressListener, progress, failed);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            OperaExceptionHandler.throwException(ElasticMessage.OperaErrorMsg.SLICED_SCROLL_INTERRUPTED);
+        } catch (ExecutionException e) {
+            Throwable cause = ElasticFutures.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            progress.finish();
+            if (Objects.nonNull(reporter)) {
+                reporter.shutdownNow();
+            }
+            if (ownExecutor) {
+                executor.shutdownNow();
+            }
+        }
+
+        log.debug("SlicedScrollExecutor: finished, " + progress);
+        return progress;
+    }
+
+    private void scrollSlice(int sliceId, Consumer<SearchHit> consumer, ScrollProgressListener listener,
+                             ScrollProgress progress, AtomicBoolean failed) {
+        try (ScrollHitIterator iterator = new ScrollHitIterator(cursorFactory.apply(sliceId))) {
+            while (!failed.get() && iterator.hasNext()) {
+                if (progress.getSliceTotal(sliceId) < 0) {
+                    progress.setSliceTotal(sliceId, iterator.getTotalHits());
+                }
+                consumer.accept(iterator.next());
+                progress.increment(sliceId);
+            }
+            if (progress.getSliceTotal(sliceId) < 0) {
+                progress.setSliceTotal(sliceId, Math.max(0, iterator.getTotalHits()));
+            }
+        }
+
+        if (!failed.get()) {
+            progress.sliceDone(sliceId);
+            listener.onSliceComplete(sliceId, progress);
+        }
+    }
+
+    private static void reportProgress(ScrollProgressListener listener, ScrollProgress progress) {
+        log.debug("SlicedScrollExecutor: " + progress);
+        try {
+            listener.onProgress(progress);
+        } catch (Exception e) {
+            log.warn("SlicedScrollExecutor: listener onProgress error", e);
+        }
+    }
+}
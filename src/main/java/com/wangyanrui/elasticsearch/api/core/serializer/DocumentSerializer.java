@@ -0,0 +1,42 @@
+package com.wangyanrui.elasticsearch.api.core.serializer;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * Title: DocumentSerializer
+ * Description: 文档序列化/反序列化, 直接在字节上进行, 避免中间的 String/Map
+ * <p>
+ * notification: 返回的 BytesReference 会被请求持有直到发送完成(批量会话中可能在较晚时候),
+ * 实现类可以复用内部的缓冲区, 但返回值不能在下一次调用时被覆盖
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public interface DocumentSerializer {
+
+    /**
+     * 序列化文档
+     *
+     * @param doc 文档
+     * @return 序列化后的字节
+     */
+    BytesReference serialize(Object doc);
+
+    /**
+     * 反序列化文档(_source)
+     *
+     * @param source 文档的字节(内容类型为 contentType()), 可能为空
+     * @param type   文档类型
+     * @param <T>    文档类型
+     * @return 文档, source 为空时返回null
+     */
+    <T> T deserialize(BytesReference source, Class<T> type);
+
+    /**
+     * 序列化后的内容类型
+     *
+     * @return XContentType
+     */
+    XContentType contentType();
+}
@@ -0,0 +1,52 @@
+package com.wangyanrui.elasticsearch.api.core.serializer;
+
+import com.alibaba.fastjson.JSON;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Title: FastJsonDocumentSerializer
+ * Description: 基于 fastjson 的默认文档序列化
+ * <p>
+ * JSON.toJSONBytes 在线程复用的 char/byte 缓冲区中完成序列化与 UTF-8 编码,
+ * 最终只产生一个大小正好的 byte[], 不再生成 UTF-16 的 String
+ * <p>
+ * 反序列化时直接在 _source 的字节上解码(BytesArray 不复制), 由 fastjson 按类缓存的 ObjectDeserializer
+ * 生成对象, 不经过 String 与 Map; _source 按写入时的内容类型 JSON 解析, 不逐个探测格式
+ * (以 SMILE/CBOR/YAML 写入的文档需要使用对应 contentType 的序列化实现)
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class FastJsonDocumentSerializer implements DocumentSerializer {
+
+    public static final FastJsonDocumentSerializer INSTANCE = new FastJsonDocumentSerializer();
+
+    @Override
+    public BytesReference serialize(Object doc) {
+        if (doc instanceof BytesReference) {
+            return (BytesReference) doc;
+        }
+        return new BytesArray(JSON.toJSONBytes(doc));
+    }
+
+    @Override
+    public <T> T deserialize(BytesReference source, Class<T> type) {
+        if (Objects.isNull(source) || source.length() == 0) {
+            return null;
+        }
+
+        BytesRef bytes = source.toBytesRef();
+        return JSON.parseObject(bytes.bytes, bytes.offset, bytes.length, StandardCharsets.UTF_8, type);
+    }
+
+    @Override
+    public XContentType contentType() {
+        return XContentType.JSON;
+    }
+}
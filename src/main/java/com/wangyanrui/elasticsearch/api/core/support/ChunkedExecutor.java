@@ -0,0 +1,127 @@
+package com.wangyanrui.elasticsearch.api.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Title: ChunkedExecutor
+ * Description: 分块并发执行工具
+ * <p>
+ * 将一个大的批量请求拆分为多个块, 同时执行的块数不超过 parallelism, 一个块完成后启动下一个块;
+ * 结果按原始顺序合并. 某个块失败时其余块仍会执行完毕(避免遗留未完成的回调), 最终以第一个异常结束
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class ChunkedExecutor {
+
+    private ChunkedExecutor() {
+    }
+
+    /**
+     * 分块并发执行
+     *
+     * @param items       全部元素
+     * @param chunkSize   每块的元素数量
+     * @param parallelism 同时执行的块数
+     * @param chunkCall   执行一个块, 返回的结果数量须与块的元素数量一致
+     * @param <I>         元素类型
+     * @param <R>         结果类型
+     * @return 按原始顺序合并的结果 的 CompletableFuture
+     */
+    public static <I, R> CompletableFuture<List<R>> execute(List<I> items, int chunkSize, int parallelism,
+                                                            Function<List<I>, CompletableFuture<List<R>>> chunkCall) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        final int size = Math.max(1, chunkSize);
+        if (items.size() <= size) {
+            return call(chunkCall, items);
+        }
+
+        final List<List<I>> chunks = new ArrayList<>((items.size() + size - 1) / size);
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + size)));
+        }
+        Chunks<I, R> state = new Chunks<>(chunks, chunkCall, items.size());
+        for (int i = 0, n = Math.min(Math.max(1, parallelism), chunks.size()); i < n; i++) {
+            state.launchNext();
+        }
+        return state.result;
+    }
+
+    private static <I, R> CompletableFuture<List<R>> call(Function<List<I>, CompletableFuture<List<R>>> chunkCall,
+                                                          List<I> chunk) {
+        try {
+            return chunkCall.apply(chunk);
+        } catch (RuntimeException e) {
+            CompletableFuture<List<R>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static final class Chunks<I, R> {
+        private final List<List<I>> chunks;
+        private final Function<List<I>, CompletableFuture<List<R>>> chunkCall;
+        private final List<List<R>> chunkResults;
+        private final int itemCount;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CompletableFuture<List<R>> result = new CompletableFuture<>();
+
+        private Chunks(List<List<I>> chunks, Function<List<I>, CompletableFuture<List<R>>> chunkCall,
+                       int itemCount) {
+            this.chunks = chunks;
+            this.chunkCall = chunkCall;
+            this.itemCount = itemCount;
+            this.chunkResults = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                chunkResults.add(null);
+            }
+            this.remaining = new AtomicInteger(chunks.size());
+        }
+
+        private void launchNext() {
+            final int index = next.getAndIncrement();
+            if (index >= chunks.size()) {
+                return;
+            }
+            call(chunkCall, chunks.get(index)).whenComplete((chunkResult, e) -> {
+                if (Objects.nonNull(e)) {
+                    failure.compareAndSet(null, ElasticFutures.unwrap(e));
+                } else {
+                    synchronized (chunkResults) {
+                        chunkResults.set(index, chunkResult);
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    complete();
+                } else {
+                    launchNext();
+                }
+            });
+        }
+
+        private void complete() {
+            Throwable e = failure.get();
+            if (Objects.nonNull(e)) {
+                result.completeExceptionally(e);
+                return;
+            }
+            List<R> merged = new ArrayList<>(itemCount);
+            synchronized (chunkResults) {
+                for (List<R> chunkResult : chunkResults) {
+                    merged.addAll(chunkResult);
+                }
+            }
+            result.complete(merged);
+        }
+    }
+}
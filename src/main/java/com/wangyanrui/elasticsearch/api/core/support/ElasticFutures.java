@@ -0,0 +1,102 @@
+package com.wangyanrui.elasticsearch.api.core.support;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Title: ElasticFutures
+ * Description: ActionListener 与 CompletableFuture 的转换工具
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class ElasticFutures {
+
+    private ElasticFutures() {
+    }
+
+    /**
+     * 异步执行请求, 以 CompletableFuture 的形式返回响应
+     *
+     * @param requestBuilder 请求
+     * @param <Response>     响应类型
+     * @return 响应的 CompletableFuture
+     */
+    public static <Response extends ActionResponse> CompletableFuture<Response> execute(
+            ActionRequestBuilder<?, Response, ?> requestBuilder) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        try {
+            requestBuilder.execute(listener(future));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 构建一个完成指定 CompletableFuture 的 ActionListener
+     *
+     * @param future     CompletableFuture
+     * @param <Response> 响应类型
+     * @return ActionListener
+     */
+    public static <Response> ActionListener<Response> listener(CompletableFuture<Response> future) {
+        return new ActionListener<Response>() {
+            @Override
+            public void onResponse(Response response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        };
+    }
+
+    /**
+     * 同步等待 CompletableFuture 的结果, 异常时抛出原始的 RuntimeException
+     *
+     * @param future CompletableFuture
+     * @param <T>    结果类型
+     * @return 结果
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * 去掉 CompletionException/ExecutionException 的包装
+     *
+     * @param throwable 异常
+     * @return 原始异常
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CompletionException(cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.wangyanrui.elasticsearch.api.core.support;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Title: ElasticThreads
+ * Description: 内部线程工具
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public final class ElasticThreads {
+
+    private ElasticThreads() {
+    }
+
+    /**
+     * 创建守护线程的 ThreadFactory, 线程名为 prefix-序号
+     *
+     * @param prefix 线程名前缀
+     * @return ThreadFactory
+     */
+    public static ThreadFactory daemonThreadFactory(String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
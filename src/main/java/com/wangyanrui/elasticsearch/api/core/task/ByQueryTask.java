@@ -0,0 +1,222 @@
+package com.wangyanrui.elasticsearch.api.core.task;
+
+import com.wangyanrui.common.exception.OperaExceptionHandler;
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.constant.ElasticMessage;
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import com.wangyanrui.elasticsearch.api.core.support.ElasticFutures;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.BulkByScrollTask;
+import org.elasticsearch.index.reindex.RethrottleAction;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskInfo;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: ByQueryTask
+ * Description: 后台执行的 deleteByQuery/updateByQuery 任务
+ * <p>
+ * TransportClient 不支持 wait_for_completion=false, 请求以异步方式提交, 完成时 {@link #getFuture()} 结束;
+ * 提交时在 X-Opaque-Id 请求头中带上唯一标记(见 {@link #markClient}, 服务端记入任务的 headers;
+ * 6.x 的任务描述中只有索引名称, 不含查询), 执行过程中按 操作类型 + 标记 在服务端任务列表中查找对应的任务,
+ * 用于查询进度、调整限速和取消
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+@Slf4j
+public class ByQueryTask {
+
+    private final ElasticClient client;
+
+    private final String actionName;
+
+    private final String marker;
+
+    private final CompletableFuture<BulkByScrollResponse> future;
+
+    private volatile TaskId taskId;
+
+    /**
+     * @param client     client
+     * @param actionName 服务端操作名称, 如 DeleteByQueryAction.NAME
+     * @param marker     提交请求时的标记, 见 {@link #newMarker()}
+     * @param future     请求的响应
+     */
+    public ByQueryTask(ElasticClient client, String actionName, String marker,
+                       CompletableFuture<BulkByScrollResponse> future) {
+        this.client = client;
+        this.actionName = actionName;
+        this.marker = marker;
+        this.future = future;
+    }
+
+    /**
+     * 生成每次提交唯一的标记
+     *
+     * @return 标记
+     */
+    public static String newMarker() {
+        return ElasticConstant.Task.MARKER_PREFIX + UUID.randomUUID();
+    }
+
+    /**
+     * 经由返回的 Client 发送的请求都在 X-Opaque-Id 请求头中带上标记
+     *
+     * @param client client
+     * @param marker 标记
+     * @return 带标记请求头的 Client
+     */
+    public static Client markClient(Client client, String marker) {
+        return client.filterWithHeader(Collections.singletonMap(ElasticConstant.Task.OPAQUE_ID_HEADER, marker));
+    }
+
+    /**
+     * 任务完成时结束的 CompletableFuture
+     *
+     * @return 响应 的 CompletableFuture
+     */
+    public CompletableFuture<BulkByScrollResponse> getFuture() {
+        return future;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * 阻塞等待任务完成
+     *
+     * @return 响应
+     */
+    public BulkByScrollResponse await() {
+        return ElasticFutures.join(future);
+    }
+
+    /**
+     * 服务端任务ID, 尚未找到时会查找(阻塞, 最多约 LOOKUP_ATTEMPTS * LOOKUP_INTERVAL_MILLIS)
+     *
+     * @return 任务ID, 任务已完成且未找到时返回null
+     */
+    public TaskId getTaskId() {
+        TaskId current = this.taskId;
+        return Objects.nonNull(current) ? current : lookupTaskId();
+    }
+
+    /**
+     * 当前进度: 已完成时为最终结果, 否则从服务端任务获取
+     *
+     * @return 进度(total、created、updated、deleted、batches、versionConflicts、throttled、requestsPerSecond 等)
+     */
+    public BulkByScrollTask.Status getStatus() {
+        BulkByScrollTask.Status status = completedStatus();
+        if (Objects.nonNull(status)) {
+            return status;
+        }
+        TaskId current = requireTaskId();
+        try {
+            Task.Status taskStatus = client.getClient().admin().cluster().prepareGetTask(current).get()
+                    .getTask().getTask().getStatus();
+            return (BulkByScrollTask.Status) taskStatus;
+        } catch (ResourceNotFoundException e) {
+            // 查询时任务恰好完成
+            status = completedStatus();
+            if (Objects.nonNull(status)) {
+                return status;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 调整限速
+     *
+     * @param requestsPerSecond 每秒处理的文档数上限, 小于等于0表示不限制
+     * @return 是否调整成功(任务已完成时返回false)
+     */
+    public boolean rethrottle(float requestsPerSecond) {
+        if (future.isDone()) {
+            return false;
+        }
+        TaskId current = requireTaskId();
+        ListTasksResponse response = RethrottleAction.INSTANCE.newRequestBuilder(client.getClient())
+                .setTaskId(current)
+                .setRequestsPerSecond(requestsPerSecond > 0 ? requestsPerSecond : Float.POSITIVE_INFINITY)
+                .get();
+        log.debug("ByQueryTask: rethrottle [" + current + "] to " + requestsPerSecond + ", " + response);
+        return !response.getTasks().isEmpty();
+    }
+
+    /**
+     * 取消任务, 已处理的文档不会回滚
+     *
+     * @return 是否取消成功(任务已完成时返回false)
+     */
+    public boolean cancel() {
+        if (future.isDone()) {
+            return false;
+        }
+        TaskId current = requireTaskId();
+        CancelTasksResponse response = client.getClient().admin().cluster().prepareCancelTasks()
+                .setTaskId(current)
+                .get();
+        log.debug("ByQueryTask: cancel [" + current + "], " + response);
+        return !response.getTasks().isEmpty();
+    }
+
+    private BulkByScrollTask.Status completedStatus() {
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            return future.join().getStatus();
+        }
+        return null;
+    }
+
+    private TaskId requireTaskId() {
+        TaskId current = getTaskId();
+        OperaExceptionHandler.flagCheck(Objects.isNull(current),
+                ElasticMessage.OperaErrorMsg.TASK_NOT_FOUND + actionName + " " + marker);
+        return current;
+    }
+
+    /**
+     * 在服务端任务列表中查找: 同一操作、X-Opaque-Id 为标记、不是子任务(切片)
+     */
+    private synchronized TaskId lookupTaskId() {
+        for (int attempt = 0; attempt < ElasticConstant.Task.LOOKUP_ATTEMPTS && Objects.isNull(taskId)
+                && !future.isDone(); attempt++) {
+            if (attempt > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ElasticConstant.Task.LOOKUP_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            ListTasksResponse response = client.getClient().admin().cluster().prepareListTasks()
+                    .setActions(actionName)
+                    .setDetailed(true)
+                    .get();
+            for (TaskInfo taskInfo : response.getTasks()) {
+                if (!taskInfo.getParentTaskId().isSet()
+                        && marker.equals(taskInfo.getHeaders().get(ElasticConstant.Task.OPAQUE_ID_HEADER))) {
+                    taskId = taskInfo.getTaskId();
+                    log.debug("ByQueryTask: found task [" + taskId + "] for " + actionName);
+                    break;
+                }
+            }
+        }
+        return taskId;
+    }
+}
@@ -0,0 +1,128 @@
+package com.wangyanrui.elasticsearch.api.core;
+
+import com.wangyanrui.elasticsearch.api.core.cache.DocumentCache;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.crud.GetAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.multi.MultiItemResult;
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Title: ElasticReaderDocumentCacheTest
+ * Description: 文档缓存只保存/返回完整的文档, 带 _source 过滤等选项的 MultiGet 项不读取也不写入缓存
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ElasticReaderDocumentCacheTest {
+
+    private static final String INDEX = "test";
+
+    private static final String FULL_SOURCE = "{\"a\":1,\"b\":2}";
+
+    private static final String FILTERED_SOURCE = "{\"a\":1}";
+
+    private ScriptedElasticClient client;
+
+    private ElasticReader reader;
+
+    @Before
+    public void setUp() {
+        client = new ScriptedElasticClient(ElasticReaderDocumentCacheTest::respond);
+        client.setDocumentCache(new DocumentCache(100, 60_000));
+        reader = new ElasticReader(client);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void filteredMultiGetDoesNotPoisonCacheForPlainGet() {
+        List<GetResponse> filtered = reader.multiGet(Collections.singletonList(filteredItem("1")));
+        assertEquals(FILTERED_SOURCE, filtered.get(0).getSourceAsString());
+
+        GetResponse plain = reader.get(new GetAction(INDEX, "1"));
+        assertEquals(FULL_SOURCE, plain.getSourceAsString());
+        assertEquals(2, countRequests());
+    }
+
+    @Test
+    public void filteredMultiGetItemsDoesNotPoisonCacheForPlainGet() {
+        List<MultiItemResult<GetResponse>> filtered = reader.multiGetItems(
+                Collections.singletonList(filteredItem("1")));
+        assertFalse(filtered.get(0).isFailed());
+        assertEquals(FILTERED_SOURCE, filtered.get(0).getResponse().getSourceAsString());
+
+        assertEquals(FULL_SOURCE, reader.get(new GetAction(INDEX, "1")).getSourceAsString());
+        assertEquals(2, countRequests());
+    }
+
+    @Test
+    public void filteredMultiGetIsNotServedFromCache() {
+        assertEquals(FULL_SOURCE, reader.get(new GetAction(INDEX, "1")).getSourceAsString());
+
+        List<GetResponse> filtered = reader.multiGet(Collections.singletonList(filteredItem("1")));
+        assertEquals(FILTERED_SOURCE, filtered.get(0).getSourceAsString());
+        assertEquals(2, countRequests());
+    }
+
+    @Test
+    public void plainMultiGetUsesCache() {
+        reader.multiGet(Collections.singletonList(new MultiGetRequest.Item(INDEX, null, "1")));
+
+        assertEquals(FULL_SOURCE, reader.get(new GetAction(INDEX, "1")).getSourceAsString());
+        assertEquals(1, countRequests());
+        assertTrue(client.getTransportClient().getRequests().get(0) instanceof MultiGetRequest);
+    }
+
+    private int countRequests() {
+        return client.getTransportClient().getRequests().size();
+    }
+
+    private static MultiGetRequest.Item filteredItem(String id) {
+        return new MultiGetRequest.Item(INDEX, null, id)
+                .fetchSourceContext(new FetchSourceContext(true, new String[]{"a"}, null));
+    }
+
+    private static ActionResponse respond(ActionRequest request) {
+        if (request instanceof GetRequest) {
+            GetRequest getRequest = (GetRequest) request;
+            return getResponse(getRequest.id(), getRequest.fetchSourceContext());
+        }
+        List<MultiGetRequest.Item> items = ((MultiGetRequest) request).getItems();
+        MultiGetItemResponse[] responses = new MultiGetItemResponse[items.size()];
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new MultiGetItemResponse(
+                    getResponse(items.get(i).id(), items.get(i).fetchSourceContext()), null);
+        }
+        return new MultiGetResponse(responses);
+    }
+
+    private static GetResponse getResponse(String id, FetchSourceContext fetchSourceContext) {
+        boolean filtered = fetchSourceContext != null && fetchSourceContext.includes().length > 0;
+        String source = filtered ? FILTERED_SOURCE : FULL_SOURCE;
+        return new GetResponse(new GetResult(INDEX, "_doc", id, 1, true,
+                new BytesArray(source.getBytes(StandardCharsets.UTF_8)), Collections.emptyMap()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.wangyanrui.elasticsearch.api.core;
+
+import com.wangyanrui.elasticsearch.api.core.cache.SearchResponseCache;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.SearchAction;
+import com.wangyanrui.elasticsearch.api.core.pojo.result.multi.MultiItemResult;
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import com.wangyanrui.elasticsearch.api.support.ScriptedTransportClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Title: ElasticReaderSearchCacheTest
+ * Description: MultiSearch 中失败的一项以异常结束登记的查询, 等待同一查询的调用方不会得到null;
+ * 获取 refresh_interval 不阻塞查询的调用线程
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ElasticReaderSearchCacheTest {
+
+    private final CountDownLatch sent = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ScriptedElasticClient client;
+
+    private ElasticReader reader;
+
+    @Before
+    public void setUp() {
+        client = new ScriptedElasticClient(this::respond);
+        reader = new ElasticReader(client).setSearchResponseCache(new SearchResponseCache(1 << 20, 60_000));
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        client.close();
+    }
+
+    @Test
+    public void failedMultiSearchItemFailsConcurrentSearch() throws Exception {
+        CompletableFuture<List<MultiItemResult<SearchResponse>>> items =
+                CompletableFuture.supplyAsync(() -> reader.multiSearchItems(action()));
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+
+        // 与 MultiSearch 中的一项相同, 等待其结果
+        CompletableFuture<SearchResponse> search = reader.searchAsync(action());
+        release.countDown();
+
+        try {
+            search.get(5, TimeUnit.SECONDS);
+            fail("search waiting on a failed item must fail");
+        } catch (ExecutionException e) {
+            assertEquals("shard failure", e.getCause().getMessage());
+        }
+        MultiItemResult<SearchResponse> item = items.get(5, TimeUnit.SECONDS).get(0);
+        assertTrue(item.isFailed());
+    }
+
+    @Test(timeout = 10_000)
+    public void refreshIntervalLookupDoesNotBlockCaller() throws Exception {
+        client.getTransportClient().setHandler(request -> request instanceof GetSettingsRequest
+                ? ScriptedTransportClient.DEFERRED : searchResponse());
+
+        CompletableFuture<SearchResponse> first = reader.searchAsync(action());
+        // refresh_interval 尚未返回时调用方不被阻塞; 存活时间确定后结束
+        assertFalse(first.isDone());
+        GetSettingsRequest settingsRequest = (GetSettingsRequest) client.getTransportClient().getDeferred()
+                .iterator().next();
+        client.getTransportClient().respond(settingsRequest, new GetSettingsResponse(
+                ImmutableOpenMap.<String, Settings>builder()
+                        .fPut("test", Settings.builder().put("index.refresh_interval", "30s").build())
+                        .build()));
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getHits().getTotalHits());
+
+        // 结果已缓存, 不再发送查询
+        int requests = client.getTransportClient().getRequests().size();
+        assertEquals(1, reader.searchAsync(action()).get(5, TimeUnit.SECONDS).getHits().getTotalHits());
+        assertEquals(requests, client.getTransportClient().getRequests().size());
+    }
+
+    private static SearchResponse searchResponse() {
+        InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(new SearchHit[0], 1, 1.0f), null, null, null, false, null, 1);
+        return new SearchResponse(sections, null, 1, 1, 0, 1,
+                ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    private static SearchAction action() {
+        return new SearchAction("test").setQueryBuilder(QueryBuilders.termQuery("status", 1));
+    }
+
+    private ActionResponse respond(ActionRequest request) {
+        if (!(request instanceof MultiSearchRequest)) {
+            // refresh_interval 查询失败时使用默认值
+            throw new IllegalStateException("unexpected request " + request);
+        }
+        sent.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new MultiSearchResponse(new MultiSearchResponse.Item[]{
+                new MultiSearchResponse.Item(null, new IllegalStateException("shard failure"))});
+    }
+}
@@ -0,0 +1,66 @@
+package com.wangyanrui.elasticsearch.api.core.batch;
+
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Title: GetCoalescerTest
+ * Description: close 之后提交的请求不再等待合并, 直接发送
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class GetCoalescerTest {
+
+    private static final String INDEX = "test";
+
+    private ScriptedElasticClient client;
+
+    @Before
+    public void setUp() {
+        client = new ScriptedElasticClient(GetCoalescerTest::respond);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void getAfterCloseDispatchesImmediately() throws Exception {
+        GetCoalescer coalescer = new GetCoalescer(client, 10, TimeUnit.MINUTES.toMillis(1));
+        coalescer.close();
+
+        GetResponse response = coalescer.get(new MultiGetRequest.Item(INDEX, null, "1"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("1", response.getId());
+        assertEquals(1, client.getTransportClient().getRequests().size());
+    }
+
+    private static ActionResponse respond(ActionRequest request) {
+        List<MultiGetRequest.Item> items = ((MultiGetRequest) request).getItems();
+        MultiGetItemResponse[] responses = new MultiGetItemResponse[items.size()];
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new MultiGetItemResponse(new GetResponse(new GetResult(INDEX, "_doc", items.get(i).id(),
+                    1, true, new BytesArray("{}"), Collections.emptyMap())), null);
+        }
+        return new MultiGetResponse(responses);
+    }
+}
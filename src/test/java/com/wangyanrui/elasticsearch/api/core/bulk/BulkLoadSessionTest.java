@@ -0,0 +1,104 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.elasticsearch.api.core.ElasticAdmin;
+import com.wangyanrui.elasticsearch.api.core.pojo.request.admin.BulkLoadAction;
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsAction;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Title: BulkLoadSessionTest
+ * Description: 结束导入时前面的步骤失败, 仍会恢复副本数量
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class BulkLoadSessionTest {
+
+    private static final String INDEX = "test";
+
+    private final List<Class<?>> requests = new CopyOnWriteArrayList<>();
+
+    private final IllegalStateException refreshFailure = new IllegalStateException("refresh");
+
+    private ScriptedElasticClient client;
+
+    @Before
+    public void setUp() {
+        client = new ScriptedElasticClient(this::respond);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void replicasRestoredWhenRefreshFails() {
+        BulkLoadSession session = new ElasticAdmin(client)
+                .openBulkLoadSession(new BulkLoadAction(INDEX).setWaitForGreenTimeoutMillis(0));
+        try {
+            session.finish();
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(refreshFailure, e);
+        }
+
+        // 开启: 切换 setting; 结束: 恢复其他 setting, 刷新(失败), 恢复副本数量
+        assertTrue(session.isClosed());
+        assertEquals(Arrays.asList(GetSettingsRequest.class, UpdateSettingsRequest.class,
+                UpdateSettingsRequest.class, RefreshRequest.class, UpdateSettingsRequest.class), requests);
+    }
+
+    private ActionResponse respond(ActionRequest request) {
+        requests.add(request.getClass());
+        if (request instanceof GetSettingsRequest) {
+            Settings settings = Settings.builder().put("index.number_of_replicas", 2).build();
+            return new GetSettingsResponse(ImmutableOpenMap.<String, Settings>builder().fPut(INDEX, settings).build());
+        }
+        if (request instanceof UpdateSettingsRequest) {
+            return acknowledged();
+        }
+        if (request instanceof RefreshRequest) {
+            throw refreshFailure;
+        }
+        return null;
+    }
+
+    /**
+     * UpdateSettingsResponse 的构造方法不是 public, 从序列化数据读取
+     */
+    private static UpdateSettingsResponse acknowledged() {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeBoolean(true);
+            UpdateSettingsResponse response = UpdateSettingsAction.INSTANCE.newResponse();
+            response.readFrom(out.bytes().streamInput());
+            return response;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.wangyanrui.elasticsearch.api.core.bulk;
+
+import com.wangyanrui.elasticsearch.api.core.pojo.request.bulk.BulkRetryPolicy;
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Title: BulkRetryExecutorTest
+ * Description: 只重试被拒绝(429)的条目, 受最大重试次数与重试预算限制; 结果的条目顺序与 itemId 与原始请求一致
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class BulkRetryExecutorTest {
+
+    private static final String INDEX = "test";
+
+    private static final String TYPE = "_doc";
+
+    private ScriptedElasticClient client;
+
+    private final List<List<String>> sentIds = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        if (Objects.nonNull(client)) {
+            client.close();
+        }
+    }
+
+    @Test
+    public void partialRejectionRetriesOnlyRejectedItems() throws Exception {
+        BulkRetryExecutor executor = executor(policy(),
+                rejecting("b", "d"),
+                rejecting());
+
+        BulkRetryResult result = executor.execute(bulkRequest("a", "b", "c", "d")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c", "d"), Arrays.asList("b", "d")), sentIds);
+        assertFalse(result.getResponse().hasFailures());
+        assertItems(result, "a", "b", "c", "d");
+        assertArrayEquals(new int[]{1, 2, 1, 2}, result.getAttempts());
+    }
+
+    @Test
+    public void wholeRequestRejectionOnRetryIsRetried() throws Exception {
+        BulkRetryExecutor executor = executor(policy(),
+                rejecting("b", "c"),
+                request -> {
+                    throw new EsRejectedExecutionException("rejected");
+                },
+                rejecting());
+
+        BulkRetryResult result = executor.execute(bulkRequest("a", "b", "c")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("b", "c"), Arrays.asList("b", "c")),
+                sentIds);
+        assertFalse(result.getResponse().hasFailures());
+        assertItems(result, "a", "b", "c");
+        assertArrayEquals(new int[]{1, 3, 3}, result.getAttempts());
+    }
+
+    @Test
+    public void exhaustedBudgetStopsRetryingRemainingItems() throws Exception {
+        BulkRetryExecutor executor = executor(policy().setBudgetRatio(0).setBudgetCapacity(2),
+                rejecting("a", "b", "c", "d"),
+                rejecting("b"));
+
+        BulkRetryResult result = executor.execute(bulkRequest("a", "b", "c", "d")).get(5, TimeUnit.SECONDS);
+
+        // 预算只够重试2条; 第二次仍被拒绝的 b 没有预算再重试
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c", "d"), Arrays.asList("a", "b")), sentIds);
+        assertItems(result, "a", "b", "c", "d");
+        BulkItemResponse[] items = result.getResponse().getItems();
+        assertFalse(items[0].isFailed());
+        assertRejected(items[1]);
+        assertRejected(items[2]);
+        assertRejected(items[3]);
+        assertArrayEquals(new int[]{2, 2, 1, 1}, result.getAttempts());
+        assertEquals(0, executor.getBudget().available(), 0);
+    }
+
+    @Test
+    public void mergeKeepsOriginalOrderAndIds() {
+        BulkRetryResult first = new BulkRetryResult(new BulkResponse(new BulkItemResponse[]{
+                success(0, "a"), rejected(1, "b")}, 3), new int[]{1, 4});
+        BulkRetryResult second = new BulkRetryResult(new BulkResponse(new BulkItemResponse[]{
+                success(0, "c"), success(1, "d"), rejected(2, "e")}, 5), new int[]{2, 1, 3});
+
+        BulkRetryResult merged = BulkRetryResult.merge(Arrays.asList(first, second));
+
+        assertItems(merged, "a", "b", "c", "d", "e");
+        BulkItemResponse[] items = merged.getResponse().getItems();
+        assertFalse(items[0].isFailed());
+        assertRejected(items[1]);
+        assertFalse(items[2].isFailed());
+        assertFalse(items[3].isFailed());
+        assertRejected(items[4]);
+        assertArrayEquals(new int[]{1, 4, 2, 1, 3}, merged.getAttempts());
+        assertEquals(5, merged.getResponse().getTook().millis());
+    }
+
+    @SafeVarargs
+    private final BulkRetryExecutor executor(BulkRetryPolicy policy,
+                                             Function<BulkRequest, BulkResponse>... responses) {
+        Deque<Function<BulkRequest, BulkResponse>> script = new ArrayDeque<>(Arrays.asList(responses));
+        client = new ScriptedElasticClient(request -> respond(request, script));
+        return new BulkRetryExecutor(client, policy);
+    }
+
+    private ActionResponse respond(ActionRequest request, Deque<Function<BulkRequest, BulkResponse>> script) {
+        BulkRequest bulkRequest = (BulkRequest) request;
+        List<String> ids = new ArrayList<>();
+        for (DocWriteRequest docWriteRequest : bulkRequest.requests()) {
+            ids.add(docWriteRequest.id());
+        }
+        sentIds.add(ids);
+        assertFalse("unexpected bulk request " + ids, script.isEmpty());
+        return script.poll().apply(bulkRequest);
+    }
+
+    private static BulkRetryPolicy policy() {
+        return new BulkRetryPolicy()
+                .setMaxRetries(3)
+                .setInitialBackoffMillis(1)
+                .setMaxBackoffMillis(1)
+                .setBudgetRatio(1)
+                .setBudgetCapacity(100);
+    }
+
+    /**
+     * 指定ID的条目以 429 失败, 其余成功
+     */
+    private static Function<BulkRequest, BulkResponse> rejecting(String... rejectedIds) {
+        Set<String> rejected = new HashSet<>(Arrays.asList(rejectedIds));
+        return request -> {
+            List<DocWriteRequest> requests = request.requests();
+            BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+            for (int i = 0; i < items.length; i++) {
+                String id = requests.get(i).id();
+                items[i] = rejected.contains(id) ? rejected(i, id) : success(i, id);
+            }
+            return new BulkResponse(items, 1);
+        };
+    }
+
+    private static BulkItemResponse success(int itemId, String id) {
+        return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX,
+                new IndexResponse(new ShardId(INDEX, "_na_", 0), TYPE, id, 1, 1, 1, true));
+    }
+
+    private static BulkItemResponse rejected(int itemId, String id) {
+        return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure(INDEX, TYPE, id, new EsRejectedExecutionException("rejected")));
+    }
+
+    private static BulkRequest bulkRequest(String... ids) {
+        BulkRequest request = new BulkRequest();
+        for (String id : ids) {
+            request.add(new IndexRequest(INDEX, TYPE, id).source(Collections.singletonMap("id", id),
+                    XContentType.JSON));
+        }
+        return request;
+    }
+
+    private static void assertItems(BulkRetryResult result, String... ids) {
+        BulkItemResponse[] items = result.getResponse().getItems();
+        assertEquals(ids.length, items.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, items[i].getItemId());
+            assertEquals(ids[i], items[i].getId());
+        }
+    }
+
+    private static void assertRejected(BulkItemResponse item) {
+        assertTrue(item.isFailed());
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, item.getFailure().getStatus());
+    }
+}
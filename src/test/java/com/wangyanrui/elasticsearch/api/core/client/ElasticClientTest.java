@@ -0,0 +1,39 @@
+package com.wangyanrui.elasticsearch.api.core.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Title: ElasticClientTest
+ * Description: 关闭后重新连接(如后台健康检查)不会重新打开连接
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ElasticClientTest {
+
+    private ElasticClient client;
+
+    @Before
+    public void setUp() {
+        client = new ElasticClient("localhost", 9300, "test");
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void reConnectAfterCloseStaysClosed() {
+        client.close();
+        client.reConnect();
+
+        assertFalse(client.isConnected());
+        assertNull(client.getClient());
+    }
+}
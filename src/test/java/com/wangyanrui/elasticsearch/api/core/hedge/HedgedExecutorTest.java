@@ -0,0 +1,81 @@
+package com.wangyanrui.elasticsearch.api.core.hedge;
+
+import com.wangyanrui.elasticsearch.api.core.pojo.request.search.HedgePolicy;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Title: HedgedExecutorTest
+ * Description: 首次请求不修改 preference, 只有对冲请求设置 preference; 被取消的首次请求以取消时的耗时记入延迟样本
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class HedgedExecutorTest {
+
+    @Test
+    public void onlyHedgeSetsPreference() throws Exception {
+        HedgedExecutor executor = new HedgedExecutor(policy().setHedgePreference("_prefer_nodes:other"));
+        List<String> preferences = new CopyOnWriteArrayList<>();
+
+        String result = executor.execute(preference -> {
+            preferences.add(preference);
+            return preferences.size() == 1 ? new CompletableFuture<>() : CompletableFuture.completedFuture("hedge");
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals("hedge", result);
+        assertEquals(2, preferences.size());
+        assertNull(preferences.get(0));
+        assertEquals("_prefer_nodes:other", preferences.get(1));
+        assertEquals(1, executor.getHedgeWinCount());
+    }
+
+    @Test
+    public void defaultHedgePreferenceIsCustomString() throws Exception {
+        HedgedExecutor executor = new HedgedExecutor(policy());
+        List<String> preferences = new CopyOnWriteArrayList<>();
+
+        executor.execute(preference -> {
+            preferences.add(preference);
+            return preferences.size() == 1 ? new CompletableFuture<>() : CompletableFuture.completedFuture("hedge");
+        }).get(5, TimeUnit.SECONDS);
+
+        assertNotNull(preferences.get(1));
+        assertTrue(!preferences.get(1).startsWith("_"));
+    }
+
+    @Test
+    public void cancelledPrimaryIsRecordedAsLowerBound() throws Exception {
+        HedgedExecutor executor = new HedgedExecutor(policy().setMinSamples(1).setWindowSize(16));
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> result = executor.execute(preference -> {
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            attempts.add(attempt);
+            return attempt;
+        });
+        while (attempts.size() < 2) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(200);
+        attempts.get(1).complete("hedge");
+
+        assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+        assertTrue(attempts.get(0).isCancelled());
+        // 被取消的首次请求以取消时的耗时(约200ms)记入样本, 而不是被丢弃
+        assertTrue(executor.getDelayMillis() >= 200);
+    }
+
+    private static HedgePolicy policy() {
+        return new HedgePolicy().setInitialDelayMillis(1).setMinDelayMillis(0).setBudgetCapacity(10);
+    }
+}
@@ -0,0 +1,111 @@
+package com.wangyanrui.elasticsearch.api.core.scroll;
+
+import com.wangyanrui.elasticsearch.api.support.ScriptedTransportClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Title: ScrollCursorTest
+ * Description: ScrollCursor 以空页结束遍历, 分片失败或超时时抛出异常
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ScrollCursorTest {
+
+    private static final TimeValue KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private ScriptedTransportClient client;
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void shortPageDoesNotEndScroll() {
+        ScrollCursor cursor = cursor(page(3, 0, false), page(1, 0, false), page(2, 0, false), page(0, 0, false));
+
+        int total = 0;
+        int pages = 0;
+        while (cursor.hasNext()) {
+            total += cursor.next().length;
+            pages++;
+        }
+        assertEquals(3, pages);
+        assertEquals(6, total);
+        assertTrue(client.getRequests().stream().anyMatch(request -> request instanceof ClearScrollRequest));
+    }
+
+    @Test
+    public void failedShardsFailCursor() {
+        ScrollCursor cursor = cursor(page(3, 0, false), page(2, 1, false));
+
+        assertEquals(3, cursor.next().length);
+        assertFails(cursor);
+    }
+
+    @Test
+    public void timedOutPageFailsCursor() {
+        assertFails(cursor(page(3, 0, true)));
+    }
+
+    private void assertFails(ScrollCursor cursor) {
+        try {
+            cursor.hasNext();
+            fail("incomplete page must fail the cursor");
+        } catch (RuntimeException e) {
+            assertTrue(client.getRequests().stream().anyMatch(request -> request instanceof ClearScrollRequest));
+        }
+        assertFalse(cursor.hasNext());
+    }
+
+    private ScrollCursor cursor(SearchResponse... pages) {
+        Deque<SearchResponse> responses = new ArrayDeque<>(Arrays.asList(pages));
+        client = new ScriptedTransportClient(request -> respond(request, responses));
+        return new ScrollCursor(client, client.prepareSearch("test").setScroll(KEEP_ALIVE), KEEP_ALIVE);
+    }
+
+    private static ActionResponse respond(ActionRequest request, Deque<SearchResponse> responses) {
+        if (request instanceof ClearScrollRequest) {
+            return new ClearScrollResponse(true, 1);
+        }
+        if (request instanceof SearchScrollRequest && responses.isEmpty()) {
+            throw new IllegalStateException("no more pages scripted");
+        }
+        return responses.poll();
+    }
+
+    private static SearchResponse page(int size, int failedShards, boolean timedOut) {
+        SearchHit[] hits = new SearchHit[size];
+        for (int i = 0; i < size; i++) {
+            hits[i] = new SearchHit(i);
+        }
+        ShardSearchFailure[] shardFailures = failedShards == 0 ? ShardSearchFailure.EMPTY_ARRAY
+                : new ShardSearchFailure[]{new ShardSearchFailure(new IllegalStateException("shard failure"))};
+        InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(hits, 6, 1.0f), null, null, null, timedOut, null, 1);
+        return new SearchResponse(sections, "scroll-id", 2, 2 - failedShards, 0, 1,
+                shardFailures, SearchResponse.Clusters.EMPTY);
+    }
+}
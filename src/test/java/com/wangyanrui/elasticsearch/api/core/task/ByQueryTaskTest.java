@@ -0,0 +1,92 @@
+package com.wangyanrui.elasticsearch.api.core.task;
+
+import com.wangyanrui.elasticsearch.api.constant.ElasticConstant;
+import com.wangyanrui.elasticsearch.api.support.ScriptedElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.DeleteByQueryAction;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Title: ByQueryTaskTest
+ * Description: 按请求头中的唯一标记对应服务端任务, 相同请求的其他任务与切片子任务不会被匹配
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ByQueryTaskTest {
+
+    private ScriptedElasticClient client;
+
+    private String marker;
+
+    private String otherMarker;
+
+    private final List<String> sentMarkers = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        marker = ByQueryTask.newMarker();
+        otherMarker = ByQueryTask.newMarker();
+        client = new ScriptedElasticClient(this::respond);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void markedClientSendsMarkerHeader() {
+        DeleteByQueryAction.INSTANCE.newRequestBuilder(ByQueryTask.markClient(client.getClient(), marker))
+                .source("test")
+                .filter(QueryBuilders.matchAllQuery())
+                .get();
+
+        assertEquals(Collections.singletonList(marker), sentMarkers);
+    }
+
+    @Test
+    public void lookupMatchesMarkerOnly() {
+        assertNotEquals(marker, otherMarker);
+        ByQueryTask task = new ByQueryTask(client, DeleteByQueryAction.NAME, marker, new CompletableFuture<>());
+
+        assertEquals(new TaskId("node", 3), task.getTaskId());
+    }
+
+    private ActionResponse respond(ActionRequest request) {
+        if (!(request instanceof ListTasksRequest)) {
+            sentMarkers.add(client.getClient().threadPool().getThreadContext()
+                    .getHeader(ElasticConstant.Task.OPAQUE_ID_HEADER));
+            return null;
+        }
+        // 先提交的相同请求(其他标记)、本任务的切片子任务、本任务
+        TaskInfo other = taskInfo(1, otherMarker, TaskId.EMPTY_TASK_ID);
+        TaskInfo child = taskInfo(2, marker, new TaskId("node", 3));
+        TaskInfo own = taskInfo(3, marker, TaskId.EMPTY_TASK_ID);
+        return new ListTasksResponse(Arrays.asList(other, child, own), Collections.emptyList(),
+                Collections.emptyList());
+    }
+
+    private static TaskInfo taskInfo(long id, String taskMarker, TaskId parentTaskId) {
+        return new TaskInfo(new TaskId("node", id), "transport", DeleteByQueryAction.NAME, "delete-by-query [test]",
+                null, 0, 0, true, parentTaskId,
+                Collections.singletonMap(ElasticConstant.Task.OPAQUE_ID_HEADER, taskMarker));
+    }
+}
@@ -0,0 +1,44 @@
+package com.wangyanrui.elasticsearch.api.support;
+
+import com.wangyanrui.elasticsearch.api.core.client.ElasticClient;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.transport.TransportClient;
+
+import java.util.function.Function;
+
+/**
+ * Title: ScriptedElasticClient
+ * Description: 使用 {@link ScriptedTransportClient} 的 ElasticClient
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ScriptedElasticClient extends ElasticClient {
+
+    private final ScriptedTransportClient transportClient;
+
+    public ScriptedElasticClient(Function<ActionRequest, ActionResponse> handler) {
+        super("localhost", 9300, "test");
+        this.transportClient = new ScriptedTransportClient(handler);
+    }
+
+    public ScriptedTransportClient getTransportClient() {
+        return transportClient;
+    }
+
+    @Override
+    public TransportClient getClient() {
+        return transportClient;
+    }
+
+    @Override
+    public ElasticClient connect() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        transportClient.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.wangyanrui.elasticsearch.api.support;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.transport.client.PreBuiltTransportClient;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Title: ScriptedTransportClient
+ * Description: 测试用的进程内 TransportClient
+ * <p>
+ * 不连接任何节点, 每个请求交给 handler 在调用线程中直接生成响应; handler 抛出异常时以该异常失败,
+ * 返回 {@link #DEFERRED} 时暂不响应, 由测试稍后调用 {@link #respond}/{@link #fail} 结束.
+ * 收到的请求按顺序记录, 供断言使用
+ *
+ * @author wangyanrui
+ * @version 1.0
+ */
+public class ScriptedTransportClient extends PreBuiltTransportClient {
+
+    /**
+     * handler 返回该值时暂不响应
+     */
+    public static final ActionResponse DEFERRED = new ActionResponse() {
+    };
+
+    private final Map<ActionRequest, ActionListener<ActionResponse>> deferred = new ConcurrentHashMap<>();
+
+    private final List<ActionRequest> requests = new CopyOnWriteArrayList<>();
+
+    private volatile Function<ActionRequest, ActionResponse> handler;
+
+    public ScriptedTransportClient(Function<ActionRequest, ActionResponse> handler) {
+        super(Settings.builder().put("cluster.name", "test").build(), Collections.emptyList());
+        this.handler = handler;
+    }
+
+    public void setHandler(Function<ActionRequest, ActionResponse> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 已收到的请求
+     *
+     * @return 请求, 按收到的顺序
+     */
+    public List<ActionRequest> getRequests() {
+        return requests;
+    }
+
+    /**
+     * 已暂缓响应的请求
+     *
+     * @return 请求
+     */
+    public Set<ActionRequest> getDeferred() {
+        return deferred.keySet();
+    }
+
+    /**
+     * 响应一个暂缓的请求
+     */
+    public void respond(ActionRequest request, ActionResponse response) {
+        deferred.remove(request).onResponse(response);
+    }
+
+    /**
+     * 以异常结束一个暂缓的请求
+     */
+    public void fail(ActionRequest request, Exception e) {
+        deferred.remove(request).onFailure(e);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <Request extends ActionRequest, Response extends ActionResponse,
+            RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+            Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+        requests.add(request);
+        final Response response;
+        try {
+            response = (Response) handler.apply(request);
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+            return;
+        }
+        if (response == DEFERRED) {
+            deferred.put(request, (ActionListener<ActionResponse>) listener);
+            return;
+        }
+        listener.onResponse(response);
+    }
+}